@@ -1,7 +1,6 @@
 package org.example.cacheusedemo.controller;
 
 import com.github.benmanes.caffeine.cache.Cache;
-import info.library.util.GsonUtils;
 import org.example.multilevelcache.config.RedisCaffeineCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,12 +21,12 @@ public class ExampleCacheService {
   }
 
   /**
-   * 输出所有的 Cache
+   * 输出 Caffeine 缓存的大小，命中率等指标通过 /actuator/metrics 查看
    * fixme: 只有使用 Caffeine 才能用该方法
    */
   public void showCaffeineCache(String cacheName) {
     RedisCaffeineCache cache = (RedisCaffeineCache) cacheManager.getCache(cacheName);
     final Cache<Object, Object> caffeineCache = cache.getCaffeineCache();
-    LOGGER.info("缓存当前的数据：{}", GsonUtils.writeToJson(caffeineCache.asMap().values()));
+    LOGGER.debug("缓存当前的数据个数：{}", caffeineCache.estimatedSize());
   }
 }
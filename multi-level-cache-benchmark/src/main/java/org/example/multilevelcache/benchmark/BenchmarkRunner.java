@@ -0,0 +1,29 @@
+package org.example.multilevelcache.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 使用不同线程数依次运行基准测试
+ * <p>
+ * 运行: java -Dbenchmark.threads=1,4,16 -cp benchmarks.jar org.example.multilevelcache.benchmark.BenchmarkRunner [include]
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class BenchmarkRunner {
+  public static final String THREADS_PROPERTY = "benchmark.threads";
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : TwoLevelCacheBenchmark.class.getSimpleName();
+    for (String threads : System.getProperty(THREADS_PROPERTY, "1,4,16").split(",")) {
+      Options options = new OptionsBuilder()
+          .include(include)
+          .threads(Integer.parseInt(threads.trim()))
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
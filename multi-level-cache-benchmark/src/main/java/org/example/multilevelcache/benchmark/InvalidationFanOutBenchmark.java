@@ -0,0 +1,113 @@
+package org.example.multilevelcache.benchmark;
+
+import org.example.multilevelcache.benchmark.support.BenchmarkCaches;
+import org.example.multilevelcache.benchmark.support.BenchmarkRedis;
+import org.example.multilevelcache.config.CacheMessageListener;
+import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.impl.RedisCacheMessagePublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 缓存更新消息的扇出延迟：发布一条消息，直到所有订阅节点都清除了本地缓存
+ * <p>
+ * 每个订阅节点使用独立的 RedisCaffeineCacheManager 和 RedisMessageListenerContainer。
+ * 运行: java -jar benchmarks.jar InvalidationFanOutBenchmark
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class InvalidationFanOutBenchmark {
+  private static final String CACHE_NAME = "fanout";
+  private static final String KEY = "key";
+
+  @Param({"1", "4", "8"})
+  private int subscribers;
+
+  private BenchmarkRedis redis;
+  private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+  private CacheMessagePublisher publisher;
+  private volatile CountDownLatch received;
+
+  @Setup(Level.Trial)
+  public void setup() throws InterruptedException {
+    redis = BenchmarkRedis.start();
+    MultiCacheProperties properties = BenchmarkCaches.properties();
+    String topic = properties.getRedis().getTopic();
+    for (int i = 0; i < subscribers; i++) {
+      RedisTemplate<Object, Object> template = redis.createTemplate();
+      RedisCaffeineCacheManager manager = BenchmarkCaches.createManager(redis, template, properties);
+      manager.getCache(CACHE_NAME);
+      CacheMessageListener delegate = new CacheMessageListener(template, manager);
+      MessageListener listener = (message, pattern) -> {
+        delegate.onMessage(message, pattern);
+        CountDownLatch latch = received;
+        if (latch != null) {
+          latch.countDown();
+        }
+      };
+      RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+      container.setConnectionFactory(redis.getConnectionFactory());
+      container.addMessageListener(listener, new ChannelTopic(topic));
+      container.afterPropertiesSet();
+      container.start();
+      containers.add(container);
+    }
+    publisher = new RedisCacheMessagePublisher(redis.createTemplate(), topic);
+    // 等待订阅完成
+    Thread.sleep(1000);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    for (RedisMessageListenerContainer container : containers) {
+      container.destroy();
+    }
+    redis.close();
+  }
+
+  @Benchmark
+  public void publishAndAwait() throws InterruptedException, TimeoutException {
+    CountDownLatch latch = new CountDownLatch(subscribers);
+    received = latch;
+    // 同一个 JVM 中的节点共享 INSTANCE_ID，使用其他 origin 模拟来自其他节点的消息
+    CacheMessage message = new CacheMessage(CACHE_NAME, KEY);
+    message.setOrigin("benchmark-publisher");
+    publisher.publish(message);
+    if (!latch.await(5, TimeUnit.SECONDS)) {
+      throw new TimeoutException("only " + (subscribers - latch.getCount()) + " of " + subscribers + " subscribers received the message");
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package org.example.multilevelcache.benchmark;
+
+import org.example.multilevelcache.benchmark.model.TestEx;
+import org.example.multilevelcache.benchmark.support.BenchmarkCaches;
+import org.example.multilevelcache.benchmark.support.BenchmarkRedis;
+import org.example.multilevelcache.benchmark.support.KeyGenerator;
+import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L1 命中路径每次操作分配的内存，需要配合 GC profiler 运行：
+ * java -jar benchmarks.jar L1HitAllocationBenchmark -prof gc
+ * <p>
+ * 关注 gc.alloc.rate.norm（B/op）：get(key, Class) 和 get(key, Callable) 应为 0，
+ * get(key) 只有 Spring 返回的 ValueWrapper（16 B/op）
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class L1HitAllocationBenchmark {
+  private static final String CACHE = "l1";
+
+  @Param({"false", "true"})
+  private boolean hotKeyEnabled;
+
+  @Param({"10000"})
+  private int keyCount;
+
+  private BenchmarkRedis redis;
+  private Cache cache;
+  private KeyGenerator keys;
+  private Callable<TestEx> loader;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    redis = BenchmarkRedis.start();
+    MultiCacheProperties properties = BenchmarkCaches.properties();
+    properties.getHotKey().setEnabled(hotKeyEnabled);
+    RedisCaffeineCacheManager manager = BenchmarkCaches.createManager(redis, redis.createTemplate(), properties);
+    cache = manager.getCache(CACHE);
+
+    // zipfian 分布，开启热点 key 检测时少量 key 会进入 topK
+    keys = KeyGenerator.create(KeyGenerator.ZIPFIAN, "key-", keyCount);
+    TestEx value = new TestEx("10001", "5b0d4f4e-3c1a-4a55-9a57-1f0e8a3c2b71_10001");
+    loader = () -> value;
+    for (String key : keys.keys()) {
+      cache.put(key, value);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    redis.close();
+  }
+
+  @Benchmark
+  public Object getValueWrapper() {
+    return cache.get(keys.next());
+  }
+
+  @Benchmark
+  public TestEx getTyped() {
+    return cache.get(keys.next(), TestEx.class);
+  }
+
+  @Benchmark
+  public TestEx getWithLoader() {
+    return cache.get(keys.next(), loader);
+  }
+}
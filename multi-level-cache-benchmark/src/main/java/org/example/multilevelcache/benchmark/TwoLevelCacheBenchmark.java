@@ -0,0 +1,119 @@
+package org.example.multilevelcache.benchmark;
+
+import org.example.multilevelcache.benchmark.model.TestEx;
+import org.example.multilevelcache.benchmark.support.BenchmarkCaches;
+import org.example.multilevelcache.benchmark.support.BenchmarkRedis;
+import org.example.multilevelcache.benchmark.support.KeyGenerator;
+import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级缓存热点路径的吞吐量：L1 命中、L1 未命中 L2 命中、两级都未命中回源、put、evict
+ * <p>
+ * 不同线程数通过 BenchmarkRunner 运行: java -cp benchmarks.jar org.example.multilevelcache.benchmark.BenchmarkRunner
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TwoLevelCacheBenchmark {
+  private static final String L1_CACHE = "l1";
+  private static final String L2_CACHE = "l2";
+  private static final String MISS_CACHE = "miss";
+  private static final String WRITE_CACHE = "write";
+
+  @Param({KeyGenerator.UNIFORM, KeyGenerator.ZIPFIAN})
+  private String distribution;
+
+  @Param({"10000"})
+  private int keyCount;
+
+  private BenchmarkRedis redis;
+  private Cache l1Cache;
+  private Cache l2Cache;
+  private Cache missCache;
+  private Cache writeCache;
+  private KeyGenerator keys;
+  private TestEx value;
+  private final AtomicLong missSequence = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    redis = BenchmarkRedis.start();
+    MultiCacheProperties properties = BenchmarkCaches.properties();
+    // l2 只使用 redis，每次读取都是 L1 未命中、L2 命中
+    MultiCacheProperties.CacheConfig l2 = new MultiCacheProperties.CacheConfig();
+    l2.setLocalEnabled(false);
+    properties.getCaches().put(L2_CACHE, l2);
+    // miss 每次使用新的 key，限制 L1 大小和 redis 过期时间
+    MultiCacheProperties.CacheConfig miss = new MultiCacheProperties.CacheConfig();
+    miss.setMaximumSize((long) keyCount);
+    miss.setExpiration(60000L);
+    properties.getCaches().put(MISS_CACHE, miss);
+
+    RedisCaffeineCacheManager manager = BenchmarkCaches.createManager(redis, redis.createTemplate(), properties);
+    l1Cache = manager.getCache(L1_CACHE);
+    l2Cache = manager.getCache(L2_CACHE);
+    missCache = manager.getCache(MISS_CACHE);
+    writeCache = manager.getCache(WRITE_CACHE);
+
+    keys = KeyGenerator.create(distribution, "key-", keyCount);
+    value = new TestEx("10001", "5b0d4f4e-3c1a-4a55-9a57-1f0e8a3c2b71_10001");
+    for (String key : keys.keys()) {
+      l1Cache.put(key, value);
+      l2Cache.put(key, value);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    redis.close();
+  }
+
+  @Benchmark
+  public Object l1Hit() {
+    return l1Cache.get(keys.next());
+  }
+
+  @Benchmark
+  public Object l2Hit() {
+    return l2Cache.get(keys.next());
+  }
+
+  @Benchmark
+  public Object missWithLoader() {
+    return missCache.get("miss-" + missSequence.incrementAndGet(), () -> value);
+  }
+
+  @Benchmark
+  public void put() {
+    writeCache.put(keys.next(), value);
+  }
+
+  @Benchmark
+  public void evict() {
+    writeCache.evict(keys.next());
+  }
+}
@@ -0,0 +1,86 @@
+package org.example.multilevelcache.benchmark;
+
+import org.example.multilevelcache.benchmark.model.SampleReport;
+import org.example.multilevelcache.benchmark.model.TestEx;
+import org.example.multilevelcache.serializer.CacheValueSerializers;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存 value 序列化方式的对比：编码/解码吞吐量，以及序列化后的大小（辅助结果 payloadBytes）
+ * <p>
+ * 运行: java -jar benchmarks.jar ValueSerializerBenchmark
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValueSerializerBenchmark {
+
+  @Param({"json", "kryo", "kryo-registered"})
+  private String codec;
+
+  @Param({"small", "large"})
+  private String payload;
+
+  private RedisSerializer<Object> serializer;
+  private Object value;
+  private byte[] bytes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if ("kryo-registered".equals(codec)) {
+      serializer = CacheValueSerializers.create(CacheValueSerializers.KRYO,
+          Arrays.asList(TestEx.class.getName(), SampleReport.class.getName()));
+    } else {
+      serializer = CacheValueSerializers.create(codec, Collections.emptyList());
+    }
+    value = "small".equals(payload) ? new TestEx("10001", "5b0d4f4e-3c1a-4a55-9a57-1f0e8a3c2b71_10001") : SampleReport.create("report", 200);
+    bytes = serializer.serialize(value);
+  }
+
+  @Benchmark
+  public byte[] encode(PayloadSize size) {
+    return serializer.serialize(value);
+  }
+
+  @Benchmark
+  public Object decode(PayloadSize size) {
+    return serializer.deserialize(bytes);
+  }
+
+  /**
+   * 序列化后的大小，作为辅助结果与吞吐量一起输出
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PayloadSize {
+    public long payloadBytes;
+
+    @Setup(Level.Iteration)
+    public void setup(ValueSerializerBenchmark benchmark) {
+      payloadBytes = benchmark.bytes.length;
+    }
+  }
+}
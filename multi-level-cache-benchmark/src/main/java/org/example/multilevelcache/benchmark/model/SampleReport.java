@@ -0,0 +1,73 @@
+package org.example.multilevelcache.benchmark.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 较大的缓存对象，模拟报表类 DTO
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class SampleReport {
+  private String id;
+  private long createTime;
+  private List<TestEx> rows;
+  private Map<String, Long> summary;
+
+  public SampleReport() {
+  }
+
+  /**
+   * 创建包含 rowCount 行数据的报表
+   */
+  public static SampleReport create(String id, int rowCount) {
+    SampleReport report = new SampleReport();
+    report.setId(id);
+    report.setCreateTime(System.currentTimeMillis());
+    List<TestEx> rows = new ArrayList<>(rowCount);
+    Map<String, Long> summary = new LinkedHashMap<>();
+    for (int i = 0; i < rowCount; i++) {
+      rows.add(new TestEx(id + "_" + i, UUID.randomUUID() + "_" + i));
+      summary.put("column_" + (i % 16), (long) i * 31);
+    }
+    report.setRows(rows);
+    report.setSummary(summary);
+    return report;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public long getCreateTime() {
+    return createTime;
+  }
+
+  public void setCreateTime(long createTime) {
+    this.createTime = createTime;
+  }
+
+  public List<TestEx> getRows() {
+    return rows;
+  }
+
+  public void setRows(List<TestEx> rows) {
+    this.rows = rows;
+  }
+
+  public Map<String, Long> getSummary() {
+    return summary;
+  }
+
+  public void setSummary(Map<String, Long> summary) {
+    this.summary = summary;
+  }
+}
@@ -0,0 +1,36 @@
+package org.example.multilevelcache.benchmark.model;
+
+/**
+ * 与 cache-use-demo 中的 TestEx 结构一致的小对象
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class TestEx {
+  private String id;
+  private String name;
+
+  public TestEx() {
+  }
+
+  public TestEx(String id, String name) {
+    this.id = id;
+    this.name = name;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+}
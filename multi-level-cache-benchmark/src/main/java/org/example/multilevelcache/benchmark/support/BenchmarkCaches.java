@@ -0,0 +1,60 @@
+package org.example.multilevelcache.benchmark.support;
+
+import org.example.multilevelcache.config.KeyspaceSweeper;
+import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.hotkey.HotKeyRefresher;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
+import org.example.multilevelcache.manager.DistributedLock;
+import org.example.multilevelcache.manager.impl.RedisCacheMessagePublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 不依赖 Spring 容器创建 RedisCaffeineCacheManager
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public final class BenchmarkCaches {
+  /**
+   * 基准测试不使用分布式锁
+   */
+  private static final DistributedLock NOOP_LOCK = new DistributedLock() {
+    @Override
+    public boolean acquire(String lockName) {
+      return true;
+    }
+
+    @Override
+    public void release(String lockName) {
+    }
+  };
+  private static final HotKeyRefresher HOT_KEY_REFRESHER = new HotKeyRefresher();
+
+  private BenchmarkCaches() {
+  }
+
+  public static MultiCacheProperties properties() {
+    MultiCacheProperties properties = new MultiCacheProperties();
+    properties.setCachePrefix("benchmark");
+    properties.getRedis().setDefaultExpiration(600000);
+    return properties;
+  }
+
+  /**
+   * @param benchmarkRedis 创建异步命令，关闭 benchmarkRedis 时一起关闭
+   * @param redisTemplate  redisTemplate
+   * @param properties     配置
+   */
+  public static RedisCaffeineCacheManager createManager(BenchmarkRedis benchmarkRedis, RedisTemplate<Object, Object> redisTemplate,
+                                                        MultiCacheProperties properties) {
+    MultiCacheProperties.Redis redis = properties.getRedis();
+    return new RedisCaffeineCacheManager(properties, redisTemplate, NOOP_LOCK,
+        new RedisCacheMessagePublisher(redisTemplate, redis.getTopic()),
+        new KeyspaceSweeper(redisTemplate, redis.getSweepBatchSize(), redis.getSweepInterval()),
+        CacheMetricsFactory.NOOP, HOT_KEY_REFRESHER, new CacheKeyFilterFactory(properties, null),
+        CacheKeyEncoder.TO_STRING, benchmarkRedis.createAsyncCommands(redisTemplate, properties.getAsync()));
+  }
+}
@@ -0,0 +1,101 @@
+package org.example.multilevelcache.benchmark.support;
+
+import org.example.multilevelcache.config.RedisAsyncCommands;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.serializer.CacheValueSerializers;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.embedded.RedisServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基准测试使用的 redis：默认在随机端口启动嵌入式 redis，
+ * 也可以通过 -Dbenchmark.redis.host、-Dbenchmark.redis.port 使用外部 redis
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class BenchmarkRedis implements Closeable {
+  public static final String HOST_PROPERTY = "benchmark.redis.host";
+  public static final String PORT_PROPERTY = "benchmark.redis.port";
+
+  private final RedisServer server;
+  private final LettuceConnectionFactory connectionFactory;
+  /**
+   * 创建的异步命令，关闭时一起关闭
+   */
+  private final List<RedisAsyncCommands> asyncCommands = new ArrayList<>();
+
+  private BenchmarkRedis(RedisServer server, String host, int port) {
+    this.server = server;
+    this.connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+    this.connectionFactory.afterPropertiesSet();
+  }
+
+  public static BenchmarkRedis start() {
+    String host = System.getProperty(HOST_PROPERTY);
+    if (host != null) {
+      return new BenchmarkRedis(null, host, Integer.getInteger(PORT_PROPERTY, 6379));
+    }
+    int port = freePort();
+    RedisServer server = new RedisServer(port);
+    server.start();
+    return new BenchmarkRedis(server, "127.0.0.1", port);
+  }
+
+  private static int freePort() {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public RedisConnectionFactory getConnectionFactory() {
+    return connectionFactory;
+  }
+
+  /**
+   * 与 MultiLevelCacheAutoConfiguration 中 cacheValueRedisTemplate 的配置一致
+   */
+  public RedisTemplate<Object, Object> createTemplate() {
+    RedisSerializer<Object> valueSerializer = CacheValueSerializers.create(CacheValueSerializers.JSON, Collections.emptyList());
+    RedisTemplate<Object, Object> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setValueSerializer(valueSerializer);
+    template.setKeySerializer(new StringRedisSerializer());
+    template.afterPropertiesSet();
+    return template;
+  }
+
+  /**
+   * 与 MultiLevelCacheAutoConfiguration 中 redisAsyncCommands 的配置一致，关闭 BenchmarkRedis 时关闭
+   */
+  public RedisAsyncCommands createAsyncCommands(RedisTemplate<Object, Object> template, MultiCacheProperties.Async async) {
+    RedisAsyncCommands commands = new RedisAsyncCommands(template, async.getThreads(), async.getQueueCapacity());
+    asyncCommands.add(commands);
+    return commands;
+  }
+
+  @Override
+  public void close() {
+    for (RedisAsyncCommands commands : asyncCommands) {
+      commands.destroy();
+    }
+    connectionFactory.destroy();
+    if (server != null) {
+      server.stop();
+    }
+  }
+}
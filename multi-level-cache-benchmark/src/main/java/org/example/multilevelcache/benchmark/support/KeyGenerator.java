@@ -0,0 +1,88 @@
+package org.example.multilevelcache.benchmark.support;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按分布生成 key：uniform 均匀分布，zipfian 少量热点 key 占大部分访问
+ * <p>
+ * key 在创建时生成好，取 key 时不分配对象
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public abstract class KeyGenerator {
+  public static final String UNIFORM = "uniform";
+  public static final String ZIPFIAN = "zipfian";
+  /**
+   * zipfian 分布的参数，与 YCSB 默认值一致
+   */
+  private static final double ZIPFIAN_CONSTANT = 0.99;
+
+  private final String[] keys;
+
+  KeyGenerator(String prefix, int keyCount) {
+    this.keys = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = prefix + i;
+    }
+  }
+
+  public static KeyGenerator create(String distribution, String prefix, int keyCount) {
+    if (UNIFORM.equals(distribution)) {
+      return new Uniform(prefix, keyCount);
+    }
+    if (ZIPFIAN.equals(distribution)) {
+      return new Zipfian(prefix, keyCount);
+    }
+    throw new IllegalArgumentException("unknown key distribution: " + distribution);
+  }
+
+  public String[] keys() {
+    return keys;
+  }
+
+  public String next() {
+    return keys[nextIndex()];
+  }
+
+  abstract int nextIndex();
+
+  private static class Uniform extends KeyGenerator {
+    Uniform(String prefix, int keyCount) {
+      super(prefix, keyCount);
+    }
+
+    @Override
+    int nextIndex() {
+      return ThreadLocalRandom.current().nextInt(keys().length);
+    }
+  }
+
+  private static class Zipfian extends KeyGenerator {
+    /**
+     * 累积概率，第 i 个 key 的权重为 1 / (i + 1)^s
+     */
+    private final double[] cumulative;
+
+    Zipfian(String prefix, int keyCount) {
+      super(prefix, keyCount);
+      this.cumulative = new double[keyCount];
+      double sum = 0;
+      for (int i = 0; i < keyCount; i++) {
+        sum += 1 / Math.pow(i + 1, ZIPFIAN_CONSTANT);
+        cumulative[i] = sum;
+      }
+      for (int i = 0; i < keyCount; i++) {
+        cumulative[i] /= sum;
+      }
+    }
+
+    @Override
+    int nextIndex() {
+      int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+      index = index < 0 ? -index - 1 : index;
+      return Math.min(index, cumulative.length - 1);
+    }
+  }
+}
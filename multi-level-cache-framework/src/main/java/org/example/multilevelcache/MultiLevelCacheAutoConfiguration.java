@@ -1,14 +1,42 @@
 package org.example.multilevelcache;
 
 import org.example.multilevelcache.config.CacheMessageListener;
+import org.example.multilevelcache.config.KeyspaceSweeper;
+import org.example.multilevelcache.config.RedisAsyncCommands;
 import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.RedisStreamInvalidationListener;
+import org.example.multilevelcache.config.RedisTrackingInvalidationListener;
 import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.hotkey.HotKeyRefresher;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
 import org.example.multilevelcache.manager.DistributedLock;
+import org.example.multilevelcache.manager.impl.BatchingCacheMessagePublisher;
 import org.example.multilevelcache.manager.impl.DistributedRedisLock;
+import org.example.multilevelcache.manager.impl.MicrometerCacheMetricsFactory;
+import org.example.multilevelcache.manager.impl.RedisCacheMessagePublisher;
+import org.example.multilevelcache.manager.impl.RedisStreamCacheMessagePublisher;
+import org.example.multilevelcache.manager.impl.LocalQueuedDistributedLock;
+import org.example.multilevelcache.serializer.CacheValueSerializers;
+import org.example.multilevelcache.snapshot.CacheSnapshotLifecycle;
+import org.example.multilevelcache.warmup.CacheWarmer;
+import org.example.multilevelcache.warmup.WarmUpProgress;
+import io.lettuce.core.RedisURI;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,10 +44,11 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 多级缓存自动配置类，在 Redis自动配置后启动
@@ -31,38 +60,119 @@ import java.util.Objects;
 @AutoConfigureAfter(RedisAutoConfiguration.class)
 @EnableConfigurationProperties(MultiCacheProperties.class)
 public class MultiLevelCacheAutoConfiguration {
+  private static final String STREAM_INVALIDATION = "stream";
+
   private final MultiCacheProperties properties;
 
   public MultiLevelCacheAutoConfiguration(MultiCacheProperties properties) {
     this.properties = properties;
   }
 
+  /**
+   * 缓存 value 的序列化方式，根据 spring.multi-cache.redis.value-serializer 创建，
+   * 也可以自定义名称为 cacheValueSerializer 的 Bean 进行替换
+   */
+  @Bean("cacheValueSerializer")
+  @ConditionalOnMissingBean(name = "cacheValueSerializer")
+  public RedisSerializer<Object> cacheValueSerializer() {
+    MultiCacheProperties.Redis redis = properties.getRedis();
+    return CacheValueSerializers.create(redis.getValueSerializer(), redis.getRegisteredClasses());
+  }
+
   /**
    * 注入RedisTemplate
    */
   @Bean("cacheValueRedisTemplate")
-  public RedisTemplate<Object, Object> cacheValueRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+  public RedisTemplate<Object, Object> cacheValueRedisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                               @Qualifier("cacheValueSerializer") RedisSerializer<Object> cacheValueSerializer) {
     RedisTemplate<Object, Object> template = new RedisTemplate<>();
     template.setConnectionFactory(redisConnectionFactory);
-    // 指定 Redis 存储 value 为 json 格式
-    template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+    // 指定 Redis 存储 value 的序列化方式，默认为 json 格式
+    template.setValueSerializer(cacheValueSerializer);
     // key 为 String 格式
     template.setKeySerializer(new StringRedisSerializer());
     return template;
   }
 
   /**
-   * 依托 Redisson 实现的分布式锁
+   * 缓存 key 编码为 redis key 的方式，默认为 toString 的 UTF-8 字节，可以自定义 CacheKeyEncoder 的 Bean 进行替换
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public CacheKeyEncoder cacheKeyEncoder() {
+    return CacheKeyEncoder.TO_STRING;
+  }
+
+  /**
+   * 依托 Redisson 实现的分布式锁，前面加一层按锁名称排队的本地锁
    */
   @Bean
   public DistributedLock distributedLock(RedissonClient redissonClient) {
-    return new DistributedRedisLock(redissonClient);
+    return new LocalQueuedDistributedLock(new DistributedRedisLock(redissonClient));
+  }
+
+  /**
+   * 缓存更新消息发布，invalidation 为 stream 时写入 redis stream，开启 batchPublish 时在后台线程合并发送
+   */
+  @Bean
+  public CacheMessagePublisher cacheMessagePublisher(@Qualifier("cacheValueRedisTemplate") RedisTemplate<Object, Object> redisTemplate) {
+    MultiCacheProperties.Redis redis = properties.getRedis();
+    CacheMessagePublisher publisher = STREAM_INVALIDATION.equals(redis.getInvalidation())
+        ? new RedisStreamCacheMessagePublisher(redisTemplate, redis.getStream(), redis.getStreamMaxLength())
+        : new RedisCacheMessagePublisher(redisTemplate, redis.getTopic());
+    if (!redis.isBatchPublish()) {
+      return publisher;
+    }
+    return new BatchingCacheMessagePublisher(publisher, redis.getPublishInterval(), redis.getPublishBatchSize(), redis.getPublishQueueCapacity());
+  }
+
+  /**
+   * 通过 SCAN + UNLINK 分批清理 redis 缓存
+   */
+  @Bean
+  public KeyspaceSweeper keyspaceSweeper(@Qualifier("cacheValueRedisTemplate") RedisTemplate<Object, Object> redisTemplate) {
+    MultiCacheProperties.Redis redis = properties.getRedis();
+    return new KeyspaceSweeper(redisTemplate, redis.getSweepBatchSize(), redis.getSweepInterval());
+  }
+
+  /**
+   * 热点 key 收到缓存更新消息后的后台刷新
+   */
+  @Bean
+  public HotKeyRefresher hotKeyRefresher() {
+    return new HotKeyRefresher();
+  }
+
+  /**
+   * 按 cacheName 创建 key 过滤器（布隆过滤器），防止缓存穿透
+   */
+  @Bean
+  public CacheKeyFilterFactory cacheKeyFilterFactory(RedissonClient redissonClient) {
+    return new CacheKeyFilterFactory(properties, redissonClient);
+  }
+
+  /**
+   * 所有缓存共享的异步命令：一个响应式连接和一个有界的线程池，关闭时释放
+   */
+  @Bean
+  public RedisAsyncCommands redisAsyncCommands(@Qualifier("cacheValueRedisTemplate") RedisTemplate<Object, Object> redisTemplate) {
+    MultiCacheProperties.Async async = properties.getAsync();
+    return new RedisAsyncCommands(redisTemplate, async.getThreads(), async.getQueueCapacity());
   }
 
   @Bean
   public RedisCaffeineCacheManager cacheManager(@Qualifier("cacheValueRedisTemplate") RedisTemplate<Object, Object> redisTemplate,
-                                                DistributedLock distributedLock) {
-    return new RedisCaffeineCacheManager(properties, redisTemplate, distributedLock);
+                                                DistributedLock distributedLock,
+                                                CacheMessagePublisher cacheMessagePublisher,
+                                                KeyspaceSweeper keyspaceSweeper,
+                                                ObjectProvider<CacheMetricsFactory> cacheMetricsFactory,
+                                                HotKeyRefresher hotKeyRefresher,
+                                                CacheKeyFilterFactory cacheKeyFilterFactory,
+                                                CacheKeyEncoder cacheKeyEncoder,
+                                                RedisAsyncCommands redisAsyncCommands) {
+    return new RedisCaffeineCacheManager(properties, redisTemplate, distributedLock, cacheMessagePublisher, keyspaceSweeper,
+        cacheMetricsFactory.getIfAvailable(() -> CacheMetricsFactory.NOOP), hotKeyRefresher, cacheKeyFilterFactory, cacheKeyEncoder,
+        redisAsyncCommands);
   }
 
   @Bean
@@ -74,4 +184,176 @@ public class MultiLevelCacheAutoConfiguration {
     redisMessageListenerContainer.addMessageListener(cacheMessageListener, new ChannelTopic(properties.getRedis().getTopic()));
     return redisMessageListenerContainer;
   }
+
+  /**
+   * spring.multi-cache.redis.invalidation=tracking 时，通过单独的 RESP3 连接接收 redis 的 invalidate 通知；
+   * topic 监听仍然保留，tracking 开启失败或连接断开期间使用 topic 消息
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "spring.multi-cache.redis", name = "invalidation", havingValue = "tracking")
+  public RedisTrackingInvalidationListener redisTrackingInvalidationListener(RedisProperties redisProperties,
+                                                                             RedisCaffeineCacheManager redisCaffeineCacheManager) {
+    RedisTrackingInvalidationListener listener = new RedisTrackingInvalidationListener(trackingRedisUri(redisProperties), redisCaffeineCacheManager);
+    listener.start();
+    return listener;
+  }
+
+  /**
+   * spring.multi-cache.redis.invalidation=stream 时，从 redis stream 按序号读取缓存更新消息，连接断开后重放缺失的消息；
+   * topic 监听仍然保留，用于接收未开启 stream 的节点发出的消息
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "spring.multi-cache.redis", name = "invalidation", havingValue = STREAM_INVALIDATION)
+  public RedisStreamInvalidationListener redisStreamInvalidationListener(@Qualifier("cacheValueRedisTemplate") RedisTemplate<Object, Object> redisTemplate,
+                                                                         RedisCaffeineCacheManager redisCaffeineCacheManager) {
+    MultiCacheProperties.Redis redis = properties.getRedis();
+    RedisStreamInvalidationListener listener = new RedisStreamInvalidationListener(redisTemplate, redisCaffeineCacheManager,
+        redis.getStream(), redis.getStreamReadCount(), redis.getStreamBlockTimeout(), redis.getStreamRetryInterval());
+    listener.start();
+    return listener;
+  }
+
+  /**
+   * spring.multi-cache.snapshot.enabled=true 时，关闭时将最热的本地缓存写入快照文件，启动后校验 redis 后恢复
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "spring.multi-cache.snapshot", name = "enabled", havingValue = "true")
+  public CacheSnapshotLifecycle cacheSnapshotLifecycle(RedisCaffeineCacheManager redisCaffeineCacheManager) {
+    return new CacheSnapshotLifecycle(redisCaffeineCacheManager, properties.getSnapshot());
+  }
+
+  /**
+   * spring.multi-cache.warm-up.enabled=true 时，应用就绪之前将配置的缓存从 redis 加载到 caffeine
+   */
+  @Bean
+  @ConditionalOnProperty(prefix = "spring.multi-cache.warm-up", name = "enabled", havingValue = "true")
+  public CacheWarmer cacheWarmer(@Qualifier("cacheValueRedisTemplate") RedisTemplate<Object, Object> redisTemplate,
+                                 RedisCaffeineCacheManager redisCaffeineCacheManager) {
+    return new CacheWarmer(redisCaffeineCacheManager, redisTemplate, properties);
+  }
+
+  /**
+   * 根据 spring.redis 的配置创建 tracking 连接的地址，BCAST 模式需要连接每个节点，不支持 cluster
+   */
+  private static RedisURI trackingRedisUri(RedisProperties redisProperties) {
+    if (redisProperties.getCluster() != null) {
+      throw new IllegalStateException("redis client tracking does not support cluster, use spring.multi-cache.redis.invalidation=topic");
+    }
+    if (redisProperties.getUrl() != null) {
+      return RedisURI.create(redisProperties.getUrl());
+    }
+    RedisURI.Builder builder;
+    RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+    if (sentinel != null) {
+      builder = null;
+      for (String node : sentinel.getNodes()) {
+        int index = node.lastIndexOf(':');
+        String host = node.substring(0, index);
+        int port = Integer.parseInt(node.substring(index + 1));
+        if (builder == null) {
+          builder = RedisURI.Builder.sentinel(host, port, sentinel.getMaster());
+        } else {
+          builder.withSentinel(host, port);
+        }
+      }
+      if (builder == null) {
+        throw new IllegalStateException("redis sentinel nodes must not be empty");
+      }
+    } else {
+      builder = RedisURI.Builder.redis(redisProperties.getHost(), redisProperties.getPort());
+    }
+    if (redisProperties.getPassword() != null) {
+      if (redisProperties.getUsername() != null) {
+        builder.withAuthentication(redisProperties.getUsername(), redisProperties.getPassword());
+      } else {
+        builder.withPassword(redisProperties.getPassword().toCharArray());
+      }
+    }
+    if (redisProperties.getTimeout() != null) {
+      builder.withTimeout(redisProperties.getTimeout());
+    }
+    return builder.withDatabase(redisProperties.getDatabase()).withSsl(redisProperties.isSsl()).build();
+  }
+
+  /**
+   * 存在 Micrometer 时记录缓存指标，可以通过 spring.multi-cache.metrics-enabled=false 关闭
+   */
+  @Configuration
+  @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+  @ConditionalOnProperty(prefix = "spring.multi-cache", name = "metrics-enabled", matchIfMissing = true)
+  static class CacheMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheMetricsFactory cacheMetricsFactory(ObjectProvider<MeterRegistry> meterRegistry) {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      return registry == null ? CacheMetricsFactory.NOOP : new MicrometerCacheMetricsFactory(registry);
+    }
+
+    /**
+     * 本地锁的竞争次数和超时次数
+     */
+    @Bean
+    public MeterBinder distributedLockMetrics(DistributedLock distributedLock) {
+      return registry -> {
+        if (!(distributedLock instanceof LocalQueuedDistributedLock)) {
+          return;
+        }
+        LocalQueuedDistributedLock lock = (LocalQueuedDistributedLock) distributedLock;
+        FunctionCounter.builder("multi.cache.lock.contended", lock, LocalQueuedDistributedLock::getContendedCount)
+            .description("The number of lock acquisitions that waited for another thread on the same node")
+            .register(registry);
+        FunctionCounter.builder("multi.cache.lock.timeouts", lock, LocalQueuedDistributedLock::getTimeoutCount)
+            .description("The number of lock acquisitions that timed out")
+            .register(registry);
+      };
+    }
+
+    /**
+     * redis stream 收到的消息数和清除所有本地缓存的次数
+     */
+    @Bean
+    public MeterBinder streamInvalidationMetrics(ObjectProvider<RedisStreamInvalidationListener> streamInvalidationListener) {
+      return registry -> {
+        RedisStreamInvalidationListener listener = streamInvalidationListener.getIfAvailable();
+        if (listener == null) {
+          return;
+        }
+        FunctionCounter.builder("multi.cache.invalidation.stream.received", listener, RedisStreamInvalidationListener::getReceivedCount)
+            .description("The number of cache messages read from the redis invalidation stream")
+            .register(registry);
+        FunctionCounter.builder("multi.cache.invalidation.stream.resyncs", listener, RedisStreamInvalidationListener::getResyncCount)
+            .description("The number of times all local caches were cleared because of an unrecoverable gap in the invalidation stream")
+            .register(registry);
+      };
+    }
+
+    /**
+     * 启动预热的进度
+     */
+    @Bean
+    public MeterBinder cacheWarmUpMetrics(ObjectProvider<CacheWarmer> cacheWarmer) {
+      return registry -> {
+        CacheWarmer warmer = cacheWarmer.getIfAvailable();
+        if (warmer == null) {
+          return;
+        }
+        WarmUpProgress progress = warmer.getProgress();
+        FunctionCounter.builder("multi.cache.warmup.keys", progress, WarmUpProgress::getScannedKeys)
+            .description("The number of redis keys scanned by the startup warm up")
+            .tag("state", "scanned")
+            .register(registry);
+        FunctionCounter.builder("multi.cache.warmup.keys", progress, WarmUpProgress::getLoadedEntries)
+            .description("The number of entries loaded into caffeine by the startup warm up")
+            .tag("state", "loaded")
+            .register(registry);
+        FunctionCounter.builder("multi.cache.warmup.bytes", progress, WarmUpProgress::getLoadedBytes)
+            .description("The serialized bytes loaded into caffeine by the startup warm up")
+            .register(registry);
+        TimeGauge.builder("multi.cache.warmup.duration", progress, TimeUnit.MILLISECONDS, WarmUpProgress::getElapsed)
+            .description("The time spent on the startup warm up")
+            .register(registry);
+      };
+    }
+  }
 }
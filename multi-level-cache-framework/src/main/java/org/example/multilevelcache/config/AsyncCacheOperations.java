@@ -0,0 +1,321 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.example.multilevelcache.hotkey.HotKeyDetector;
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.serializer.CompressingRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * RedisCaffeineCache 的异步接口：caffeine 的 AsyncCache 管理正在加载的 future，redis 命令通过 RedisAsyncCommands 非阻塞执行，
+ * redis 返回之后的操作在 RedisAsyncCommands 的线程池中执行
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+final class AsyncCacheOperations {
+  private final RedisCaffeineCache cache;
+  private final AsyncCache<Object, Object> asyncCache;
+  private final RedisAsyncCommands asyncCommands;
+  private final CompressingRedisSerializer valueSerializer;
+  private final CacheMetrics metrics;
+  /**
+   * 热点 key 检测，未开启时为 null
+   */
+  private final HotKeyDetector hotKeyDetector;
+  /**
+   * 堆外缓存，未开启时为 null
+   */
+  private final OffHeapCacheTier offHeap;
+  private final boolean remoteEnabled;
+  private final boolean versioned;
+  /**
+   * caffeine 是否按条目过期，为 true 时读取 redis 的同时获取剩余过期时间
+   */
+  private final boolean withTtl;
+  /**
+   * 版本号计数器的 redis key，没有开启 versioned 时为 null
+   */
+  private final byte[] versionKey;
+
+  AsyncCacheOperations(RedisCaffeineCache cache, AsyncCache<Object, Object> asyncCache, RedisAsyncCommands asyncCommands,
+                       CompressingRedisSerializer valueSerializer, CacheMetrics metrics, HotKeyDetector hotKeyDetector,
+                       OffHeapCacheTier offHeap, boolean remoteEnabled, boolean versioned, boolean withTtl, byte[] versionKey) {
+    this.cache = cache;
+    this.asyncCache = asyncCache;
+    this.asyncCommands = asyncCommands;
+    this.valueSerializer = valueSerializer;
+    this.metrics = metrics;
+    this.hotKeyDetector = hotKeyDetector;
+    this.offHeap = offHeap;
+    this.remoteEnabled = remoteEnabled;
+    this.versioned = versioned;
+    this.withTtl = withTtl;
+    this.versionKey = versionKey;
+  }
+
+  /**
+   * 异步获取缓存：caffeine 未命中时通过非阻塞的 GET 从 redis 获取，仍未命中时调用 loader 回源并写回两级缓存。
+   * 同一个 key 并发的请求共享 caffeine 中同一个正在加载的 future
+   *
+   * @param key    key
+   * @param loader 异步回源方法，可为 null
+   * @return 缓存的值
+   */
+  @SuppressWarnings("unchecked")
+  <T> CompletableFuture<T> get(Object key, Function<Object, ? extends CompletableFuture<? extends T>> loader) {
+    if (hotKeyDetector != null) {
+      hotKeyDetector.record(key);
+    }
+    CompletableFuture<Object> future = asyncCache.getIfPresent(key);
+    if (future != null) {
+      metrics.recordL1Hits(1);
+    } else if (cache.isRejected(key)) {
+      metrics.recordRejected(1);
+      return CompletableFuture.completedFuture(null);
+    } else {
+      future = asyncCache.get(key, (k, executor) -> load(k, loader));
+    }
+    return future.thenApply(value -> (T) cache.userValueOf(value));
+  }
+
+  private CompletableFuture<Object> load(Object key, Function<Object, ? extends CompletableFuture<?>> loader) {
+    Object offHeapValue = offHeap == null ? null : offHeap.take(key);
+    if (offHeapValue != null) {
+      return CompletableFuture.completedFuture(offHeapValue);
+    }
+    return redisGet(key).thenCompose(value -> {
+      // 由 caffeine 管理的加载：期间收到的缓存更新消息会使正在加载的 future 失效，不会写入旧值
+      if (value != null) {
+        metrics.recordL2Hits(1);
+        cache.addRemoteKey(key, value);
+        return CompletableFuture.completedFuture(value);
+      }
+      metrics.recordMisses(1);
+      if (loader == null) {
+        return CompletableFuture.completedFuture(null);
+      }
+      long start = System.nanoTime();
+      CompletableFuture<?> loading;
+      try {
+        loading = loader.apply(key);
+      } catch (RuntimeException e) {
+        loading = failedFuture(e);
+      }
+      return loading
+          .whenComplete((loaded, e) -> metrics.recordLoad(System.nanoTime() - start, e == null))
+          .thenComposeAsync(loaded -> {
+            if (loaded == null && !cache.isAllowNullValues()) {
+              return CompletableFuture.completedFuture(null);
+            }
+            Object storeValue = cache.storeValueOf(loaded);
+            cache.addValidKey(key, storeValue);
+            return redisSet(key, storeValue).thenApplyAsync(version -> {
+              cache.recordVersion(key, version);
+              cache.push(cache.keyMessage(key, version));
+              return storeValue;
+            }, asyncCommands.getExecutor());
+          }, asyncCommands.getExecutor());
+    });
+  }
+
+  /**
+   * 异步批量获取缓存：caffeine 未命中的 key 通过一次非阻塞的 MGET 从 redis 获取
+   *
+   * @param keys keys
+   * @return key -> value，不包含没有值的 key
+   */
+  <T> CompletableFuture<Map<Object, T>> getAll(Collection<?> keys) {
+    if (hotKeyDetector != null) {
+      keys.forEach(hotKeyDetector::record);
+    }
+    boolean[] loaded = {false};
+    CompletableFuture<Map<Object, Object>> future = asyncCache.getAll(keys, (missing, executor) -> {
+      loaded[0] = true;
+      return multiGet(missing, keys.size());
+    });
+    if (!loaded[0]) {
+      metrics.recordL1Hits(keys.size());
+    }
+    return future.thenApply(values -> {
+      Map<Object, T> result = new LinkedHashMap<>();
+      for (Object key : keys) {
+        Object value = values.get(key);
+        if (value != null) {
+          cache.addResult(result, key, value);
+        }
+      }
+      return result;
+    });
+  }
+
+  private CompletableFuture<Map<Object, Object>> multiGet(Iterable<?> missing, int total) {
+    List<Object> keys = new ArrayList<>();
+    missing.forEach(keys::add);
+    metrics.recordL1Hits(total - keys.size());
+    Map<Object, Object> offHeapValues = new HashMap<>();
+    if (offHeap != null) {
+      for (Iterator<Object> iterator = keys.iterator(); iterator.hasNext(); ) {
+        Object key = iterator.next();
+        Object value = offHeap.take(key);
+        if (value != null) {
+          offHeapValues.put(key, value);
+          iterator.remove();
+        }
+      }
+    }
+    // 没有回源方法，本地 keyFilter 中不存在的 key 作为未命中
+    int unknown = cache.removeRejected(keys).size();
+    if (!remoteEnabled || keys.isEmpty()) {
+      metrics.recordMisses(keys.size() + unknown);
+      return CompletableFuture.completedFuture(offHeapValues);
+    }
+    cache.refreshGenerationIfNeeded();
+    List<byte[]> rawKeys = new ArrayList<>(keys.size());
+    for (Object key : keys) {
+      rawKeys.add(cache.rawKey(key));
+    }
+    long start = System.nanoTime();
+    CompletableFuture<? extends List<?>> future = withTtl ? asyncCommands.mGetWithTtl(rawKeys) : asyncCommands.mGet(rawKeys);
+    return future.thenApplyAsync(results -> {
+      metrics.recordRedis(CacheMetrics.RedisOperation.MGET, System.nanoTime() - start);
+      List<RemoteValue> redisValues = cache.deserializeAll(keys, results);
+      Map<Object, Object> values = new HashMap<>(offHeapValues);
+      int hits = 0;
+      for (int i = 0; i < keys.size(); i++) {
+        RemoteValue remote = redisValues.get(i);
+        if (remote != null) {
+          values.put(keys.get(i), remote.value);
+          hits++;
+        }
+      }
+      metrics.recordL2Hits(hits);
+      metrics.recordMisses(keys.size() - hits + unknown);
+      return values;
+    }, asyncCommands.getExecutor());
+  }
+
+  /**
+   * 异步设置缓存：非阻塞的 SET 完成后通知其他节点，并更新本节点的 caffeine 缓存
+   *
+   * @param key   key
+   * @param value value
+   * @return 完成时两级缓存都已更新
+   */
+  CompletableFuture<Void> put(Object key, Object value) {
+    if (!cache.isAllowNullValues() && value == null) {
+      return evict(key);
+    }
+    Object storeValue = cache.storeValueOf(value);
+    cache.addValidKey(key, storeValue);
+    return redisSet(key, storeValue).thenAcceptAsync(version -> {
+      cache.recordVersion(key, version);
+      cache.push(cache.keyMessage(key, version));
+      cache.invalidateLocalCopies(key);
+      cache.getCaffeineCache().put(key, storeValue);
+    }, asyncCommands.getExecutor());
+  }
+
+  /**
+   * 异步清除缓存：非阻塞的 DEL 完成后通知其他节点，并清除本节点的 caffeine 缓存
+   *
+   * @param key key
+   * @return 完成时两级缓存都已清除
+   */
+  CompletableFuture<Void> evict(Object key) {
+    CompletableFuture<Long> deleted;
+    if (versioned) {
+      long start = System.nanoTime();
+      deleted = asyncCommands.eval(RedisCaffeineCache.VERSIONED_DEL_SCRIPT, 2, cache.rawKey(key), versionKey)
+          .whenComplete((version, e) -> metrics.recordRedis(CacheMetrics.RedisOperation.EVAL, System.nanoTime() - start));
+    } else if (remoteEnabled) {
+      long start = System.nanoTime();
+      deleted = asyncCommands.del(cache.rawKey(key))
+          .whenComplete((count, e) -> metrics.recordRedis(CacheMetrics.RedisOperation.DEL, System.nanoTime() - start))
+          .thenApply(count -> 0L);
+    } else {
+      deleted = CompletableFuture.completedFuture(0L);
+    }
+    return deleted.thenAcceptAsync(version -> {
+      cache.recordVersion(key, version == null ? 0 : version);
+      cache.push(cache.keyMessage(key, version == null ? 0 : version));
+      cache.getCaffeineCache().invalidate(key);
+      cache.invalidateLocalCopies(key);
+      cache.invalidateRefreshLoader(key);
+    }, asyncCommands.getExecutor());
+  }
+
+  private CompletableFuture<Object> redisGet(Object key) {
+    if (!remoteEnabled) {
+      return CompletableFuture.completedFuture(null);
+    }
+    cache.refreshGenerationIfNeeded();
+    long start = System.nanoTime();
+    if (withTtl) {
+      return asyncCommands.getWithTtl(cache.rawKey(key)).thenApplyAsync(results -> {
+        metrics.recordRedis(CacheMetrics.RedisOperation.GET, System.nanoTime() - start);
+        RemoteValue remote = cache.deserializeAll(Collections.singletonList(key), results).get(0);
+        return remote == null ? null : remote.value;
+      }, asyncCommands.getExecutor());
+    }
+    return asyncCommands.get(cache.rawKey(key)).thenApplyAsync(rawValue -> {
+      metrics.recordRedis(CacheMetrics.RedisOperation.GET, System.nanoTime() - start);
+      RemoteValue remote = cache.readValue(rawValue);
+      return remote == null ? null : remote.value;
+    }, asyncCommands.getExecutor());
+  }
+
+  /**
+   * @return 完成时为写入的版本号，没有开启 versioned 时为 0
+   */
+  private CompletableFuture<Long> redisSet(Object key, Object storeValue) {
+    if (!remoteEnabled) {
+      return CompletableFuture.completedFuture(0L);
+    }
+    byte[] rawKey = cache.rawKey(key);
+    byte[] rawValue = valueSerializer.serialize(storeValue);
+    long expire = cache.getExpire();
+    cache.setRemainingTtl(key, expire);
+    String selfWrite = cache.expectSelfWrite(rawKey);
+    long start = System.nanoTime();
+    CompletableFuture<Long> future;
+    try {
+      if (versioned) {
+        future = asyncCommands.eval(RedisCaffeineCache.VERSIONED_SET_SCRIPT, 2, rawKey, versionKey, rawValue,
+                RedisCaffeineCache.expireArg(expire))
+            .whenComplete((version, e) -> metrics.recordRedis(CacheMetrics.RedisOperation.EVAL, System.nanoTime() - start));
+      } else {
+        future = asyncCommands.set(rawKey, rawValue, expire)
+            .whenComplete((result, e) -> metrics.recordRedis(CacheMetrics.RedisOperation.SET, System.nanoTime() - start))
+            .thenApply(result -> 0L);
+      }
+    } catch (RuntimeException e) {
+      cache.cancelSelfWrite(selfWrite);
+      cache.removeRemainingTtl(key);
+      throw e;
+    }
+    return future.whenComplete((version, e) -> {
+      if (e != null) {
+        // 写入失败，不会写入 caffeine
+        cache.cancelSelfWrite(selfWrite);
+        cache.removeRemainingTtl(key);
+      }
+    });
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(e);
+    return future;
+  }
+}
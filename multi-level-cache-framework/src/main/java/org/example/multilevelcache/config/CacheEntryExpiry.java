@@ -0,0 +1,103 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * caffeine 按条目的过期策略：本地缓存的过期时间不超过 redis 中该 key 的剩余过期时间
+ * <p>
+ * 写入 caffeine 之前通过 setRemainingTtl 记录 redis 的剩余过期时间（换算为过期时刻），caffeine 创建或更新条目时取出；
+ * 没有记录时使用 min(caffeine 过期时间, redis 过期时间)。读取不会延长过期时间，
+ * 因此 expireAfterAccess 在该策略下等同于写入后过期。
+ * <p>
+ * 记录之后没有写入 caffeine 的 key（例如 redis 写入失败）由调用方移除；遗漏的记录在 PENDING_TIMEOUT 后自动清除，
+ * 清除前被该 key 之后的写入取出时，过期时刻不晚于 redis 中的 key，只会让本地缓存提前过期。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CacheEntryExpiry implements Expiry<Object, Object> {
+  /**
+   * 记录的剩余过期时间最长保留的时间，单位秒，超过后视为不会再写入 caffeine
+   */
+  static final long PENDING_TIMEOUT = 60;
+
+  /**
+   * 没有剩余过期时间时使用的过期时间，单位纳秒
+   */
+  private final long defaultNanos;
+  /**
+   * 即将写入 caffeine 的 key 在 redis 中的过期时刻，System.nanoTime() 的时间
+   */
+  private final Cache<Object, Long> deadlines = Caffeine.newBuilder()
+      .expireAfterWrite(PENDING_TIMEOUT, TimeUnit.SECONDS)
+      .executor(Runnable::run)
+      .build();
+
+  /**
+   * @param localExpire  caffeine 的过期时间，单位毫秒，小于等于 0 时不过期
+   * @param remoteExpire redis 的过期时间，单位毫秒，小于等于 0 时不过期
+   */
+  public CacheEntryExpiry(long localExpire, long remoteExpire) {
+    long expire = Long.MAX_VALUE;
+    if (localExpire > 0) {
+      expire = localExpire;
+    }
+    if (remoteExpire > 0) {
+      expire = Math.min(expire, remoteExpire);
+    }
+    this.defaultNanos = expire == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(expire);
+  }
+
+  /**
+   * 记录 key 在 redis 中的剩余过期时间，需要在写入 caffeine 之前调用
+   *
+   * @param key key
+   * @param ttl 剩余过期时间，单位毫秒，小于等于 0 时（没有过期时间）忽略
+   */
+  public void setRemainingTtl(Object key, long ttl) {
+    if (ttl > 0) {
+      deadlines.put(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl));
+    }
+  }
+
+  /**
+   * 移除记录的剩余过期时间，用于记录之后没有写入 caffeine 的 key
+   *
+   * @param key key
+   */
+  public void removeRemainingTtl(Object key) {
+    deadlines.invalidate(key);
+  }
+
+  /**
+   * @return 已记录、尚未写入 caffeine 的 key 数量
+   */
+  long pendingCount() {
+    deadlines.cleanUp();
+    return deadlines.estimatedSize();
+  }
+
+  @Override
+  public long expireAfterCreate(Object key, Object value, long currentTime) {
+    return expireNanos(key);
+  }
+
+  @Override
+  public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+    return expireNanos(key);
+  }
+
+  @Override
+  public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+    return currentDuration;
+  }
+
+  private long expireNanos(Object key) {
+    Long deadline = deadlines.asMap().remove(key);
+    return deadline == null ? defaultNanos : Math.min(defaultNanos, Math.max(deadline - System.nanoTime(), 0));
+  }
+}
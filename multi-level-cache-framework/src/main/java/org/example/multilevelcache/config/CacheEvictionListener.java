@@ -0,0 +1,29 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+
+/**
+ * caffeine 的 RemovalListener，开启堆外缓存时将因容量淘汰的 value 降级到堆外
+ * <p>
+ * 与 RedisCaffeineCacheLoader 一样先于 RedisCaffeineCache 创建，之后通过 setCache 绑定缓存。
+ * 过期、被清除或被覆盖的 value 不降级。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CacheEvictionListener implements RemovalListener<Object, Object> {
+  private volatile RedisCaffeineCache cache;
+
+  public void setCache(RedisCaffeineCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public void onRemoval(Object key, Object value, RemovalCause cause) {
+    RedisCaffeineCache redisCaffeineCache = this.cache;
+    if (cause == RemovalCause.SIZE && redisCaffeineCache != null && key != null && value != null) {
+      redisCaffeineCache.demote(key, value);
+    }
+  }
+}
@@ -34,7 +34,29 @@ public class CacheMessageListener implements MessageListener {
       LOGGER.warn("cache message parse error,skip clear local cache");
       return;
     }
+    onCacheMessage(cacheMessage);
+  }
+
+  /**
+   * 处理其他节点发出的缓存更新消息，清除本地缓存；redis stream 的监听也使用该方法
+   *
+   * @param cacheMessage 缓存消息
+   */
+  public void onCacheMessage(CacheMessage cacheMessage) {
+    if (CacheMessage.INSTANCE_ID.equals(cacheMessage.getOrigin())) {
+      // 本节点发出的消息，本地缓存在发送前已经更新，无需清除
+      return;
+    }
+    if (cacheMessage.getGeneration() != null) {
+      // 先切换 generation，再清除本地缓存，避免重新加载旧命名空间的数据
+      redisCaffeineCacheManager.updateGeneration(cacheMessage.getCacheName(), cacheMessage.getGeneration());
+    }
+    if (cacheMessage.getKeys() != null) {
+      LOGGER.debug("receive a redis topic message, clear local cache, the cacheName is {}, the keys size is {}", cacheMessage.getCacheName(), cacheMessage.getKeys().size());
+      redisCaffeineCacheManager.clearLocal(cacheMessage.getCacheName(), cacheMessage.getKeys(), cacheMessage.getVersions());
+      return;
+    }
     LOGGER.debug("receive a redis topic message, clear local cache, the cacheName is {}, the key is {}", cacheMessage.getCacheName(), cacheMessage.getKey());
-    redisCaffeineCacheManager.clearLocal(cacheMessage.getCacheName(), cacheMessage.getKey());
+    redisCaffeineCacheManager.clearLocal(cacheMessage.getCacheName(), cacheMessage.getKey(), cacheMessage.getVersion());
   }
 }
@@ -0,0 +1,324 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.serializer.CompressingRedisSerializer;
+import org.example.multilevelcache.snapshot.CacheSnapshotFile;
+import org.example.multilevelcache.warmup.WarmUpProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存的预加载：写入快照、恢复快照和启动预热。
+ * <p>
+ * 预加载期间（beginPreload 到 endPreload）记录本节点清除的 key，预加载读取的旧值不会覆盖之后的清除
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+final class CachePreloader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CachePreloader.class);
+  /**
+   * 恢复快照时校验 redis 中的值：存在时返回 {value 的 SHA-1, PTTL}，ARGV[1] 为 1 时先去掉 value 的版本号
+   */
+  private static final byte[] DIGEST_SCRIPT = ("local value = redis.call('GET', KEYS[1]) "
+      + "if not value then return false end "
+      + "if ARGV[1] == '1' and string.byte(value, 1) == 194 then "
+      + "local separator = string.find(value, ':', 2, true) "
+      + "if separator then value = string.sub(value, separator + 1) end end "
+      + "return {redis.sha1hex(value), redis.call('PTTL', KEYS[1])}").getBytes(StandardCharsets.UTF_8);
+  /**
+   * 快照中 key 的序列化，key 需要实现 Serializable
+   */
+  private static final RedisSerializer<Object> SNAPSHOT_KEY_SERIALIZER = new JdkSerializationRedisSerializer();
+  /**
+   * 剩余时间超过该值的 caffeine 条目视为不过期，单位毫秒
+   */
+  private static final long MAX_SNAPSHOT_TTL = TimeUnit.DAYS.toMillis(3650);
+
+  private final RedisCaffeineCache cache;
+  private final Cache<Object, Object> caffeineCache;
+  private final RedisTemplate<Object, Object> redisTemplate;
+  private final RedisSerializer<Object> keySerializer;
+  private final CompressingRedisSerializer valueSerializer;
+  private final CacheKeyEncoder keyEncoder;
+  private final CacheMetrics metrics;
+  /**
+   * 是否使用 redis 缓存，关闭时不写入快照，也不预加载
+   */
+  private final boolean remoteEnabled;
+  private final boolean versioned;
+  /**
+   * 预加载期间本节点清除的 key，不在预加载期间时为 null
+   */
+  private volatile Set<Object> invalidations;
+  /**
+   * 预加载期间是否清除过所有本地缓存
+   */
+  private volatile boolean cleared;
+  /**
+   * 正在进行的预加载个数
+   */
+  private int preloads;
+
+  CachePreloader(RedisCaffeineCache cache, RedisTemplate<Object, Object> redisTemplate, RedisSerializer<Object> keySerializer,
+                 CompressingRedisSerializer valueSerializer, CacheKeyEncoder keyEncoder, CacheMetrics metrics,
+                 boolean remoteEnabled, boolean versioned) {
+    this.cache = cache;
+    this.caffeineCache = cache.getCaffeineCache();
+    this.redisTemplate = redisTemplate;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.keyEncoder = keyEncoder;
+    this.metrics = metrics;
+    this.remoteEnabled = remoteEnabled;
+    this.versioned = versioned;
+  }
+
+  /**
+   * 本地缓存中最热的缓存，用于写入快照；关闭 redis 缓存时为空，重启后无法确认这些值是否被其他节点修改过
+   *
+   * @param limit 最多返回的个数
+   * @return 从热到冷的 entry，跳过无法序列化的 key
+   */
+  List<CacheSnapshotFile.Entry> snapshot(int limit) {
+    if (!remoteEnabled || limit <= 0) {
+      return Collections.emptyList();
+    }
+    Policy<Object, Object> policy = caffeineCache.policy();
+    Map<Object, Object> hottest = policy.eviction().isPresent() ? policy.eviction().get().hottest(limit) : caffeineCache.asMap();
+    long now = System.currentTimeMillis();
+    List<CacheSnapshotFile.Entry> entries = new ArrayList<>(Math.min(limit, hottest.size()));
+    for (Map.Entry<Object, Object> entry : hottest.entrySet()) {
+      if (entries.size() >= limit) {
+        break;
+      }
+      try {
+        entries.add(new CacheSnapshotFile.Entry(SNAPSHOT_KEY_SERIALIZER.serialize(entry.getKey()),
+            valueSerializer.serialize(entry.getValue()), localExpireAt(policy, entry.getKey(), now)));
+      } catch (SerializationException e) {
+        LOGGER.debug("skip the key can not be serialized in snapshot, the key is {}", entry.getKey());
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * @return caffeine 中 key 的过期时间戳，单位毫秒，0 不过期（expireAfterAccess 也视为不过期）
+   */
+  private static long localExpireAt(Policy<Object, Object> policy, Object key, long now) {
+    OptionalLong ttl = OptionalLong.empty();
+    if (policy.expireVariably().isPresent()) {
+      ttl = policy.expireVariably().get().getExpiresAfter(key, TimeUnit.MILLISECONDS);
+    } else if (policy.expireAfterWrite().isPresent()) {
+      Policy.Expiration<Object, Object> expiration = policy.expireAfterWrite().get();
+      OptionalLong age = expiration.ageOf(key, TimeUnit.MILLISECONDS);
+      if (age.isPresent()) {
+        ttl = OptionalLong.of(expiration.getExpiresAfter(TimeUnit.MILLISECONDS) - age.getAsLong());
+      }
+    }
+    return ttl.isPresent() && ttl.getAsLong() < MAX_SNAPSHOT_TTL ? now + Math.max(ttl.getAsLong(), 1) : 0;
+  }
+
+  synchronized void begin() {
+    if (preloads++ == 0) {
+      this.cleared = false;
+      this.invalidations = ConcurrentHashMap.newKeySet();
+    }
+  }
+
+  synchronized void end() {
+    if (preloads > 0 && --preloads == 0) {
+      this.invalidations = null;
+    }
+  }
+
+  /**
+   * key 在本节点被更新或清除，正在预加载时不再写入预加载读取的旧值
+   *
+   * @param key key
+   */
+  void invalidated(Object key) {
+    Set<Object> keys = invalidations;
+    if (keys != null) {
+      keys.add(key);
+    }
+  }
+
+  /**
+   * 本节点清除了所有本地缓存，正在进行的预加载不再写入
+   */
+  void cleared() {
+    if (invalidations != null) {
+      cleared = true;
+    }
+  }
+
+  /**
+   * 恢复一批快照：通过一次 pipeline 在 redis 中计算每个 key 当前值的 SHA-1，与快照一致时写入 caffeine；
+   * 本地已经过期、redis 中被修改或删除的丢弃，caffeine 中已有的 key 不覆盖
+   *
+   * @param entries 快照中的 entry
+   * @return 写入 caffeine 的个数
+   */
+  int restore(List<CacheSnapshotFile.Entry> entries) {
+    if (!remoteEnabled || entries.isEmpty()) {
+      return 0;
+    }
+    long now = System.currentTimeMillis();
+    List<Object> keys = new ArrayList<>(entries.size());
+    List<CacheSnapshotFile.Entry> candidates = new ArrayList<>(entries.size());
+    for (CacheSnapshotFile.Entry entry : entries) {
+      if (entry.getExpireAt() > 0 && entry.getExpireAt() <= now) {
+        continue;
+      }
+      Object key;
+      try {
+        key = SNAPSHOT_KEY_SERIALIZER.deserialize(entry.getKey());
+      } catch (SerializationException e) {
+        continue;
+      }
+      if (key != null && !caffeineCache.asMap().containsKey(key)) {
+        keys.add(key);
+        candidates.add(entry);
+      }
+    }
+    if (keys.isEmpty()) {
+      return 0;
+    }
+    cache.refreshGenerationIfNeeded();
+    List<byte[]> rawKeys = new ArrayList<>(keys.size());
+    for (Object key : keys) {
+      rawKeys.add(cache.rawKey(key));
+    }
+    byte[] versionedArg = (versioned ? "1" : "0").getBytes(StandardCharsets.UTF_8);
+    long start = System.nanoTime();
+    List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      for (byte[] rawKey : rawKeys) {
+        connection.eval(DIGEST_SCRIPT, ReturnType.MULTI, 1, rawKey, versionedArg);
+      }
+      return null;
+    }, RedisSerializer.byteArray());
+    metrics.recordRedis(CacheMetrics.RedisOperation.PIPELINE, System.nanoTime() - start);
+    int restored = 0;
+    for (int i = 0; i < keys.size(); i++) {
+      Object result = i < results.size() ? results.get(i) : null;
+      if (!(result instanceof List) || ((List<?>) result).size() < 2) {
+        continue;
+      }
+      List<?> digest = (List<?>) result;
+      CacheSnapshotFile.Entry entry = candidates.get(i);
+      if (!(digest.get(0) instanceof byte[])
+          || !sha1Hex(entry.getValue()).equals(new String((byte[]) digest.get(0), StandardCharsets.UTF_8))) {
+        continue;
+      }
+      Object value = valueSerializer.deserialize(entry.getValue());
+      long ttl = entry.getExpireAt() > 0 ? entry.getExpireAt() - now : 0;
+      if (digest.get(1) instanceof Long && (Long) digest.get(1) > 0) {
+        ttl = ttl > 0 ? Math.min(ttl, (Long) digest.get(1)) : (Long) digest.get(1);
+      }
+      if (value != null && preloadLocal(keys.get(i), value, ttl)) {
+        restored++;
+      }
+    }
+    return restored;
+  }
+
+  /**
+   * 启动预热：通过一次 MGET 获取 SCAN 到的 redis key，写入 caffeine 中不存在的 key。
+   * redis key 只能还原为 String 类型的 key，自定义 CacheKeyEncoder 时不预热
+   *
+   * @param redisKeys SCAN 匹配 getKeyPrefix() 的 redis key
+   * @param progress  预热进度
+   */
+  void warmUp(List<byte[]> redisKeys, WarmUpProgress progress) {
+    progress.recordScanned(redisKeys.size());
+    if (!remoteEnabled || keyEncoder != CacheKeyEncoder.TO_STRING) {
+      return;
+    }
+    String prefix = cache.getKeyPrefix();
+    List<Object> keys = new ArrayList<>(redisKeys.size());
+    for (byte[] redisKey : redisKeys) {
+      String name = String.valueOf(keySerializer.deserialize(redisKey));
+      if (name.startsWith(prefix) && !caffeineCache.asMap().containsKey(name.substring(prefix.length()))) {
+        keys.add(name.substring(prefix.length()));
+      }
+    }
+    if (keys.isEmpty()) {
+      return;
+    }
+    List<RemoteValue> values = cache.multiGet(keys);
+    int loaded = 0;
+    long bytes = 0;
+    for (int i = 0; i < keys.size(); i++) {
+      RemoteValue remote = values.get(i);
+      if (remote == null) {
+        continue;
+      }
+      if (cache.isStale(keys.get(i), remote.version)) {
+        cache.removeRemainingTtl(keys.get(i));
+        continue;
+      }
+      // 剩余过期时间已经在 multiGet 中记录
+      if (preloadLocal(keys.get(i), remote.value, 0)) {
+        loaded++;
+        bytes += remote.raw == null ? 0 : remote.raw.length;
+      }
+    }
+    progress.recordLoaded(loaded, bytes);
+  }
+
+  /**
+   * 写入预加载读取的值，caffeine 中已有的 key 不覆盖；写入之后再检查预加载期间是否清除过该 key，与清除的先后顺序无关
+   *
+   * @param ttl redis 中的剩余过期时间，单位毫秒，小于等于 0 时忽略
+   * @return 是否写入
+   */
+  private boolean preloadLocal(Object key, Object value, long ttl) {
+    cache.setRemainingTtl(key, ttl);
+    if (caffeineCache.asMap().putIfAbsent(key, value) != null) {
+      cache.removeRemainingTtl(key);
+      return false;
+    }
+    Set<Object> keys = invalidations;
+    if (cleared || keys != null && keys.contains(key)) {
+      caffeineCache.asMap().remove(key, value);
+      return false;
+    }
+    return true;
+  }
+
+  private static String sha1Hex(byte[] bytes) {
+    byte[] hash;
+    try {
+      hash = MessageDigest.getInstance("SHA-1").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    StringBuilder hex = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,33 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * caffeine 的权重计算：集合、数组、字符串按元素个数计算，其他对象为 1
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CacheValueWeigher implements Weigher<Object, Object> {
+
+  @Override
+  public int weigh(Object key, Object value) {
+    int weight;
+    if (value instanceof Collection) {
+      weight = ((Collection<?>) value).size();
+    } else if (value instanceof Map) {
+      weight = ((Map<?, ?>) value).size();
+    } else if (value instanceof CharSequence) {
+      weight = ((CharSequence) value).length();
+    } else if (value != null && value.getClass().isArray()) {
+      weight = Array.getLength(value);
+    } else {
+      weight = 1;
+    }
+    return Math.max(weight, 1);
+  }
+}
@@ -0,0 +1,164 @@
+package org.example.multilevelcache.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 通过 SCAN + UNLINK 分批清理 redis 中的缓存 key，替代阻塞整个实例的 KEYS 命令
+ * <p>
+ * 每批之间暂停 interval 毫秒，限制对 redis 的压力；后台清理在单独的线程中串行执行
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class KeyspaceSweeper implements DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(KeyspaceSweeper.class);
+
+  private final RedisTemplate<Object, Object> redisTemplate;
+  /**
+   * 每批 SCAN/UNLINK 的 key 数量
+   */
+  private final int batchSize;
+  /**
+   * 后台清理时每批之间的暂停时间，单位毫秒
+   */
+  private final long interval;
+  private final ExecutorService executor;
+
+  public KeyspaceSweeper(RedisTemplate<Object, Object> redisTemplate, int batchSize, long interval) {
+    this.redisTemplate = redisTemplate;
+    this.batchSize = batchSize;
+    this.interval = interval;
+    this.executor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "cache-keyspace-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * 匹配以 prefix 开头的 key 的 SCAN MATCH 表达式，prefix 中的 glob 特殊字符（* ? [ ] \）会被转义，
+   * 避免 cacheName 或前缀中的特殊字符匹配到其他缓存的 key
+   *
+   * @param prefix key 前缀
+   * @return SCAN MATCH 的表达式
+   */
+  public static String prefixPattern(String prefix) {
+    StringBuilder pattern = new StringBuilder(prefix.length() + 8);
+    for (int i = 0; i < prefix.length(); i++) {
+      char c = prefix.charAt(i);
+      if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+        pattern.append('\\');
+      }
+      pattern.append(c);
+    }
+    return pattern.append('*').toString();
+  }
+
+  /**
+   * 在后台线程中限速清理匹配的 key
+   *
+   * @param pattern SCAN MATCH 的表达式
+   * @param filter  返回 true 的 key 才会被删除
+   */
+  public void sweepAsync(String pattern, Predicate<byte[]> filter) {
+    executor.execute(() -> {
+      try {
+        long count = sweep(pattern, filter, interval);
+        LOGGER.debug("sweep redis keys finished, the pattern is {}, the count is {}", pattern, count);
+      } catch (Exception e) {
+        LOGGER.warn("sweep redis keys error, the pattern is {}", pattern, e);
+      }
+    });
+  }
+
+  /**
+   * 在当前线程中限速清理匹配的 key，返回时匹配的 key 已经删除
+   *
+   * @param pattern SCAN MATCH 的表达式
+   * @param filter  返回 true 的 key 才会被删除
+   * @return 删除的 key 数量
+   */
+  public long sweep(String pattern, Predicate<byte[]> filter) {
+    return sweep(pattern, filter, interval);
+  }
+
+  private long sweep(String pattern, Predicate<byte[]> filter, long pause) {
+    ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+    Long count = redisTemplate.execute((RedisCallback<Long>) connection -> {
+      long deleted = 0;
+      List<byte[]> batch = new ArrayList<>(batchSize);
+      Cursor<byte[]> cursor = connection.scan(options);
+      try {
+        while (cursor.hasNext()) {
+          byte[] key = cursor.next();
+          if (filter.test(key)) {
+            batch.add(key);
+          }
+          if (batch.size() >= batchSize) {
+            deleted += unlink(connection, batch);
+            if (!pause(pause)) {
+              return deleted;
+            }
+          }
+        }
+        deleted += unlink(connection, batch);
+      } finally {
+        closeCursor(cursor);
+      }
+      return deleted;
+    });
+    return count == null ? 0 : count;
+  }
+
+  private static long unlink(RedisConnection connection, List<byte[]> keys) {
+    if (keys.isEmpty()) {
+      return 0;
+    }
+    Long count = connection.unlink(keys.toArray(new byte[0][]));
+    keys.clear();
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * 暂停，线程被中断时返回 false
+   */
+  private static boolean pause(long millis) {
+    if (millis <= 0) {
+      return true;
+    }
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static void closeCursor(Cursor<byte[]> cursor) {
+    try {
+      cursor.close();
+    } catch (Exception e) {
+      LOGGER.warn("close redis scan cursor error", e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
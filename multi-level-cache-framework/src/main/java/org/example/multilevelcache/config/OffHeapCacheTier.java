@@ -0,0 +1,161 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.offheap.OffHeapStore;
+import org.example.multilevelcache.serializer.CompressingRedisSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * caffeine 与 redis 之间的堆外缓存层：redis 命中的值先放入堆外，再次访问时提升到 caffeine；
+ * caffeine 因容量淘汰的值降级到堆外。堆外缓存中存储序列化（去掉版本号）后的 value
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+final class OffHeapCacheTier {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapCacheTier.class);
+
+  private final RedisCaffeineCache cache;
+  private final OffHeapStore store;
+  private final CompressingRedisSerializer valueSerializer;
+  private final CacheMetrics metrics;
+
+  OffHeapCacheTier(RedisCaffeineCache cache, OffHeapStore store, CompressingRedisSerializer valueSerializer,
+                   CacheMetrics metrics) {
+    this.cache = cache;
+    this.store = store;
+    this.valueSerializer = valueSerializer;
+    this.metrics = metrics;
+  }
+
+  OffHeapStore getStore() {
+    return store;
+  }
+
+  /**
+   * redis 命中的值放入堆外缓存，比已知版本更旧的值直接丢弃
+   *
+   * @param key    key
+   * @param remote redis 中的值
+   * @return 是否已经处理，false 时需要放入 caffeine
+   */
+  boolean land(Object key, RemoteValue remote) {
+    if (remote.raw == null) {
+      return false;
+    }
+    if (!cache.isStale(key, remote.version) && !store.put(key, remote.raw, remote.version)) {
+      // 超过 slabSize 或堆外内存不足
+      return false;
+    }
+    // 没有写入 caffeine，移除读取 redis 时记录的剩余过期时间
+    cache.removeRemainingTtl(key);
+    return true;
+  }
+
+  /**
+   * 从堆外缓存获取，命中时提升到 caffeine 并从堆外移除
+   *
+   * @param key key
+   * @return 缓存存储的值，未命中时为 null
+   */
+  Object promote(Object key) {
+    RemoteValue offHeapValue = read(key);
+    if (offHeapValue == null) {
+      return null;
+    }
+    cache.putLocal(key, offHeapValue);
+    return offHeapValue.value;
+  }
+
+  /**
+   * 批量从堆外缓存获取，命中的 key 提升到 caffeine，并从 keys 中移除
+   *
+   * @param keys   caffeine 未命中的 key
+   * @param result 命中的结果
+   * @return 命中的 key 个数
+   */
+  <T> int promoteAll(List<Object> keys, Map<Object, T> result) {
+    int hits = 0;
+    for (Iterator<Object> iterator = keys.iterator(); iterator.hasNext(); ) {
+      Object key = iterator.next();
+      Object value = promote(key);
+      if (value != null) {
+        cache.addResult(result, key, value);
+        iterator.remove();
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * 由 caffeine 管理的异步加载从堆外缓存获取：命中时从堆外移除，由 caffeine 写入本地缓存
+   *
+   * @param key key
+   * @return 缓存存储的值，未命中或比已知版本更旧时为 null
+   */
+  Object take(Object key) {
+    RemoteValue offHeapValue = read(key);
+    if (offHeapValue == null || cache.isStale(key, offHeapValue.version)) {
+      return null;
+    }
+    store.remove(key);
+    metrics.recordOffHeapHits(1);
+    return offHeapValue.value;
+  }
+
+  private RemoteValue read(Object key) {
+    OffHeapStore.Entry entry = store.get(key);
+    if (entry == null) {
+      return null;
+    }
+    Object value = valueSerializer.deserialize(entry.getValue());
+    return value == null ? null : new RemoteValue(value, entry.getVersion(), null);
+  }
+
+  /**
+   * caffeine 因容量淘汰的值降级到堆外缓存，caffeine 中已经重新写入该 key 时不降级
+   *
+   * @param key        key
+   * @param storeValue 缓存存储的值
+   */
+  void demote(Object key, Object storeValue) {
+    if (cache.getCaffeineCache().asMap().containsKey(key)) {
+      return;
+    }
+    try {
+      // caffeine 中的值不会比已知的最新版本更旧：更新的版本到达时会先清除 caffeine
+      store.put(key, valueSerializer.serialize(storeValue), cache.latestVersion(key));
+    } catch (RuntimeException e) {
+      LOGGER.warn("demote cache to off-heap error, the key is {}", key, e);
+    }
+  }
+
+  /**
+   * 提升到 caffeine 后移除堆外的副本
+   */
+  void remove(Object key) {
+    store.remove(key);
+  }
+
+  /**
+   * key 在本节点被更新或清除，移除堆外缓存中的值
+   */
+  void invalidate(Object key) {
+    store.invalidate(key);
+  }
+
+  void invalidateAll() {
+    store.invalidateAll();
+  }
+
+  Collection<Object> keys() {
+    return store.keys();
+  }
+}
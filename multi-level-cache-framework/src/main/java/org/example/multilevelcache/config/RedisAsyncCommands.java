@@ -0,0 +1,280 @@
+package org.example.multilevelcache.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * redis 的异步命令：连接工厂支持响应式连接（lettuce）时使用非阻塞的命令，
+ * 否则在 executor 中执行阻塞的命令
+ * <p>
+ * 返回的 future 可能在 lettuce 的 IO 线程中完成，后续的操作需要切换到 executor 执行，不能阻塞 IO 线程
+ * <p>
+ * 由 RedisCaffeineCacheManager 创建的所有缓存共享：共享一个响应式连接和一个有界的线程池，关闭时一起释放。
+ * 线程池的队列已满时拒绝任务，对应的 future 以 RejectedExecutionException 异常完成，不在调用线程（可能是 IO 线程）中执行。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisAsyncCommands implements DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedisAsyncCommands.class);
+
+  private final RedisTemplate<Object, Object> redisTemplate;
+  private final ReactiveRedisConnectionFactory reactiveConnectionFactory;
+  private final Executor executor;
+  /**
+   * 自己创建的线程池，关闭时一起关闭；使用外部的 executor 时为 null
+   */
+  private final ExecutorService ownedExecutor;
+  private volatile ReactiveRedisConnection reactiveConnection;
+  private volatile boolean closed;
+
+  /**
+   * @param redisTemplate redisTemplate
+   * @param threads       执行阻塞命令和后续操作的线程数
+   * @param queueCapacity 线程池的队列长度
+   */
+  public RedisAsyncCommands(RedisTemplate<Object, Object> redisTemplate, int threads, int queueCapacity) {
+    this(redisTemplate, newExecutor(threads, queueCapacity), true);
+  }
+
+  /**
+   * @param redisTemplate redisTemplate
+   * @param executor      执行阻塞命令和后续操作的线程池，由调用方关闭
+   */
+  public RedisAsyncCommands(RedisTemplate<Object, Object> redisTemplate, Executor executor) {
+    this(redisTemplate, executor, false);
+  }
+
+  private RedisAsyncCommands(RedisTemplate<Object, Object> redisTemplate, Executor executor, boolean owned) {
+    this.redisTemplate = redisTemplate;
+    RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+    this.reactiveConnectionFactory = connectionFactory instanceof ReactiveRedisConnectionFactory
+        ? (ReactiveRedisConnectionFactory) connectionFactory : null;
+    this.executor = executor;
+    this.ownedExecutor = owned ? (ExecutorService) executor : null;
+  }
+
+  private static ExecutorService newExecutor(int threads, int queueCapacity) {
+    int poolSize = Math.max(1, threads);
+    AtomicInteger threadIndex = new AtomicInteger();
+    return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+      Thread thread = new Thread(r, "cache-redis-async-" + threadIndex.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public CompletableFuture<byte[]> get(byte[] key) {
+    if (reactiveConnectionFactory == null) {
+      return blocking(connection -> connection.get(key));
+    }
+    return connection().stringCommands().get(ByteBuffer.wrap(key))
+        .map(ByteUtils::getBytes)
+        .toFuture();
+  }
+
+  /**
+   * 在一次往返中获取值和剩余过期时间（GET + PTTL）
+   *
+   * @return [值, 剩余过期时间（单位毫秒，没有过期时间时为 -1）]，值不存在时为 null
+   */
+  public CompletableFuture<List<Object>> getWithTtl(byte[] key) {
+    if (reactiveConnectionFactory == null) {
+      return supplyAsync(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        connection.get(key);
+        connection.pTtl(key);
+        return null;
+      }, RedisSerializer.byteArray()));
+    }
+    // 同一个连接上的两个命令连续发送，不等待第一个命令的响应
+    CompletableFuture<byte[]> value = get(key);
+    CompletableFuture<Long> ttl = connection().keyCommands().pTtl(ByteBuffer.wrap(key)).toFuture();
+    return value.thenCombine(ttl, (rawValue, pTtl) -> Arrays.asList(rawValue, pTtl));
+  }
+
+  /**
+   * 在一次往返中批量获取值和剩余过期时间（MGET + PTTL）
+   *
+   * @return 与 keys 顺序一致、值和剩余过期时间交替排列的结果
+   */
+  public CompletableFuture<List<Object>> mGetWithTtl(List<byte[]> keys) {
+    if (reactiveConnectionFactory == null) {
+      return supplyAsync(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        for (byte[] key : keys) {
+          connection.get(key);
+          connection.pTtl(key);
+        }
+        return null;
+      }, RedisSerializer.byteArray()));
+    }
+    CompletableFuture<List<byte[]>> values = mGet(keys);
+    List<CompletableFuture<Long>> ttls = new ArrayList<>(keys.size());
+    for (byte[] key : keys) {
+      ttls.add(connection().keyCommands().pTtl(ByteBuffer.wrap(key)).toFuture());
+    }
+    return CompletableFuture.allOf(ttls.toArray(new CompletableFuture[0])).thenCombine(values, (ignored, rawValues) -> {
+      List<Object> result = new ArrayList<>(keys.size() * 2);
+      for (int i = 0; i < keys.size(); i++) {
+        result.add(rawValues == null ? null : rawValues.get(i));
+        result.add(ttls.get(i).join());
+      }
+      return result;
+    });
+  }
+
+  /**
+   * @return 与 keys 顺序一致的值，不存在的为 null
+   */
+  public CompletableFuture<List<byte[]>> mGet(List<byte[]> keys) {
+    if (reactiveConnectionFactory == null) {
+      return blocking(connection -> connection.mGet(keys.toArray(new byte[0][])));
+    }
+    List<ByteBuffer> buffers = new ArrayList<>(keys.size());
+    for (byte[] key : keys) {
+      buffers.add(ByteBuffer.wrap(key));
+    }
+    return connection().stringCommands().mGet(buffers)
+        .map(values -> {
+          List<byte[]> result = new ArrayList<>(values.size());
+          for (ByteBuffer value : values) {
+            // 不存在的 key 返回的是空的 ByteBuffer
+            result.add(value == null || !value.hasRemaining() ? null : ByteUtils.getBytes(value));
+          }
+          return result;
+        })
+        .toFuture();
+  }
+
+  /**
+   * @param expire 过期时间，单位毫秒，小于等于 0 时不过期
+   */
+  public CompletableFuture<Boolean> set(byte[] key, byte[] value, long expire) {
+    if (reactiveConnectionFactory == null) {
+      return blocking(connection -> {
+        if (expire > 0) {
+          return connection.pSetEx(key, expire, value);
+        }
+        return connection.set(key, value);
+      });
+    }
+    Expiration expiration = expire > 0 ? Expiration.milliseconds(expire) : Expiration.persistent();
+    return connection().stringCommands()
+        .set(ByteBuffer.wrap(key), ByteBuffer.wrap(value), expiration, RedisStringCommands.SetOption.upsert())
+        .toFuture();
+  }
+
+  public CompletableFuture<Long> del(byte[] key) {
+    if (reactiveConnectionFactory == null) {
+      return blocking(connection -> connection.del(key));
+    }
+    return connection().keyCommands().del(ByteBuffer.wrap(key)).toFuture();
+  }
+
+  /**
+   * 执行返回整数的 lua 脚本
+   *
+   * @param script      脚本
+   * @param numKeys     key 的个数
+   * @param keysAndArgs keys 和参数
+   */
+  public CompletableFuture<Long> eval(byte[] script, int numKeys, byte[]... keysAndArgs) {
+    if (reactiveConnectionFactory == null) {
+      return blocking(connection -> connection.eval(script, ReturnType.INTEGER, numKeys, keysAndArgs));
+    }
+    ByteBuffer[] buffers = new ByteBuffer[keysAndArgs.length];
+    for (int i = 0; i < keysAndArgs.length; i++) {
+      buffers[i] = ByteBuffer.wrap(keysAndArgs[i]);
+    }
+    return connection().scriptingCommands()
+        .<Long>eval(ByteBuffer.wrap(script), ReturnType.INTEGER, numKeys, buffers)
+        .next()
+        .toFuture();
+  }
+
+  private <T> CompletableFuture<T> blocking(RedisCallback<T> callback) {
+    return supplyAsync(() -> redisTemplate.execute(callback));
+  }
+
+  /**
+   * 线程池拒绝时返回异常完成的 future，不向调用方抛出异常
+   */
+  private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+    try {
+      return CompletableFuture.supplyAsync(supplier, executor);
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+  }
+
+  /**
+   * 所有缓存共享一个响应式连接，底层共享同一个 lettuce 原生连接，创建后一直复用，关闭时释放
+   */
+  private ReactiveRedisConnection connection() {
+    ReactiveRedisConnection connection = reactiveConnection;
+    if (connection == null) {
+      synchronized (this) {
+        if (closed) {
+          throw new IllegalStateException("redis async commands is closed");
+        }
+        connection = reactiveConnection;
+        if (connection == null) {
+          connection = reactiveConnectionFactory.getReactiveConnection();
+          reactiveConnection = connection;
+        }
+      }
+    }
+    return connection;
+  }
+
+  @Override
+  public void destroy() {
+    ReactiveRedisConnection connection;
+    synchronized (this) {
+      closed = true;
+      connection = reactiveConnection;
+      reactiveConnection = null;
+    }
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (RuntimeException e) {
+        LOGGER.warn("close reactive redis connection error", e);
+      }
+    }
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+}
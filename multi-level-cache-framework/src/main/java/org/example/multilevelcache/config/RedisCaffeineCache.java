@@ -1,21 +1,53 @@
 package org.example.multilevelcache.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.apache.commons.lang3.StringUtils;
 import org.example.multilevelcache.config.porperties.MultiCacheProperties;
 import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.filter.CacheKeyFilter;
+import org.example.multilevelcache.hotkey.HotKeyDetector;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.CacheMetrics;
 import org.example.multilevelcache.manager.DistributedLock;
+import org.example.multilevelcache.offheap.OffHeapStore;
+import org.example.multilevelcache.serializer.CompressingRedisSerializer;
+import org.example.multilevelcache.serializer.CompressionStatistics;
+import org.example.multilevelcache.serializer.VersionedValues;
+import org.example.multilevelcache.snapshot.CacheSnapshotFile;
+import org.example.multilevelcache.warmup.WarmUpProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
-import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Redis、Caffeine 两级缓存实现类
@@ -25,6 +57,43 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class RedisCaffeineCache extends AbstractValueAdaptingCache {
   private static final Logger LOGGER = LoggerFactory.getLogger(RedisCaffeineCache.class);
+  /**
+   * 未配置 caffeine 最大缓存个数时，最多记录的回源方法个数
+   */
+  private static final long DEFAULT_REFRESH_LOADERS_SIZE = 10000;
+  /**
+   * 被 keyFilter 判断为一定不存在的 key 的查询结果
+   */
+  private static final Object REJECTED = new Object();
+  /**
+   * key 不存在时设置 value（ARGV[2] 为过期时间，单位毫秒，0 不过期）并返回 nil，存在时返回原始值
+   */
+  private static final byte[] PUT_IF_ABSENT_SCRIPT = ("local prev = redis.call('GET', KEYS[1]) "
+      + "if prev then return prev end "
+      + "if tonumber(ARGV[2]) > 0 then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+      + "else redis.call('SET', KEYS[1], ARGV[1]) end "
+      + "return false").getBytes(StandardCharsets.UTF_8);
+  /**
+   * 开启 versioned 时写入 value：KEYS[2] 为版本号计数器，value 前拼接 0xC2 + 版本号 + ':'，返回版本号
+   */
+  private static final String VERSIONED_SET = "local version = redis.call('INCR', KEYS[2]) "
+      + "local value = string.char(194) .. string.format('%d', version) .. ':' .. ARGV[1] "
+      + "if tonumber(ARGV[2]) > 0 then redis.call('SET', KEYS[1], value, 'PX', ARGV[2]) "
+      + "else redis.call('SET', KEYS[1], value) end ";
+  static final byte[] VERSIONED_SET_SCRIPT = (VERSIONED_SET + "return version").getBytes(StandardCharsets.UTF_8);
+  /**
+   * 开启 versioned 时删除 value，返回新的版本号
+   */
+  static final byte[] VERSIONED_DEL_SCRIPT = ("redis.call('DEL', KEYS[1]) "
+      + "return redis.call('INCR', KEYS[2])").getBytes(StandardCharsets.UTF_8);
+  /**
+   * 开启 versioned 时的 putIfAbsent：存在时返回 {原始值, 0}，不存在时写入并返回 {nil, 版本号}
+   */
+  private static final byte[] VERSIONED_PUT_IF_ABSENT_SCRIPT = ("local prev = redis.call('GET', KEYS[1]) "
+      + "if prev then return {prev, 0} end "
+      + VERSIONED_SET
+      + "return {false, version}").getBytes(StandardCharsets.UTF_8);
+  private static final long DEFAULT_VERSIONS_SIZE = 100000;
   /**
    * CacheName
    */
@@ -33,211 +102,1608 @@ public class RedisCaffeineCache extends AbstractValueAdaptingCache {
    * redis
    */
   private RedisTemplate<Object, Object> redisTemplate;
+  /**
+   * redis key 序列化
+   */
+  private RedisSerializer<Object> keySerializer;
+  /**
+   * redis value 序列化，超过阈值的 value 进行压缩
+   */
+  private CompressingRedisSerializer valueSerializer;
   /**
    * caffeine cache
    */
   private Cache<Object, Object> caffeineCache;
+  /**
+   * 异步接口（getAsync、putAsync 等）
+   */
+  private AsyncCacheOperations asyncOperations;
   /**
    * 缓存前缀
    */
   private String cachePrefix;
   /**
-   * 全局过期时间，单位毫秒，默认不过期
+   * redis key 的命名空间：name:cachePrefix
+   */
+  private String namespace;
+  /**
+   * redis key 的前缀：name:cachePrefix:，开启 generationNamespace 时为 name:cachePrefix:g{generation}:
+   */
+  private volatile String keyPrefix;
+  /**
+   * keyPrefix 序列化后的字节，访问 redis 时与 key 的编码结果拼接，不再每次拼接字符串
+   */
+  private volatile byte[] rawKeyPrefix;
+  /**
+   * 缓存 key 编码为 redis key 的方式
+   */
+  private CacheKeyEncoder keyEncoder;
+  /**
+   * 是否使用 generation 命名空间，clear 时只递增 generation
+   */
+  private boolean generationNamespace;
+  /**
+   * 当前 generation
+   */
+  private volatile long generation;
+  /**
+   * 存储 generation 的 redis key
+   */
+  private byte[] generationKey;
+  /**
+   * generation 的 redis key（未序列化），用于识别 CLIENT TRACKING 的通知
    */
-  private long defaultExpiration = 0;
+  private String generationKeyName;
   /**
-   * 每个cacheName的过期时间，单位毫秒，优先级比defaultExpiration高
+   * 重新从 redis 读取 generation 的间隔，单位毫秒
    */
-  private Map<String, Long> expires;
+  private long generationRefreshInterval;
   /**
-   * 缓存更新时通知其他节点的topic名称
+   * 上次从 redis 读取 generation 的时间
    */
-  private String topic;
+  private final AtomicLong generationCheckTime = new AtomicLong();
+  /**
+   * 是否在 clear 后后台清理旧 generation 的 key
+   */
+  private boolean sweepStaleGenerations;
+  /**
+   * redis key 清理
+   */
+  private KeyspaceSweeper sweeper;
+  /**
+   * redis 过期时间，单位毫秒，0 不过期
+   */
+  private long expiration;
+  /**
+   * redis 过期时间的随机抖动比例
+   */
+  private double expirationJitter;
+  /**
+   * caffeine 按条目的过期策略，不为 null 时读取 redis 的同时获取剩余过期时间，本地缓存不超过 redis 的剩余过期时间
+   */
+  private CacheEntryExpiry expiry;
+  /**
+   * 是否使用 redis 缓存，关闭时只使用 caffeine
+   */
+  private boolean remoteEnabled;
+  /**
+   * 缓存更新时通知其他节点的消息发布
+   */
+  private CacheMessagePublisher publisher;
   /**
    * 分布式锁
    */
   private DistributedLock lock;
+  /**
+   * 回源时是否使用分布式锁，保证集群内只有一个节点加载同一个 key
+   */
+  private boolean distributedLoad;
+  /**
+   * putIfAbsent 是否通过 lua 脚本原子执行，关闭时使用分布式锁
+   */
+  private boolean atomicPutIfAbsent;
+  /**
+   * 是否为 redis 中的 value 记录版本号
+   */
+  private boolean versioned;
+  /**
+   * 版本号计数器的 redis key
+   */
+  private byte[] versionKey;
+  /**
+   * 开启 versioned 时，每个 key 已知的最新版本号（本节点写入或收到的缓存更新消息）
+   */
+  private Cache<Object, Long> versions;
+  /**
+   * 获取分布式锁的最长等待时间，单位毫秒
+   */
+  private long lockWaitTime;
+  /**
+   * 分布式锁的过期时间，单位毫秒
+   */
+  private long lockLeaseTime;
+  /**
+   * 正在回源的 key，同一节点内并发请求共享同一个加载结果
+   */
+  private final ConcurrentMap<Object, CompletableFuture<Object>> loadingFutures = new ConcurrentHashMap<>();
+  /**
+   * 开启 refreshFromLoader 时，记录每个 key 最近一次的回源方法，redis 中没有缓存时用于 caffeine 的异步刷新
+   */
+  private Cache<Object, Callable<?>> refreshLoaders;
+  /**
+   * 指标记录
+   */
+  private CacheMetrics metrics;
+  /**
+   * 热点 key 检测，未开启时为 null
+   */
+  private HotKeyDetector hotKeyDetector;
+  /**
+   * key 的存在性过滤器，未开启时为 null
+   */
+  private CacheKeyFilter keyFilter;
+  /**
+   * 是否出现过非 String 类型的 key；CLIENT TRACKING 的通知只有 redis key，这类 key 需要遍历 caffeine 按 toString 匹配
+   */
+  private volatile boolean nonStringKeys;
+  /**
+   * caffeine 与 redis 之间的堆外缓存，未开启时为 null
+   */
+  private OffHeapCacheTier offHeap;
+  /**
+   * 开启 CLIENT TRACKING 时记录本节点的写入，不清除自己写入后收到通知的本地缓存；未开启时为 null
+   */
+  private volatile RedisTrackingInvalidationListener trackingListener;
+  /**
+   * 快照和启动预热
+   */
+  private CachePreloader preloader;
 
   protected RedisCaffeineCache(boolean allowNullValues) {
     super(allowNullValues);
   }
 
+  @SuppressWarnings("unchecked")
   public RedisCaffeineCache(String name, RedisTemplate<Object, Object> redisTemplate,
-                            Cache<Object, Object> caffeineCache,
+                            AsyncCache<Object, Object> caffeineCache,
                             MultiCacheProperties properties,
-                            DistributedLock lock) {
-    super(properties.isCacheNullValues());
+                            DistributedLock lock,
+                            CacheMessagePublisher publisher,
+                            KeyspaceSweeper sweeper,
+                            CacheMetrics metrics,
+                            HotKeyDetector hotKeyDetector,
+                            CacheKeyFilter keyFilter,
+                            CacheEntryExpiry expiry,
+                            CacheKeyEncoder keyEncoder,
+                            RedisAsyncCommands asyncCommands) {
+    super(properties.isCacheNullValues(name));
     this.name = name;
     this.redisTemplate = redisTemplate;
-    this.caffeineCache = caffeineCache;
+    this.keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+    this.caffeineCache = caffeineCache.synchronous();
     this.cachePrefix = properties.getCachePrefix();
-    this.defaultExpiration = properties.getRedis().getDefaultExpiration();
-    this.expires = properties.getRedis().getExpires();
-    this.topic = properties.getRedis().getTopic();
+    this.expiration = properties.getExpiration(name);
+    this.expirationJitter = properties.getExpirationJitter(name);
+    this.expiry = expiry;
+    this.remoteEnabled = properties.isRemoteEnabled(name);
+    if (!remoteEnabled && !properties.isLocalEnabled(name)) {
+      throw new IllegalStateException("cache " + name + " must enable at least one of local and remote");
+    }
+    this.valueSerializer = new CompressingRedisSerializer((RedisSerializer<Object>) redisTemplate.getValueSerializer(),
+        properties.getCompressThreshold(name));
     this.lock = lock;
+    this.publisher = publisher;
+    this.distributedLoad = properties.isDistributedLoad();
+    this.atomicPutIfAbsent = properties.getRedis().isAtomicPutIfAbsent();
+    this.lockWaitTime = properties.getLock().getWaitTime();
+    this.lockLeaseTime = properties.getLock().getLeaseTime();
+    this.sweeper = sweeper;
+    this.metrics = metrics;
+    metrics.bindCompressionStatistics(valueSerializer.getStatistics());
+    this.hotKeyDetector = hotKeyDetector;
+    this.keyFilter = keyFilter;
+    this.keyEncoder = keyEncoder;
+    this.namespace = StringUtils.isNotBlank(cachePrefix) ? String.join(":", this.name, this.cachePrefix) : this.name;
+    setKeyPrefix(this.namespace + ":");
+    this.versioned = remoteEnabled && properties.getRedis().isVersioned();
+    if (versioned) {
+      long maximumSize = properties.getCaffeine(name).getMaximumSize();
+      this.versionKey = keySerializer.serialize(this.namespace + "#version");
+      this.versions = Caffeine.newBuilder()
+          .maximumSize(Math.max(maximumSize, DEFAULT_VERSIONS_SIZE))
+          .expireAfterWrite(properties.getRedis().getVersionRetention(), TimeUnit.MILLISECONDS)
+          .build();
+    }
+    this.generationNamespace = remoteEnabled && properties.getRedis().isGenerationNamespace();
+    if (generationNamespace) {
+      this.generationKeyName = this.namespace + "#generation";
+      this.generationKey = keySerializer.serialize(generationKeyName);
+      this.generationRefreshInterval = properties.getRedis().getGenerationRefreshInterval();
+      this.sweepStaleGenerations = properties.getRedis().isSweepStaleGenerations();
+      this.generationCheckTime.set(System.currentTimeMillis());
+      this.generation = readGeneration();
+      setKeyPrefix(this.namespace + ":g" + this.generation + ":");
+    }
+    MultiCacheProperties.Caffeine caffeine = properties.getCaffeine(name);
+    if (caffeine.getRefreshAfterWrite() > 0 && caffeine.isRefreshFromLoader()) {
+      this.refreshLoaders = Caffeine.newBuilder()
+          .maximumSize(caffeine.getMaximumSize() > 0 ? caffeine.getMaximumSize() : DEFAULT_REFRESH_LOADERS_SIZE)
+          .build();
+    }
+    if (properties.isOffHeapEnabled(name)) {
+      this.offHeap = new OffHeapCacheTier(this, new OffHeapStore(properties.getOffHeapCapacity(name),
+          properties.getOffHeap().getSlabSize(), offHeapExpire(caffeine)), valueSerializer, metrics);
+    }
+    this.preloader = new CachePreloader(this, redisTemplate, keySerializer, valueSerializer, keyEncoder, metrics,
+        remoteEnabled, versioned);
+    this.asyncOperations = new AsyncCacheOperations(this, caffeineCache, asyncCommands, valueSerializer, metrics,
+        hotKeyDetector, offHeap, remoteEnabled, versioned, expiry != null, versionKey);
+  }
+
+  /**
+   * 堆外缓存的写入后过期时间：caffeine 的过期时间，不超过 redis 的过期时间
+   *
+   * @param caffeine caffeine 配置
+   * @return 过期时间，单位毫秒，0 不过期
+   */
+  private long offHeapExpire(MultiCacheProperties.Caffeine caffeine) {
+    long expire = caffeine.getExpireAfterWrite() > 0 ? caffeine.getExpireAfterWrite() : caffeine.getExpireAfterAccess();
+    if (remoteEnabled && expiration > 0) {
+      expire = expire > 0 ? Math.min(expire, expiration) : expiration;
+    }
+    return Math.max(expire, 0);
   }
 
   public Cache<Object, Object> getCaffeineCache() {
     return caffeineCache;
   }
 
+  /**
+   * @return caffeine 按条目的过期策略，没有开启时为 null
+   */
+  CacheEntryExpiry getExpiry() {
+    return expiry;
+  }
+
+  /**
+   * value 压缩的统计
+   */
+  public CompressionStatistics getCompressionStatistics() {
+    return valueSerializer.getStatistics();
+  }
+
+  /**
+   * 堆外缓存，未开启时为 null
+   */
+  public OffHeapStore getOffHeapStore() {
+    return offHeap == null ? null : offHeap.getStore();
+  }
+
+  /**
+   * 当前的热点 key，按访问频率从高到低排序，未开启热点 key 检测时为空
+   */
+  public List<HotKeyDetector.HotKey> getHotKeys() {
+    return hotKeyDetector == null ? Collections.emptyList() : hotKeyDetector.getHotKeys();
+  }
+
+  /**
+   * 添加存在的 key。开启共享的 keyFilter（redis）时，没有添加过的 key 在访问 redis 和回源之前直接返回 null；
+   * 本地的 keyFilter 没有添加过的 key 只跳过 redis，仍然会回源。put、回源和从 redis 加载时会自动添加，
+   * 应用启动时需要通过该方法添加已有的 key
+   *
+   * @param keys keys
+   */
+  public void addValidKeys(Collection<?> keys) {
+    if (keyFilter != null) {
+      keyFilter.putAll(keys);
+    }
+  }
+
+  /**
+   * key 是否可能存在，未开启 keyFilter 时总是返回 true
+   *
+   * @param key key
+   * @return false 时 key 没有添加到 keyFilter 中
+   */
+  public boolean mightContain(Object key) {
+    return keyFilter == null || keyFilter.mightContain(key);
+  }
+
+  /**
+   * key 是否被共享的 keyFilter 拒绝。本地的 keyFilter 只通过缓存更新消息同步，消息丢失、合并发送退化为清除全部、
+   * 节点重启后都会缺少存在的 key，不能拒绝，否则这些 key 永远不会回源
+   *
+   * @param key key
+   * @return true 时 key 一定不存在
+   */
+  boolean isRejected(Object key) {
+    return keyFilter != null && keyFilter.isShared() && !keyFilter.mightContain(key);
+  }
+
   @Override
   protected Object lookup(Object key) {
+    Object value = lookupOrReject(key);
+    return value == REJECTED ? null : value;
+  }
+
+  /**
+   * 先从 caffeine 中获取，未命中时从堆外缓存获取，再经过 keyFilter，最后从 redis 中获取；
+   * 本地 keyFilter 中不存在的 key 不访问 redis，作为未命中返回
+   *
+   * @param key key
+   * @return 缓存存储的值，共享的 keyFilter 判断为一定不存在的 key 返回 REJECTED
+   */
+  private Object lookupOrReject(Object key) {
+    if (hotKeyDetector != null) {
+      hotKeyDetector.record(key);
+    }
     // 1. 先从 caffeine 中获取缓存，获取不到则从 redis 中获取缓存
-    Object cacheKey = getKey(key);
     Object value = caffeineCache.getIfPresent(key);
     if (value != null) {
-      LOGGER.debug("get cache from caffeine, the key is : {}", cacheKey);
+      LOGGER.debug("get cache from caffeine, the key is : {}", key);
+      metrics.recordL1Hits(1);
+      return value;
+    }
+    value = lookupOffHeap(key);
+    if (value != null) {
+      LOGGER.debug("get cache from off-heap and put in caffeine, the key is : {}", key);
+      metrics.recordOffHeapHits(1);
       return value;
     }
+    if (!mightContain(key)) {
+      if (keyFilter.isShared()) {
+        LOGGER.debug("reject the key not in key filter, the key is : {}", key);
+        metrics.recordRejected(1);
+        return REJECTED;
+      }
+      LOGGER.debug("skip redis for the key not in local key filter, the key is : {}", key);
+      metrics.recordMisses(1);
+      return null;
+    }
+    value = lookupRemote(key);
+    if (value != null) {
+      metrics.recordL2Hits(1);
+    } else {
+      metrics.recordMisses(1);
+    }
+    return value;
+  }
 
-    value = redisTemplate.opsForValue().get(cacheKey);
+  private Object lookupRemote(Object key) {
+    RemoteValue remote = loadRemote(key);
 
     // 2. 获取 redis 缓存后，将 缓存数据 put 一下
-    if (value != null) {
-      LOGGER.debug("get cache from redis and put in caffeine, the key is : {}", cacheKey);
-      caffeineCache.put(key, value);
+    if (remote == null) {
+      return null;
     }
-    return value;
+    if (landOffHeap(key, remote)) {
+      LOGGER.debug("get cache from redis and put in off-heap, the key is : {}", key);
+      return remote.value;
+    }
+    LOGGER.debug("get cache from redis and put in caffeine, the key is : {}", key);
+    putLocal(key, remote);
+    return remote.value;
   }
 
-  @Override
-  public String getName() {
-    return this.name;
+  /**
+   * 开启堆外缓存时，redis 命中的值先放入堆外缓存，再次访问时才提升到 caffeine
+   *
+   * @return 是否已经处理，false 时需要放入 caffeine
+   */
+  private boolean landOffHeap(Object key, RemoteValue remote) {
+    return offHeap != null && offHeap.land(key, remote);
   }
 
-  @Override
-  public Object getNativeCache() {
-    return this;
+  /**
+   * 从堆外缓存获取，命中时提升到 caffeine 并从堆外移除
+   *
+   * @return 缓存存储的值，未命中时为 null
+   */
+  private Object lookupOffHeap(Object key) {
+    return offHeap == null ? null : offHeap.promote(key);
   }
 
-  @SuppressWarnings("unchecked")
-  @Override
-  public <T> T get(Object key, Callable<T> valueLoader) {
-    Object value = lookup(key);
-    if (value != null) {
-      return (T) value;
+  /**
+   * 批量从堆外缓存获取，命中的 key 提升到 caffeine，并从 keys 中移除
+   *
+   * @return 命中的 key 个数
+   */
+  private <T> int lookupOffHeap(List<Object> keys, Map<Object, T> result) {
+    return offHeap == null ? 0 : offHeap.promoteAll(keys, result);
+  }
+
+  /**
+   * caffeine 因容量淘汰的值降级到堆外缓存
+   *
+   * @param key        key
+   * @param storeValue 缓存存储的值
+   */
+  void demote(Object key, Object storeValue) {
+    if (offHeap != null) {
+      offHeap.demote(key, storeValue);
     }
+  }
 
-    ReentrantLock lock = new ReentrantLock();
-    try {
-      lock.lock();
-      value = lookup(key);
-      if (value != null) {
-        return (T) value;
-      }
-      value = valueLoader.call();
-      Object storeValue = toStoreValue(valueLoader.call());
-      put(key, storeValue);
-      return (T) value;
-    } catch (Exception e) {
-      try {
-        // 将异常转换成 cache 的异常
-        Class<?> c = Class.forName("org.springframework.cache.Cache$ValueRetrievalException");
-        Constructor<?> constructor = c.getConstructor(Object.class, Callable.class, Throwable.class);
-        throw (RuntimeException) constructor.newInstance(key, valueLoader, e.getCause());
-      } catch (Exception e1) {
-        throw new IllegalStateException(e1);
+  /**
+   * key 在本节点被更新或清除：移除堆外缓存中的值，正在预加载时不再写入预加载读取的旧值
+   *
+   * @param key key
+   */
+  void invalidateLocalCopies(Object key) {
+    if (offHeap != null) {
+      offHeap.invalidate(key);
+    }
+    preloader.invalidated(key);
+  }
+
+  private void invalidateLocalCopies(Collection<?> keys) {
+    for (Object key : keys) {
+      if (key != null) {
+        invalidateLocalCopies(key);
       }
-    } finally {
-      lock.unlock();
     }
   }
 
-  @Override
-  public void put(Object key, Object value) {
-    if (!super.isAllowNullValues() && value == null) {
-      // 1. 若 value == null 且 缓存中不允许null值，则清除后直接返回，不进行 put null
-      this.evict(key);
-      return;
+  private void clearLocalCopies() {
+    if (offHeap != null) {
+      offHeap.invalidateAll();
     }
-    // 2. 根据过期时间，设置 redis 缓存
-    long expire = getExpire();
-    if (expire > 0) {
-      redisTemplate.opsForValue().set(getKey(key), toStoreValue(value), expire, TimeUnit.MILLISECONDS);
+    preloader.cleared();
+  }
+
+  /**
+   * 将从 redis（或堆外缓存）读取的值放入 caffeine，并移除堆外缓存中的副本；开启 versioned 时，
+   * 与收到的缓存更新消息在同一个 key 上串行执行，不写入比已知版本更旧的值
+   *
+   * @param key    key
+   * @param remote redis 中的值
+   */
+  void putLocal(Object key, RemoteValue remote) {
+    if (!versioned) {
+      caffeineCache.put(key, remote.value);
     } else {
-      redisTemplate.opsForValue().set(getKey(key), toStoreValue(value));
+      caffeineCache.asMap().compute(key, (k, current) -> isStale(k, remote.version) ? current : remote.value);
+      // 旧版本没有写入时 caffeine 不会取出记录的剩余过期时间
+      removeRemainingTtl(key);
+    }
+    if (offHeap != null) {
+      offHeap.remove(key);
     }
-
-    // 3. 发送 CacheMessage 事件，用于清除其他节点的 Caffeine 缓存
-    push(new CacheMessage(this.name, key));
-    // 4. 设置本节点的 caffeine 缓存
-    caffeineCache.put(key, value);
   }
 
-  @Override
-  public void evict(Object key) {
-    // 1. 先清除 redis 中缓存数据（防止短时间内，又存在请求将 redis 缓存加载到 caffeine）
-    redisTemplate.delete(getKey(key));
-    // 2. 发送 CacheMessage 事件，用于清除其他节点的 Caffeine 缓存
-    push(new CacheMessage(this.name, key));
-    // 3. 清除本节点的 caffeine 缓存
-    caffeineCache.invalidate(key);
+  /**
+   * 记录 key 已知的最新版本号
+   *
+   * @param key     key
+   * @param version 版本号，小于等于 0 时忽略
+   */
+  void recordVersion(Object key, long version) {
+    if (versioned && version > 0) {
+      versions.asMap().merge(key, version, Math::max);
+    }
   }
 
-  @Override
-  public void clear() {
-    // 先清除redis中缓存数据，然后清除caffeine中的缓存，避免短时间内如果先清除caffeine缓存后其他请求会再从redis里加载到caffeine中
-    Set<Object> keys = redisTemplate.keys(this.name.concat(":"));
-    for (Object key : keys) {
-      redisTemplate.delete(key);
+  /**
+   * 是否比 key 已知的最新版本更旧，没有开启 versioned 时总是返回 false
+   */
+  boolean isStale(Object key, long version) {
+    if (!versioned) {
+      return false;
     }
-    push(new CacheMessage(this.name, null));
-    caffeineCache.invalidateAll();
+    Long latest = versions.getIfPresent(key);
+    return latest != null && version < latest;
   }
 
   /**
-   * 缓存中 key 对应的 value 如果为null，则设置缓存值
+   * 是否比 key 已知的最新版本更新，没有开启 versioned 时总是返回 false
    */
-  @Override
-  public ValueWrapper putIfAbsent(Object key, Object value) {
-    Object cacheKey = getKey(key);
-    Object prevValue;
-    // 分布式锁
-    String lockName = cacheKey.toString();
-    lock.acquire(lockName);
-    // 1. 获取原始值
-    prevValue = redisTemplate.opsForValue().get(cacheKey);
-    if (prevValue == null) {
-      // 2. 原始值为 null 的情况下，设置到 缓存中
-      put(key, value);
-    }
-    // 释放分布式锁
-    lock.release(lockName);
-    return toValueWrapper(prevValue);
+  private boolean isNewerVersion(Object key, long version) {
+    return versioned && version > latestVersion(key);
   }
 
   /**
-   * 对 缓存key 进行处理，需要加上 缓存名称、缓存前缀
-   *
-   * @param key key
-   * @return this.name:cachePrefix:key
+   * @return key 已知的最新版本号，没有开启 versioned 或没有记录时为 0
    */
-  private Object getKey(Object key) {
-    if (StringUtils.isNotBlank(cachePrefix)) {
-      return String.join(":", this.name, this.cachePrefix, key.toString());
+  long latestVersion(Object key) {
+    Long version = versioned ? versions.getIfPresent(key) : null;
+    return version == null ? 0 : version;
+  }
+
+  @Override
+  public String getName() {
+    return this.name;
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return this;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    if (refreshLoaders != null) {
+      refreshLoaders.put(key, valueLoader);
+    }
+    Object value = lookupOrReject(key);
+    if (value == REJECTED) {
+      return null;
+    }
+    if (value != null) {
+      return (T) fromStoreValue(value);
+    }
+
+    // 1. 同一个 key 只允许一个线程回源，其余线程等待同一个加载结果
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CompletableFuture<Object> loading = loadingFutures.putIfAbsent(key, future);
+    if (loading == null) {
+      try {
+        future.complete(load(key, valueLoader));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      } finally {
+        loadingFutures.remove(key, future);
+      }
+      loading = future;
+    }
+    try {
+      return (T) fromStoreValue(loading.join());
+    } catch (CompletionException e) {
+      // 2. 将异常转换成 cache 的异常
+      throw new ValueRetrievalException(key, valueLoader, e.getCause());
     }
-    return String.join(":", this.name, key.toString());
   }
 
   /**
-   * 获取过期时间，和配置文件中 CacheName 进行对比
+   * 回源加载，开启 distributedLoad 时通过分布式锁保证集群内只有一个节点回源
    *
-   * @return 过期时间
+   * @param key         key
+   * @param valueLoader 回源方法
+   * @return 缓存中存储的值
    */
-  private long getExpire() {
-    long expire = defaultExpiration;
-    Long cacheNameExpire = expires.get(this.name);
-    return cacheNameExpire == null ? expire : cacheNameExpire;
+  private Object load(Object key, Callable<?> valueLoader) throws Exception {
+    if (!distributedLoad) {
+      return doLoad(key, valueLoader);
+    }
+    String lockName = lockName(key);
+    if (!tryLock(lockName)) {
+      // 等待超时：持有锁的节点可能很慢或已宕机，不再等待，直接回源
+      LOGGER.warn("acquire load lock timeout, load without lock, the key is {}", key);
+      return doLoad(key, valueLoader);
+    }
+    try {
+      return doLoad(key, valueLoader);
+    } finally {
+      releaseLock(lockName);
+    }
   }
 
   /**
-   * 推送缓存消息更新
+   * 在 lockWaitTime 内获取分布式锁，并记录等待时间
    *
-   * @param message 缓存消息
+   * @param lockName 锁名称
+   * @return 是否获取到锁
    */
-  private void push(CacheMessage message) {
-    redisTemplate.convertAndSend(topic, message);
+  private boolean tryLock(String lockName) {
+    long start = System.nanoTime();
+    boolean acquired = lock.tryAcquire(lockName, lockWaitTime, lockLeaseTime);
+    metrics.recordLock(System.nanoTime() - start, acquired);
+    return acquired;
+  }
+
+  /**
+   * 释放分布式锁，释放失败（例如执行时间超过 leaseTime 锁已过期）只记录日志，不覆盖已经得到的结果或异常
+   *
+   * @param lockName 锁名称
+   */
+  private void releaseLock(String lockName) {
+    try {
+      lock.release(lockName);
+    } catch (RuntimeException e) {
+      LOGGER.warn("release lock failed, the lease may have expired, the lock name is {}", lockName, e);
+    }
+  }
+
+  private Object doLoad(Object key, Callable<?> valueLoader) throws Exception {
+    // 1. 再次检查缓存，等待锁期间其他线程（或其他节点）可能已经加载完成
+    Object value = caffeineCache.getIfPresent(key);
+    if (value == null) {
+      value = lookupOffHeap(key);
+    }
+    if (value == null) {
+      value = lookupRemote(key);
+      addRemoteKey(key, value);
+    }
+    if (value != null) {
+      return value;
+    }
+    // 2. 回源并写入两级缓存
+    value = callLoader(valueLoader);
+    put(key, value);
+    return isAllowNullValues() ? toStoreValue(value) : value;
+  }
+
+  /**
+   * 调用回源方法，并记录回源耗时
+   */
+  private Object callLoader(Callable<?> valueLoader) throws Exception {
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      Object value = valueLoader.call();
+      success = true;
+      return value;
+    } finally {
+      metrics.recordLoad(System.nanoTime() - start, success);
+    }
+  }
+
+  /**
+   * caffeine 未命中时，从 redis 中加载
+   *
+   * @param key key
+   * @return 缓存存储的值，不存在时为 null
+   */
+  Object loadLocal(Object key) {
+    RemoteValue remote = loadRemote(key);
+    return remote == null ? null : remote.value;
+  }
+
+  private RemoteValue loadRemote(Object key) {
+    refreshGenerationIfNeeded();
+    return redisGetWithTtl(key);
+  }
+
+  /**
+   * caffeine 的异步刷新：优先从 redis 中重新加载；redis 中没有缓存且开启了 refreshFromLoader 时，
+   * 调用该 key 最近一次的回源方法，并写回 redis
+   *
+   * @param key key
+   * @return 缓存存储的值，为 null 时 caffeine 会移除该缓存
+   */
+  Object reloadLocal(Object key) throws Exception {
+    RemoteValue remote = loadRemote(key);
+    if (remote != null) {
+      // 刷新期间收到了更新的版本，移除该缓存，下次访问时重新加载
+      if (isStale(key, remote.version)) {
+        removeRemainingTtl(key);
+        return null;
+      }
+      return remote.value;
+    }
+    if (refreshLoaders == null) {
+      return null;
+    }
+    Callable<?> valueLoader = refreshLoaders.getIfPresent(key);
+    if (valueLoader == null) {
+      return null;
+    }
+    if (!distributedLoad) {
+      return refreshFromLoader(key, valueLoader);
+    }
+    String lockName = lockName(key);
+    if (!tryLock(lockName)) {
+      // 其他节点正在刷新，本次刷新返回 null，caffeine 移除该缓存，下次访问时重新加载
+      return null;
+    }
+    try {
+      // 等待锁期间其他节点可能已经刷新完成
+      remote = redisGetWithTtl(key);
+      return remote != null ? remote.value : refreshFromLoader(key, valueLoader);
+    } finally {
+      releaseLock(lockName);
+    }
+  }
+
+  private Object refreshFromLoader(Object key, Callable<?> valueLoader) throws Exception {
+    LOGGER.debug("refresh cache from loader, the key is : {}", key);
+    Object value = callLoader(valueLoader);
+    if (value == null && !isAllowNullValues()) {
+      return null;
+    }
+    // 只写 redis 并通知其他节点，caffeine 由刷新结果更新
+    Object storeValue = toStoreValue(value);
+    addValidKey(key, storeValue);
+    long version = redisSet(key, storeValue);
+    recordVersion(key, version);
+    push(keyMessage(key, version));
+    return storeValue;
+  }
+
+  /**
+   * 批量获取缓存，只返回命中的缓存（缓存的 null 值不返回）
+   *
+   * @param keys keys
+   * @return key -> value
+   */
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    return getAll(keys, null);
+  }
+
+  /**
+   * 批量获取缓存：先从 caffeine 和堆外缓存获取，未命中的 key 通过一次 MGET 从 redis 获取，
+   * 仍未命中的 key 调用一次 bulkLoader 回源，并将回源结果批量写入两级缓存
+   *
+   * @param keys       keys
+   * @param bulkLoader 批量回源方法，入参为未命中的 key，可为 null
+   * @return key -> value，不包含没有值的 key
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Map<Object, T> getAll(Collection<?> keys, Function<Collection<?>, Map<?, T>> bulkLoader) {
+    Map<Object, T> result = new LinkedHashMap<>();
+    if (hotKeyDetector != null) {
+      keys.forEach(hotKeyDetector::record);
+    }
+    // 1. 先从 caffeine 中批量获取
+    Map<Object, Object> caffeineValues = caffeineCache.getAllPresent(keys);
+    List<Object> misses = new ArrayList<>();
+    for (Object key : keys) {
+      Object value = caffeineValues.get(key);
+      if (value == null) {
+        misses.add(key);
+      } else {
+        addResult(result, key, value);
+      }
+    }
+    int offHeapHits = lookupOffHeap(misses, result);
+    List<Object> unknownKeys = removeRejected(misses);
+    if (misses.isEmpty() && (bulkLoader == null || unknownKeys.isEmpty())) {
+      metrics.recordL1Hits(caffeineValues.size());
+      metrics.recordOffHeapHits(offHeapHits);
+      metrics.recordMisses(unknownKeys.size());
+      return result;
+    }
+
+    // 2. caffeine 未命中的 key，一次 MGET 从 redis 中获取，并放入 caffeine；本地 keyFilter 中不存在的 key 直接回源
+    refreshGenerationIfNeeded();
+    List<RemoteValue> redisValues = misses.isEmpty() ? Collections.emptyList() : multiGet(misses);
+    Map<Object, RemoteValue> redisHits = new HashMap<>();
+    List<Object> loadKeys = new ArrayList<>(unknownKeys);
+    for (int i = 0; i < misses.size(); i++) {
+      Object key = misses.get(i);
+      RemoteValue remote = redisValues.get(i);
+      if (remote == null) {
+        loadKeys.add(key);
+      } else {
+        redisHits.put(key, remote);
+        addResult(result, key, remote.value);
+      }
+    }
+    LOGGER.debug("get all cache, caffeine hits: {}, off-heap hits: {}, redis hits: {}, misses: {}",
+        caffeineValues.size(), offHeapHits, redisHits.size(), loadKeys.size());
+    metrics.recordL1Hits(caffeineValues.size());
+    metrics.recordOffHeapHits(offHeapHits);
+    metrics.recordL2Hits(redisHits.size());
+    metrics.recordMisses(loadKeys.size());
+    redisHits.forEach((key, remote) -> {
+      addRemoteKey(key, remote.value);
+      if (!landOffHeap(key, remote)) {
+        putLocal(key, remote);
+      }
+    });
+    if (bulkLoader == null || loadKeys.isEmpty()) {
+      return result;
+    }
+
+    // 3. 两级缓存都未命中的 key，一次性回源，结果批量写回两级缓存
+    long start = System.nanoTime();
+    boolean success = false;
+    Map<?, T> loaded;
+    try {
+      loaded = bulkLoader.apply(loadKeys);
+      success = true;
+    } finally {
+      metrics.recordLoad(System.nanoTime() - start, success);
+    }
+    Map<Object, Object> storeValues = new LinkedHashMap<>();
+    for (Object key : loadKeys) {
+      T value = loaded == null ? null : loaded.get(key);
+      if (value != null) {
+        storeValues.put(key, value);
+        result.put(key, value);
+      } else if (isAllowNullValues()) {
+        storeValues.put(key, NullValue.INSTANCE);
+      }
+    }
+    batchWrite(storeValues, Collections.emptyList());
+    return result;
+  }
+
+  /**
+   * 移除 keyFilter 中不存在的 key：共享的 keyFilter 直接拒绝；本地的 keyFilter 可能缺少存在的 key，
+   * 这些 key 不访问 redis，返回给调用方回源
+   *
+   * @param keys keys，移除 keyFilter 中不存在的 key
+   * @return 本地 keyFilter 中不存在、需要直接回源的 key
+   */
+  List<Object> removeRejected(List<Object> keys) {
+    if (keyFilter == null) {
+      return Collections.emptyList();
+    }
+    List<Object> absent = new ArrayList<>();
+    for (Iterator<Object> iterator = keys.iterator(); iterator.hasNext(); ) {
+      Object key = iterator.next();
+      if (!keyFilter.mightContain(key)) {
+        absent.add(key);
+        iterator.remove();
+      }
+    }
+    if (keyFilter.isShared()) {
+      metrics.recordRejected(absent.size());
+      return Collections.emptyList();
+    }
+    return absent;
+  }
+
+  /**
+   * 将有值的 key 添加到 keyFilter，缓存的空值不添加
+   *
+   * @param key        key
+   * @param storeValue 缓存存储的值
+   */
+  void addValidKey(Object key, Object storeValue) {
+    if (keyFilter != null && storeValue != null && storeValue != NullValue.INSTANCE) {
+      keyFilter.put(key);
+    }
+  }
+
+  /**
+   * redis 中存在的 key 添加到本地 keyFilter：本地 keyFilter 可能缺少其他节点写入的 key，共享的 keyFilter 不需要
+   *
+   * @param key        key
+   * @param storeValue 从 redis 读取的值，可为 null
+   */
+  void addRemoteKey(Object key, Object storeValue) {
+    if (keyFilter != null && !keyFilter.isShared()) {
+      addValidKey(key, storeValue);
+    }
+  }
+
+  /**
+   * toStoreValue，供同一个包中的 AsyncCacheOperations 使用
+   */
+  Object storeValueOf(Object value) {
+    return toStoreValue(value);
+  }
+
+  /**
+   * fromStoreValue，供同一个包中的 AsyncCacheOperations 使用
+   */
+  Object userValueOf(Object storeValue) {
+    return fromStoreValue(storeValue);
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> void addResult(Map<Object, T> result, Object key, Object storeValue) {
+    Object value = fromStoreValue(storeValue);
+    if (value != null) {
+      result.put(key, (T) value);
+    }
+  }
+
+  /**
+   * 一次 MGET 批量获取 redis 缓存
+   *
+   * @param keys keys
+   * @return 与 keys 顺序一致的值，不存在的为 null
+   */
+  List<RemoteValue> multiGet(List<Object> keys) {
+    if (!remoteEnabled) {
+      return Collections.nCopies(keys.size(), null);
+    }
+    byte[][] rawKeys = new byte[keys.size()][];
+    for (int i = 0; i < keys.size(); i++) {
+      rawKeys[i] = rawKey(keys.get(i));
+    }
+    long start = System.nanoTime();
+    if (expiry != null) {
+      // 同时获取剩余过期时间：一次 pipeline 中依次发送每个 key 的 GET、PTTL
+      List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        for (byte[] rawKey : rawKeys) {
+          connection.get(rawKey);
+          connection.pTtl(rawKey);
+        }
+        return null;
+      }, RedisSerializer.byteArray());
+      metrics.recordRedis(CacheMetrics.RedisOperation.MGET, System.nanoTime() - start);
+      return deserializeAll(keys, results);
+    }
+    List<byte[]> rawValues = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.mGet(rawKeys));
+    metrics.recordRedis(CacheMetrics.RedisOperation.MGET, System.nanoTime() - start);
+    return deserializeAll(keys, rawValues);
+  }
+
+  /**
+   * 反序列化批量获取的结果；caffeine 按条目过期时，结果为值和剩余过期时间交替排列，并记录存在的 key 的剩余过期时间
+   *
+   * @param keys    keys
+   * @param results 与 keys 顺序一致的结果，为 null 时所有 key 都不存在
+   * @return 与 keys 顺序一致的值，不存在的为 null
+   */
+  List<RemoteValue> deserializeAll(List<Object> keys, List<?> results) {
+    int step = expiry != null ? 2 : 1;
+    List<RemoteValue> values = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      RemoteValue value = results == null ? null : readValue((byte[]) results.get(i * step));
+      if (value != null && expiry != null) {
+        setRemainingTtl(keys.get(i), results.get(i * step + 1));
+      }
+      values.add(value);
+    }
+    return values;
+  }
+
+  void setRemainingTtl(Object key, Object ttl) {
+    if (expiry != null && ttl instanceof Long) {
+      expiry.setRemainingTtl(key, (Long) ttl);
+    }
+  }
+
+  /**
+   * 移除 setRemainingTtl 记录的剩余过期时间，用于记录之后不会写入 caffeine 的 key
+   */
+  void removeRemainingTtl(Object key) {
+    if (expiry != null) {
+      expiry.removeRemainingTtl(key);
+    }
+  }
+
+  /**
+   * 通过 pipeline 批量写入/删除 redis 缓存，只发送一条 CacheMessage，再批量更新本节点 caffeine
+   *
+   * @param storeValues 需要写入的 key -> 缓存存储的值
+   * @param evictKeys   需要删除的 key
+   */
+  private void batchWrite(Map<Object, Object> storeValues, Collection<?> evictKeys) {
+    if (storeValues.isEmpty() && evictKeys.isEmpty()) {
+      return;
+    }
+    // 1. pipeline 批量设置、删除 redis 缓存，每个 key 的过期时间单独抖动
+    List<Object> results = Collections.emptyList();
+    if (remoteEnabled) {
+      long start = System.nanoTime();
+      List<String> selfWrites = new ArrayList<>(storeValues.size());
+      try {
+        results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+          for (Map.Entry<Object, Object> entry : storeValues.entrySet()) {
+            byte[] rawKey = rawKey(entry.getKey());
+            byte[] rawValue = valueSerializer.serialize(entry.getValue());
+            long expire = getExpire();
+            setRemainingTtl(entry.getKey(), expire);
+            selfWrites.add(expectSelfWrite(rawKey));
+            if (versioned) {
+              connection.eval(VERSIONED_SET_SCRIPT, ReturnType.INTEGER, 2, rawKey, versionKey, rawValue, expireArg(expire));
+            } else if (expire > 0) {
+              connection.pSetEx(rawKey, expire, rawValue);
+            } else {
+              connection.set(rawKey, rawValue);
+            }
+          }
+          for (Object key : evictKeys) {
+            if (versioned) {
+              connection.eval(VERSIONED_DEL_SCRIPT, ReturnType.INTEGER, 2, rawKey(key), versionKey);
+            } else {
+              connection.del(rawKey(key));
+            }
+          }
+          return null;
+        });
+      } catch (RuntimeException e) {
+        selfWrites.forEach(this::cancelSelfWrite);
+        storeValues.keySet().forEach(this::removeRemainingTtl);
+        throw e;
+      }
+      metrics.recordRedis(CacheMetrics.RedisOperation.PIPELINE, System.nanoTime() - start);
+    }
+    // 2. 发送一条包含所有 key 的 CacheMessage 事件，用于清除其他节点的 Caffeine 缓存
+    List<Object> keys = new ArrayList<>(storeValues.size() + evictKeys.size());
+    keys.addAll(storeValues.keySet());
+    keys.addAll(evictKeys);
+    CacheMessage message = new CacheMessage(this.name, null);
+    message.setKeys(keys);
+    if (versioned) {
+      List<Long> keyVersions = new ArrayList<>(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        Object version = i < results.size() ? results.get(i) : null;
+        keyVersions.add(version instanceof Long ? (Long) version : null);
+        recordVersion(keys.get(i), version instanceof Long ? (Long) version : 0);
+      }
+      message.setVersions(keyVersions);
+    }
+    push(message);
+    // 3. 批量更新本节点的 caffeine 缓存
+    invalidateLocalCopies(keys);
+    caffeineCache.invalidateAll(evictKeys);
+    caffeineCache.putAll(storeValues);
+    storeValues.forEach(this::addValidKey);
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    if (!super.isAllowNullValues() && value == null) {
+      // 1. 若 value == null 且 缓存中不允许null值，则清除后直接返回，不进行 put null
+      this.evict(key);
+      return;
+    }
+    // 2. 根据过期时间，设置 redis 缓存
+    Object storeValue = toStoreValue(value);
+    addValidKey(key, storeValue);
+    long version = redisSet(key, storeValue);
+    recordVersion(key, version);
+
+    // 3. 发送 CacheMessage 事件，用于清除其他节点的 Caffeine 缓存
+    push(keyMessage(key, version));
+    // 4. 设置本节点的 caffeine 缓存
+    invalidateLocalCopies(key);
+    caffeineCache.put(key, storeValue);
+  }
+
+  /**
+   * 批量设置缓存，所有 redis 写操作通过 pipeline 执行，只发送一条 CacheMessage
+   *
+   * @param values key -> value
+   */
+  public void putAll(Map<?, ?> values) {
+    Map<Object, Object> storeValues = new LinkedHashMap<>();
+    List<Object> evictKeys = new ArrayList<>();
+    for (Map.Entry<?, ?> entry : values.entrySet()) {
+      if (!super.isAllowNullValues() && entry.getValue() == null) {
+        // 不允许 null 值时，清除对应的缓存
+        evictKeys.add(entry.getKey());
+      } else {
+        storeValues.put(entry.getKey(), toStoreValue(entry.getValue()));
+      }
+    }
+    batchWrite(storeValues, evictKeys);
+  }
+
+  @Override
+  public void evict(Object key) {
+    // 1. 先清除 redis 中缓存数据（防止短时间内，又存在请求将 redis 缓存加载到 caffeine）
+    long version = 0;
+    if (versioned) {
+      byte[] rawKey = rawKey(key);
+      long start = System.nanoTime();
+      Long newVersion = redisTemplate.execute((RedisCallback<Long>) connection ->
+          connection.eval(VERSIONED_DEL_SCRIPT, ReturnType.INTEGER, 2, rawKey, versionKey));
+      metrics.recordRedis(CacheMetrics.RedisOperation.EVAL, System.nanoTime() - start);
+      version = newVersion == null ? 0 : newVersion;
+      recordVersion(key, version);
+    } else if (remoteEnabled) {
+      byte[] rawKey = rawKey(key);
+      long start = System.nanoTime();
+      redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(rawKey));
+      metrics.recordRedis(CacheMetrics.RedisOperation.DEL, System.nanoTime() - start);
+    }
+    // 2. 发送 CacheMessage 事件，用于清除其他节点的 Caffeine 缓存
+    push(keyMessage(key, version));
+    // 3. 清除本节点的 caffeine 缓存
+    caffeineCache.invalidate(key);
+    invalidateLocalCopies(key);
+    if (refreshLoaders != null) {
+      refreshLoaders.invalidate(key);
+    }
+  }
+
+  /**
+   * 批量清除缓存，所有 redis 删除操作通过 pipeline 执行，只发送一条 CacheMessage
+   *
+   * @param keys keys
+   */
+  public void evictAll(Collection<?> keys) {
+    batchWrite(Collections.emptyMap(), keys);
+  }
+
+  /**
+   * 异步获取缓存，不存在时 future 的结果为 null
+   *
+   * @param key key
+   * @return 缓存的值
+   */
+  public <T> CompletableFuture<T> getAsync(Object key) {
+    return getAsync(key, null);
+  }
+
+  /**
+   * 异步获取缓存：caffeine 未命中时通过非阻塞的 GET 从 redis 获取，仍未命中时调用 loader 回源并写回两级缓存。
+   * 同一个 key 并发的请求共享 caffeine 中同一个正在加载的 future
+   *
+   * @param key    key
+   * @param loader 异步回源方法，可为 null
+   * @return 缓存的值
+   */
+  public <T> CompletableFuture<T> getAsync(Object key, Function<Object, ? extends CompletableFuture<? extends T>> loader) {
+    return asyncOperations.get(key, loader);
+  }
+
+  /**
+   * 异步批量获取缓存：caffeine 未命中的 key 通过一次非阻塞的 MGET 从 redis 获取
+   *
+   * @param keys keys
+   * @return key -> value，不包含没有值的 key
+   */
+  public <T> CompletableFuture<Map<Object, T>> getAllAsync(Collection<?> keys) {
+    return asyncOperations.getAll(keys);
+  }
+
+  /**
+   * 异步设置缓存：非阻塞的 SET 完成后通知其他节点，并更新本节点的 caffeine 缓存
+   *
+   * @param key   key
+   * @param value value
+   * @return 完成时两级缓存都已更新
+   */
+  public CompletableFuture<Void> putAsync(Object key, Object value) {
+    return asyncOperations.put(key, value);
+  }
+
+  /**
+   * 异步清除缓存：非阻塞的 DEL 完成后通知其他节点，并清除本节点的 caffeine 缓存
+   *
+   * @param key key
+   * @return 完成时两级缓存都已清除
+   */
+  public CompletableFuture<Void> evictAsync(Object key) {
+    return asyncOperations.evict(key);
+  }
+
+  @Override
+  public void clear() {
+    if (generationNamespace) {
+      // 1. 递增 generation，之后的读写都使用新的命名空间，旧 key 通过过期时间或后台限速清理
+      Long newGeneration = redisTemplate.execute((RedisCallback<Long>) connection -> connection.incr(generationKey));
+      updateGeneration(newGeneration == null ? generation + 1 : newGeneration);
+      // 2. 通知其他节点切换 generation 并清除 caffeine 缓存
+      CacheMessage message = new CacheMessage(this.name, null);
+      message.setGeneration(generation);
+      push(message);
+      caffeineCache.invalidateAll();
+      clearLocalCopies();
+      invalidateRefreshLoaders();
+      if (sweepStaleGenerations) {
+        sweeper.sweepAsync(KeyspaceSweeper.prefixPattern(this.namespace + ":g"), this::isStaleGenerationKey);
+      }
+      return;
+    }
+    // 先清除redis中缓存数据，然后清除caffeine中的缓存，避免短时间内如果先清除caffeine缓存后其他请求会再从redis里加载到caffeine中
+    // 没有开启 generationNamespace 时在当前线程中分批删除，耗时与 key 的数量成正比，每批之间暂停以限制对 redis 的压力
+    if (remoteEnabled) {
+      sweeper.sweep(KeyspaceSweeper.prefixPattern(this.keyPrefix), key -> true);
+    }
+    push(new CacheMessage(this.name, null));
+    caffeineCache.invalidateAll();
+    clearLocalCopies();
+    invalidateRefreshLoaders();
+  }
+
+  private void invalidateRefreshLoaders() {
+    if (refreshLoaders != null) {
+      refreshLoaders.invalidateAll();
+    }
+  }
+
+  void invalidateRefreshLoader(Object key) {
+    if (refreshLoaders != null) {
+      refreshLoaders.invalidate(key);
+    }
+  }
+
+  /**
+   * 缓存中 key 对应的 value 如果为null，则设置缓存值：通过一次 lua 脚本原子地 GET + SET，
+   * 只有实际写入时才通知其他节点并更新本节点的 caffeine
+   */
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    if (!remoteEnabled) {
+      return localPutIfAbsent(key, value);
+    }
+    if (!isAllowNullValues() && value == null) {
+      return toValueWrapper(lookup(key));
+    }
+    if (!atomicPutIfAbsent) {
+      return lockedPutIfAbsent(key, value);
+    }
+    refreshGenerationIfNeeded();
+    Object storeValue = toStoreValue(value);
+    byte[] rawKey = rawKey(key);
+    byte[] rawValue = valueSerializer.serialize(storeValue);
+    long expire = getExpire();
+    byte[] expireArg = expireArg(expire);
+    String selfWrite = expectSelfWrite(rawKey);
+    long start = System.nanoTime();
+    byte[] prevValue;
+    long version = 0;
+    // key 已经序列化为 byte[]，直接通过连接执行脚本，不经过 redisTemplate 的 key 序列化
+    try {
+      if (versioned) {
+        List<Object> result = redisTemplate.execute((RedisCallback<List<Object>>) connection ->
+            connection.eval(VERSIONED_PUT_IF_ABSENT_SCRIPT, ReturnType.MULTI, 2, rawKey, versionKey, rawValue, expireArg));
+        prevValue = result == null || result.isEmpty() || !(result.get(0) instanceof byte[]) ? null : (byte[]) result.get(0);
+        version = result == null || result.size() < 2 || !(result.get(1) instanceof Long) ? 0 : (Long) result.get(1);
+      } else {
+        prevValue = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+            connection.eval(PUT_IF_ABSENT_SCRIPT, ReturnType.VALUE, 1, rawKey, rawValue, expireArg));
+      }
+    } catch (RuntimeException e) {
+      cancelSelfWrite(selfWrite);
+      throw e;
+    }
+    metrics.recordRedis(CacheMetrics.RedisOperation.EVAL, System.nanoTime() - start);
+    if (prevValue != null) {
+      // 没有写入，不会收到通知
+      cancelSelfWrite(selfWrite);
+      return toValueWrapper(readValue(prevValue).value);
+    }
+    addValidKey(key, storeValue);
+    recordVersion(key, version);
+    push(keyMessage(key, version));
+    setRemainingTtl(key, expire);
+    invalidateLocalCopies(key);
+    caffeineCache.put(key, storeValue);
+    return null;
+  }
+
+  /**
+   * 通过分布式锁保证 GET + SET 的原子性
+   */
+  private ValueWrapper lockedPutIfAbsent(Object key, Object value) {
+    String lockName = lockName(key);
+    if (!tryLock(lockName)) {
+      throw new IllegalStateException("acquire lock timeout, the lock name is " + lockName);
+    }
+    try {
+      // 1. 获取原始值
+      Object prevValue = redisGet(key);
+      if (prevValue == null) {
+        // 2. 原始值为 null 的情况下，设置到 缓存中
+        put(key, value);
+      }
+      return toValueWrapper(prevValue);
+    } finally {
+      // 释放分布式锁
+      releaseLock(lockName);
+    }
+  }
+
+  /**
+   * 关闭 redis 缓存时，只在 caffeine 中设置；堆外缓存中的值先提升到 caffeine
+   */
+  private ValueWrapper localPutIfAbsent(Object key, Object value) {
+    Object offHeapValue = lookupOffHeap(key);
+    if (!isAllowNullValues() && value == null) {
+      return toValueWrapper(offHeapValue != null ? offHeapValue : caffeineCache.getIfPresent(key));
+    }
+    Object storeValue = toStoreValue(value);
+    Object prevValue = caffeineCache.asMap().putIfAbsent(key, storeValue);
+    if (prevValue == null) {
+      addValidKey(key, storeValue);
+      push(new CacheMessage(this.name, key));
+    }
+    return toValueWrapper(prevValue);
+  }
+
+  /**
+   * 本地缓存中最热的缓存，用于写入快照；关闭 redis 缓存时为空，重启后无法确认这些值是否被其他节点修改过
+   *
+   * @param limit 最多返回的个数
+   * @return 从热到冷的 entry，跳过无法序列化的 key
+   */
+  public List<CacheSnapshotFile.Entry> snapshot(int limit) {
+    return preloader.snapshot(limit);
+  }
+
+  /**
+   * 开始预加载（恢复快照、启动预热），之后本节点清除的 key 不会再被预加载读取的值写入；可以同时进行多个预加载
+   */
+  public void beginPreload() {
+    preloader.begin();
+  }
+
+  /**
+   * 预加载结束
+   */
+  public void endPreload() {
+    preloader.end();
+  }
+
+  /**
+   * 恢复一批快照：通过一次 pipeline 在 redis 中计算每个 key 当前值的 SHA-1，与快照一致时写入 caffeine；
+   * 本地已经过期、redis 中被修改或删除的丢弃，caffeine 中已有的 key 不覆盖。需要在 beginPreload 和 endPreload 之间调用
+   *
+   * @param entries 快照中的 entry
+   * @return 写入 caffeine 的个数
+   */
+  public int restore(List<CacheSnapshotFile.Entry> entries) {
+    return preloader.restore(entries);
+  }
+
+  /**
+   * 启动预热：通过一次 MGET 获取 SCAN 到的 redis key，写入 caffeine 中不存在的 key。
+   * redis key 只能还原为 String 类型的 key，自定义 CacheKeyEncoder 时不预热
+   *
+   * @param redisKeys SCAN 匹配 getKeyPrefix() 的 redis key
+   * @param progress  预热进度
+   */
+  public void warmUp(List<byte[]> redisKeys, WarmUpProgress progress) {
+    preloader.warmUp(redisKeys, progress);
+  }
+
+  /**
+   * 分布式锁的名称，与 redis key 一一对应：前缀加上 key 的编码。自定义 CacheKeyEncoder 时按 ISO-8859-1 逐字节转换，
+   * 二进制的编码也不会冲突
+   *
+   * @param key key
+   * @return this.name:cachePrefix:key 或 this.name:cachePrefix:g{generation}:key
+   */
+  private String lockName(Object key) {
+    if (keyEncoder == CacheKeyEncoder.TO_STRING) {
+      return keyPrefix.concat(key.toString());
+    }
+    return keyPrefix.concat(new String(keyEncoder.encode(key), StandardCharsets.ISO_8859_1));
+  }
+
+  /**
+   * @return 当前 redis key 的前缀：name:cachePrefix: 或 name:cachePrefix:g{generation}:
+   */
+  public String getKeyPrefix() {
+    return keyPrefix;
+  }
+
+  private void setKeyPrefix(String keyPrefix) {
+    this.rawKeyPrefix = keySerializer.serialize(keyPrefix);
+    this.keyPrefix = keyPrefix;
+  }
+
+  /**
+   * 切换到更新的 generation
+   *
+   * @param newGeneration generation
+   * @return 是否发生了切换
+   */
+  public synchronized boolean updateGeneration(long newGeneration) {
+    if (!generationNamespace || newGeneration <= generation) {
+      return false;
+    }
+    this.generation = newGeneration;
+    setKeyPrefix(this.namespace + ":g" + this.generation + ":");
+    LOGGER.debug("update cache generation, the cacheName is {}, the generation is {}", this.name, this.generation);
+    return true;
+  }
+
+  /**
+   * 定期从 redis 读取 generation，防止错过其他节点的 clear 消息后一直读取旧命名空间
+   */
+  void refreshGenerationIfNeeded() {
+    if (!generationNamespace) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long lastCheckTime = generationCheckTime.get();
+    if (now - lastCheckTime < generationRefreshInterval || !generationCheckTime.compareAndSet(lastCheckTime, now)) {
+      return;
+    }
+    if (updateGeneration(readGeneration())) {
+      caffeineCache.invalidateAll();
+      clearLocalCopies();
+    }
+  }
+
+  private long readGeneration() {
+    byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(generationKey));
+    return value == null ? 0 : Long.parseLong(new String(value, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 是否为旧 generation 的 key
+   */
+  private boolean isStaleGenerationKey(byte[] rawKey) {
+    String key = String.valueOf(keySerializer.deserialize(rawKey));
+    String prefix = this.namespace + ":g";
+    int end = key.indexOf(':', prefix.length());
+    if (!key.startsWith(prefix) || end < 0) {
+      return false;
+    }
+    try {
+      return Long.parseLong(key.substring(prefix.length(), end)) < generation;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * 序列化后的 redis key：预先序列化的前缀 + key 的编码，只在 caffeine 未命中时调用
+   *
+   * @param key key
+   * @return redis key
+   */
+  byte[] rawKey(Object key) {
+    if (!nonStringKeys && !(key instanceof String)) {
+      nonStringKeys = true;
+    }
+    byte[] prefix = rawKeyPrefix;
+    byte[] encoded = keyEncoder.encode(key);
+    byte[] rawKey = Arrays.copyOf(prefix, prefix.length + encoded.length);
+    System.arraycopy(encoded, 0, rawKey, prefix.length, encoded.length);
+    return rawKey;
+  }
+
+  /**
+   * 从 redis 中获取缓存
+   *
+   * @param key key
+   * @return 缓存存储的值
+   */
+  private Object redisGet(Object key) {
+    RemoteValue remote = redisGetRemote(key);
+    return remote == null ? null : remote.value;
+  }
+
+  private RemoteValue redisGetRemote(Object key) {
+    if (!remoteEnabled) {
+      return null;
+    }
+    byte[] rawKey = rawKey(key);
+    long start = System.nanoTime();
+    byte[] rawValue = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+    metrics.recordRedis(CacheMetrics.RedisOperation.GET, System.nanoTime() - start);
+    return readValue(rawValue);
+  }
+
+  /**
+   * 反序列化 redis 中的 value；开启 versioned 时先去掉版本号
+   *
+   * @param rawValue redis 中的 value
+   * @return 缓存存储的值和版本号，value 不存在时为 null
+   */
+  RemoteValue readValue(byte[] rawValue) {
+    if (rawValue == null) {
+      return null;
+    }
+    long version = 0;
+    if (versioned) {
+      version = VersionedValues.version(rawValue);
+      rawValue = VersionedValues.payload(rawValue);
+    }
+    Object value = valueSerializer.deserialize(rawValue);
+    return value == null ? null : new RemoteValue(value, version, rawValue);
+  }
+
+  /**
+   * 从 redis 中获取需要放入 caffeine 的缓存：caffeine 按条目过期时，在一次往返中同时获取剩余过期时间
+   *
+   * @param key key
+   * @return 缓存存储的值
+   */
+  private RemoteValue redisGetWithTtl(Object key) {
+    if (expiry == null) {
+      return redisGetRemote(key);
+    }
+    byte[] rawKey = rawKey(key);
+    long start = System.nanoTime();
+    List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      connection.get(rawKey);
+      connection.pTtl(rawKey);
+      return null;
+    }, RedisSerializer.byteArray());
+    metrics.recordRedis(CacheMetrics.RedisOperation.GET, System.nanoTime() - start);
+    return deserializeAll(Collections.singletonList(key), results).get(0);
+  }
+
+  /**
+   * 根据过期时间，设置 redis 缓存
+   *
+   * @param key        key
+   * @param storeValue 缓存存储的值
+   * @return 写入的版本号，没有开启 versioned 时为 0
+   */
+  private long redisSet(Object key, Object storeValue) {
+    if (!remoteEnabled) {
+      return 0;
+    }
+    byte[] rawKey = rawKey(key);
+    byte[] rawValue = valueSerializer.serialize(storeValue);
+    long expire = getExpire();
+    setRemainingTtl(key, expire);
+    String selfWrite = expectSelfWrite(rawKey);
+    long start = System.nanoTime();
+    try {
+      if (versioned) {
+        Long version = redisTemplate.execute((RedisCallback<Long>) connection ->
+            connection.eval(VERSIONED_SET_SCRIPT, ReturnType.INTEGER, 2, rawKey, versionKey, rawValue, expireArg(expire)));
+        metrics.recordRedis(CacheMetrics.RedisOperation.EVAL, System.nanoTime() - start);
+        return version == null ? 0 : version;
+      }
+      redisTemplate.execute((RedisCallback<Object>) connection -> {
+        if (expire > 0) {
+          connection.pSetEx(rawKey, expire, rawValue);
+        } else {
+          connection.set(rawKey, rawValue);
+        }
+        return null;
+      });
+    } catch (RuntimeException e) {
+      cancelSelfWrite(selfWrite);
+      removeRemainingTtl(key);
+      throw e;
+    }
+    metrics.recordRedis(CacheMetrics.RedisOperation.SET, System.nanoTime() - start);
+    return 0;
+  }
+
+  /**
+   * 开启 tracking 时记录本节点即将写入的 redis key，收到该写入引起的通知时不清除本地缓存
+   *
+   * @param rawKey redis key
+   * @return 记录的 redis key，没有开启 tracking 时为 null
+   */
+  String expectSelfWrite(byte[] rawKey) {
+    RedisTrackingInvalidationListener listener = trackingListener;
+    if (listener == null || !listener.isTracking()) {
+      return null;
+    }
+    String redisKey = new String(rawKey, StandardCharsets.UTF_8);
+    listener.expectWrite(redisKey);
+    return redisKey;
+  }
+
+  /**
+   * 写入失败或没有实际写入时撤销 expectSelfWrite，之后收到的通知正常清除本地缓存
+   *
+   * @param redisKey expectSelfWrite 返回的 redis key，可为 null
+   */
+  void cancelSelfWrite(String redisKey) {
+    RedisTrackingInvalidationListener listener = trackingListener;
+    if (redisKey != null && listener != null) {
+      listener.cancelWrite(redisKey);
+    }
+  }
+
+  /**
+   * 开启 CLIENT TRACKING 且前缀注册成功后由 RedisCaffeineCacheManager 设置
+   *
+   * @param trackingListener tracking 监听
+   */
+  void setTrackingListener(RedisTrackingInvalidationListener trackingListener) {
+    this.trackingListener = trackingListener;
+  }
+
+  static byte[] expireArg(long expire) {
+    return String.valueOf(expire).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * 获取过期时间，和配置文件中 CacheName 进行对比；配置了 expirationJitter 时每次增加随机的抖动
+   *
+   * @return 过期时间
+   */
+  long getExpire() {
+    if (expiration <= 0 || expirationJitter <= 0) {
+      return expiration;
+    }
+    long maxJitter = (long) (expiration * expirationJitter);
+    return maxJitter <= 0 ? expiration : expiration + ThreadLocalRandom.current().nextLong(maxJitter + 1);
+  }
+
+  /**
+   * 推送缓存消息更新
+   *
+   * @param message 缓存消息
+   */
+  void push(CacheMessage message) {
+    publisher.publish(message);
+  }
+
+  /**
+   * @param key     key
+   * @param version 版本号，小于等于 0 时不设置
+   * @return 单个 key 的缓存消息
+   */
+  CacheMessage keyMessage(Object key, long version) {
+    CacheMessage message = new CacheMessage(this.name, key);
+    if (version > 0) {
+      message.setVersion(version);
+    }
+    return message;
   }
 
   /**
@@ -246,11 +1712,187 @@ public class RedisCaffeineCache extends AbstractValueAdaptingCache {
    * @param key key
    */
   public void clearLocal(Object key) {
+    clearLocal(key, (Long) null);
+  }
+
+  /**
+   * 清理本地缓存，并记录消息中的版本号，之后不再写入从 redis 读取的更旧的值
+   *
+   * @param key     key
+   * @param version 版本号，可为 null
+   */
+  public void clearLocal(Object key, Long version) {
     LOGGER.debug("clear local cache, the key is : {}", key);
+    boolean newer = false;
+    if (key != null && version != null) {
+      newer = isNewerVersion(key, version);
+      recordVersion(key, version);
+    }
+    metrics.recordMessageReceived();
+    syncLocalKeyFilter(Collections.singletonList(key));
     if (key == null) {
       caffeineCache.invalidateAll();
+      clearLocalCopies();
     } else {
+      invalidateLocal(key, newer);
+      invalidateLocalCopies(key);
+    }
+  }
+
+  /**
+   * 批量清理本地缓存
+   *
+   * @param keys keys
+   */
+  public void clearLocal(Collection<?> keys) {
+    clearLocal(keys, (List<Long>) null);
+  }
+
+  /**
+   * 批量清理本地缓存，并记录消息中的版本号
+   *
+   * @param keys     keys
+   * @param versions 与 keys 顺序一致的版本号，可为 null
+   */
+  public void clearLocal(Collection<?> keys, List<Long> versions) {
+    LOGGER.debug("clear local cache, the keys size is : {}", keys.size());
+    Set<Object> newer = Collections.emptySet();
+    if (versions != null) {
+      newer = new HashSet<>();
+      int i = 0;
+      for (Object key : keys) {
+        Long version = i < versions.size() ? versions.get(i) : null;
+        if (key != null && version != null) {
+          if (isNewerVersion(key, version)) {
+            newer.add(key);
+          }
+          recordVersion(key, version);
+        }
+        i++;
+      }
+    }
+    metrics.recordMessageReceived();
+    syncLocalKeyFilter(keys);
+    invalidateLocalCopies(keys);
+    if (hotKeyDetector == null) {
+      caffeineCache.invalidateAll(keys);
+      return;
+    }
+    for (Object key : keys) {
+      invalidateLocal(key, newer.contains(key));
+    }
+  }
+
+  /**
+   * @return CLIENT TRACKING 需要注册的 redis key 前缀，关闭 redis 缓存时为空
+   */
+  public List<String> getTrackingPrefixes() {
+    if (!remoteEnabled) {
+      return Collections.emptyList();
+    }
+    List<String> prefixes = new ArrayList<>(2);
+    // 包含所有 generation 的 key，不包含 #version、#keys 等辅助 key
+    prefixes.add(this.namespace + ":");
+    if (generationNamespace) {
+      prefixes.add(generationKeyName);
+    }
+    return prefixes;
+  }
+
+  /**
+   * redis 通知这些 key 发生了变化（CLIENT TRACKING），清除属于当前缓存的本地缓存
+   *
+   * @param redisKeys 发生变化的 redis key
+   */
+  public void clearLocalByRedisKeys(Collection<String> redisKeys) {
+    String prefix = keyPrefix;
+    List<Object> keys = new ArrayList<>();
+    boolean generationChanged = false;
+    for (String redisKey : redisKeys) {
+      if (redisKey.startsWith(prefix)) {
+        keys.add(redisKey.substring(prefix.length()));
+      } else if (generationNamespace && generationKeyName.equals(redisKey)) {
+        generationChanged = true;
+      }
+    }
+    if (generationChanged && updateGeneration(readGeneration())) {
+      // 其他节点执行了 clear
+      metrics.recordMessageReceived();
+      caffeineCache.invalidateAll();
+      clearLocalCopies();
+      invalidateRefreshLoaders();
+    }
+    if (keys.isEmpty()) {
+      return;
+    }
+    if (keyEncoder != CacheKeyEncoder.TO_STRING || nonStringKeys) {
+      Set<Object> names = new HashSet<>(keys);
+      addLocalKeys(keys, names, caffeineCache.asMap().keySet());
+      if (offHeap != null) {
+        addLocalKeys(keys, names, offHeap.keys());
+      }
+    }
+    clearLocal(keys);
+  }
+
+  /**
+   * 通知中只有 key 的编码（默认为 toString），找到本地缓存中对应的原始 key
+   *
+   * @param keys      需要清除的 key
+   * @param names     通知中的 key 编码
+   * @param localKeys 本地缓存中的 key
+   */
+  private void addLocalKeys(List<Object> keys, Set<Object> names, Collection<Object> localKeys) {
+    boolean custom = keyEncoder != CacheKeyEncoder.TO_STRING;
+    for (Object key : localKeys) {
+      if (custom ? names.contains(new String(keyEncoder.encode(key), StandardCharsets.UTF_8))
+          : !(key instanceof String) && names.contains(key.toString())) {
+        keys.add(key);
+      }
+    }
+  }
+
+  /**
+   * 其他节点更新了缓存，本地的 keyFilter 不共享，需要添加这些 key（删除消息添加的 key 只会增加误判）
+   *
+   * @param keys keys
+   */
+  private void syncLocalKeyFilter(Collection<?> keys) {
+    if (keyFilter != null && !keyFilter.isShared()) {
+      for (Object key : keys) {
+        if (key != null) {
+          keyFilter.put(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * 清除本地缓存；热点 key 开启保护时，随机延迟后从 redis 刷新，延迟期间继续返回旧值。
+   * 消息携带比已知版本更新的版本号时，本地的值一定已经过期，直接清除
+   *
+   * @param key          key
+   * @param newerVersion 消息的版本号是否比已知的版本更新
+   */
+  private void invalidateLocal(Object key, boolean newerVersion) {
+    if (newerVersion || hotKeyDetector == null || !caffeineCache.asMap().containsKey(key)
+        || !hotKeyDetector.protect(key, () -> refreshHotKey(key))) {
+      caffeineCache.invalidate(key);
+    }
+  }
+
+  private void refreshHotKey(Object key) {
+    try {
+      RemoteValue remote = loadRemote(key);
+      if (remote == null) {
+        caffeineCache.invalidate(key);
+      } else {
+        LOGGER.debug("refresh hot key from redis, the key is : {}", key);
+        putLocal(key, remote);
+      }
+    } catch (RuntimeException e) {
       caffeineCache.invalidate(key);
+      throw e;
     }
   }
 }
@@ -0,0 +1,32 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+/**
+ * caffeine 的 CacheLoader，用于 refreshAfterWrite 的异步刷新
+ * <p>
+ * caffeine 需要在创建 RedisCaffeineCache 之前构建，因此先创建 loader，之后再通过 setCache 绑定缓存。
+ * 刷新期间 caffeine 继续返回旧值，刷新失败时保留旧值。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisCaffeineCacheLoader implements CacheLoader<Object, Object> {
+  private volatile RedisCaffeineCache cache;
+
+  public void setCache(RedisCaffeineCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public Object load(Object key) {
+    RedisCaffeineCache redisCaffeineCache = this.cache;
+    return redisCaffeineCache == null ? null : redisCaffeineCache.loadLocal(key);
+  }
+
+  @Override
+  public Object reload(Object key, Object oldValue) throws Exception {
+    RedisCaffeineCache redisCaffeineCache = this.cache;
+    return redisCaffeineCache == null ? oldValue : redisCaffeineCache.reloadLocal(key);
+  }
+}
@@ -1,18 +1,36 @@
 package org.example.multilevelcache.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.hotkey.HotKeyDetector;
+import org.example.multilevelcache.hotkey.HotKeyRefresher;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
 import org.example.multilevelcache.manager.DistributedLock;
+import org.example.multilevelcache.snapshot.CacheSnapshotFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.redis.core.RedisTemplate;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -49,16 +67,62 @@ public class RedisCaffeineCacheManager implements CacheManager {
    * 分布式锁
    */
   private final DistributedLock lock;
+  /**
+   * 缓存更新消息发布
+   */
+  private final CacheMessagePublisher publisher;
+  /**
+   * redis key 清理
+   */
+  private final KeyspaceSweeper sweeper;
+  /**
+   * 指标记录
+   */
+  private final CacheMetricsFactory metricsFactory;
+  /**
+   * 热点 key 的后台刷新
+   */
+  private final HotKeyRefresher hotKeyRefresher;
+  /**
+   * key 过滤器
+   */
+  private final CacheKeyFilterFactory keyFilterFactory;
+  /**
+   * 开启 CLIENT TRACKING 时接收 redis 的 invalidate 通知，为 null 时只使用 topic 消息
+   */
+  private volatile RedisTrackingInvalidationListener trackingListener;
+  /**
+   * 缓存 key 编码为 redis key 的方式
+   */
+  private final CacheKeyEncoder keyEncoder;
+  /**
+   * 所有缓存共享的异步命令
+   */
+  private final RedisAsyncCommands asyncCommands;
 
   public RedisCaffeineCacheManager(MultiCacheProperties properties,
                                    RedisTemplate<Object, Object> redisTemplate,
-                                   DistributedLock lock) {
+                                   DistributedLock lock,
+                                   CacheMessagePublisher publisher,
+                                   KeyspaceSweeper sweeper,
+                                   CacheMetricsFactory metricsFactory,
+                                   HotKeyRefresher hotKeyRefresher,
+                                   CacheKeyFilterFactory keyFilterFactory,
+                                   CacheKeyEncoder keyEncoder,
+                                   RedisAsyncCommands asyncCommands) {
     super();
     this.properties = properties;
     this.redisTemplate = redisTemplate;
     this.dynamic = properties.isDynamic();
     this.cacheNames = properties.getCacheNames();
     this.lock = lock;
+    this.publisher = publisher;
+    this.sweeper = sweeper;
+    this.metricsFactory = metricsFactory;
+    this.hotKeyRefresher = hotKeyRefresher;
+    this.keyFilterFactory = keyFilterFactory;
+    this.keyEncoder = keyEncoder;
+    this.asyncCommands = asyncCommands;
   }
 
   @Override
@@ -71,30 +135,173 @@ public class RedisCaffeineCacheManager implements CacheManager {
       return null;
     }
 
-    cache = new RedisCaffeineCache(name, redisTemplate, caffeineCache(), properties, lock);
+    RedisCaffeineCacheLoader loader = new RedisCaffeineCacheLoader();
+    CacheEntryExpiry expiry = cacheEntryExpiry(name);
+    CacheEvictionListener evictionListener = properties.isOffHeapEnabled(name) ? new CacheEvictionListener() : null;
+    AsyncCache<Object, Object> caffeineCache = caffeineCache(name, loader, expiry, evictionListener);
+    CacheMetrics metrics = metricsFactory.create(name, caffeineCache.synchronous());
+    RedisCaffeineCache redisCaffeineCache = new RedisCaffeineCache(name, redisTemplate, caffeineCache, properties,
+        lock, message -> publish(message, metrics), sweeper, metrics, hotKeyDetector(name),
+        keyFilterFactory.create(name), expiry, keyEncoder, asyncCommands);
+    loader.setCache(redisCaffeineCache);
+    if (evictionListener != null) {
+      evictionListener.setCache(redisCaffeineCache);
+    }
+    cache = redisCaffeineCache;
     Cache oldCache = cacheMap.putIfAbsent(name, cache);
     LOGGER.debug("create cache instance, the cache name is : {}", name);
-    return oldCache == null ? cache : oldCache;
+    if (oldCache != null) {
+      return oldCache;
+    }
+    RedisTrackingInvalidationListener listener = trackingListener;
+    if (listener != null) {
+      track(listener, redisCaffeineCache);
+    }
+    return cache;
+  }
+
+  /**
+   * 开启 tracking 且 redis 缓存开启时，redis 会通知所有节点，不再发送 topic 消息；
+   * tracking 连接断开期间、只使用 caffeine 的缓存仍然通过 topic 通知其他节点
+   *
+   * @param message 缓存消息
+   * @param metrics 缓存的指标，只记录实际发送的消息
+   */
+  private void publish(CacheMessage message, CacheMetrics metrics) {
+    RedisTrackingInvalidationListener listener = trackingListener;
+    if (listener != null && listener.isTracking(message.getCacheName()) && properties.isRemoteEnabled(message.getCacheName())) {
+      return;
+    }
+    publisher.publish(message);
+    metrics.recordMessageSent();
+  }
+
+  /**
+   * 开启 CLIENT TRACKING 后注册已创建缓存的 key 前缀
+   *
+   * @param trackingListener tracking 监听
+   */
+  public void setTrackingListener(RedisTrackingInvalidationListener trackingListener) {
+    this.trackingListener = trackingListener;
+    for (Cache cache : cacheMap.values()) {
+      track(trackingListener, (RedisCaffeineCache) cache);
+    }
+  }
+
+  /**
+   * 注册缓存的 key 前缀；前缀与其他缓存重叠时该缓存继续使用 topic 消息，不过滤本节点写入引起的通知
+   */
+  private static void track(RedisTrackingInvalidationListener listener, RedisCaffeineCache cache) {
+    if (listener.track(cache.getName(), cache.getTrackingPrefixes())) {
+      cache.setTrackingListener(listener);
+    }
+  }
+
+  /**
+   * 开启热点 key 检测时创建 HotKeyDetector
+   *
+   * @param name cacheName
+   * @return 未开启时为 null
+   */
+  private HotKeyDetector hotKeyDetector(String name) {
+    if (!properties.isHotKeyEnabled(name)) {
+      return null;
+    }
+    MultiCacheProperties.HotKey hotKey = properties.getHotKey();
+    HotKeyRefresher refresher = hotKey.isRefreshOnInvalidation() && properties.isRemoteEnabled(name) ? hotKeyRefresher : null;
+    return new HotKeyDetector(name, hotKey.getTopK(), hotKey.getSampleSize(), hotKey.getMinFrequency(),
+        refresher, hotKey.getRefreshJitter());
+  }
+
+  /**
+   * 同时开启两级缓存且 redis 有过期时间时，caffeine 按条目过期，过期时间不超过 redis 的剩余过期时间
+   *
+   * @param name cacheName
+   * @return 不需要时为 null
+   */
+  private CacheEntryExpiry cacheEntryExpiry(String name) {
+    long remoteExpire = properties.getExpiration(name);
+    if (!properties.isLocalEnabled(name) || !properties.isRemoteEnabled(name) || remoteExpire <= 0) {
+      return null;
+    }
+    MultiCacheProperties.Caffeine caffeine = properties.getCaffeine(name);
+    long localExpire = caffeine.getExpireAfterWrite() > 0 ? caffeine.getExpireAfterWrite() : caffeine.getExpireAfterAccess();
+    return new CacheEntryExpiry(localExpire, remoteExpire);
   }
 
   public com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeineCache() {
+    return buildCaffeineCache(null, properties.getCaffeine(), null, null, null, false).synchronous();
+  }
+
+  public AsyncCache<Object, Object> caffeineCache(String name, RedisCaffeineCacheLoader loader) {
+    return caffeineCache(name, loader, null);
+  }
+
+  /**
+   * 根据 cacheName 的配置构建 caffeine 缓存，配置了 refreshAfterWrite 时构建 AsyncLoadingCache，由 loader 异步刷新。
+   * 同步操作使用 synchronous() 视图，异步 API 共享同一个缓存中正在加载的 future
+   *
+   * @param name   cacheName
+   * @param loader 刷新使用的 loader，为 null 时不开启 refreshAfterWrite
+   * @param expiry 按条目的过期策略，为 null 时使用 expireAfterAccess、expireAfterWrite
+   * @return caffeine 缓存
+   */
+  public AsyncCache<Object, Object> caffeineCache(String name, RedisCaffeineCacheLoader loader, CacheEntryExpiry expiry) {
+    return caffeineCache(name, loader, expiry, null);
+  }
+
+  /**
+   * @param evictionListener 因容量淘汰时的降级，为 null 时不降级
+   */
+  public AsyncCache<Object, Object> caffeineCache(String name, RedisCaffeineCacheLoader loader, CacheEntryExpiry expiry,
+                                                  CacheEvictionListener evictionListener) {
+    if (!properties.isLocalEnabled(name)) {
+      // 关闭本地缓存：写入后立即在当前线程淘汰
+      return Caffeine.newBuilder().maximumSize(0).executor(Runnable::run).buildAsync();
+    }
+    return buildCaffeineCache(name, properties.getCaffeine(name), loader, expiry, evictionListener, metricsFactory.isEnabled());
+  }
+
+  private AsyncCache<Object, Object> buildCaffeineCache(String name,
+                                                        MultiCacheProperties.Caffeine caffeine,
+                                                        RedisCaffeineCacheLoader loader,
+                                                        CacheEntryExpiry expiry,
+                                                        CacheEvictionListener evictionListener,
+                                                        boolean recordStats) {
     Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder();
-    if (properties.getCaffeine().getExpireAfterAccess() > 0) {
-      cacheBuilder.expireAfterAccess(properties.getCaffeine().getExpireAfterAccess(), TimeUnit.MILLISECONDS);
+    if (recordStats) {
+      cacheBuilder.recordStats();
+    }
+    if (expiry != null) {
+      cacheBuilder.expireAfter(expiry);
+    } else {
+      if (caffeine.getExpireAfterAccess() > 0) {
+        cacheBuilder.expireAfterAccess(caffeine.getExpireAfterAccess(), TimeUnit.MILLISECONDS);
+      }
+      if (caffeine.getExpireAfterWrite() > 0) {
+        cacheBuilder.expireAfterWrite(caffeine.getExpireAfterWrite(), TimeUnit.MILLISECONDS);
+      }
     }
-    if (properties.getCaffeine().getExpireAfterWrite() > 0) {
-      cacheBuilder.expireAfterWrite(properties.getCaffeine().getExpireAfterWrite(), TimeUnit.MILLISECONDS);
+    if (caffeine.getInitialCapacity() > 0) {
+      cacheBuilder.initialCapacity(caffeine.getInitialCapacity());
     }
-    if (properties.getCaffeine().getInitialCapacity() > 0) {
-      cacheBuilder.initialCapacity(properties.getCaffeine().getInitialCapacity());
+    if (caffeine.getMaximumWeight() > 0) {
+      if (caffeine.getMaximumSize() > 0) {
+        LOGGER.warn("maximumSize {} of cache {} is ignored, maximumWeight {} is used", caffeine.getMaximumSize(), name,
+            caffeine.getMaximumWeight());
+      }
+      cacheBuilder.maximumWeight(caffeine.getMaximumWeight()).weigher(new CacheValueWeigher());
+    } else if (caffeine.getMaximumSize() > 0) {
+      cacheBuilder.maximumSize(caffeine.getMaximumSize());
     }
-    if (properties.getCaffeine().getMaximumSize() > 0) {
-      cacheBuilder.maximumSize(properties.getCaffeine().getMaximumSize());
+    if (evictionListener != null) {
+      cacheBuilder.removalListener(evictionListener);
     }
-    if (properties.getCaffeine().getRefreshAfterWrite() > 0) {
-      cacheBuilder.refreshAfterWrite(properties.getCaffeine().getRefreshAfterWrite(), TimeUnit.MILLISECONDS);
+    if (caffeine.getRefreshAfterWrite() > 0 && loader != null) {
+      cacheBuilder.refreshAfterWrite(caffeine.getRefreshAfterWrite(), TimeUnit.MILLISECONDS);
+      return cacheBuilder.buildAsync(loader);
     }
-    return cacheBuilder.build();
+    return cacheBuilder.buildAsync();
   }
 
   @Override
@@ -103,11 +310,144 @@ public class RedisCaffeineCacheManager implements CacheManager {
   }
 
   public void clearLocal(String cacheName, Object key) {
+    clearLocal(cacheName, key, (Long) null);
+  }
+
+  /**
+   * @param version 其他节点写入或删除后的版本号，可为 null
+   */
+  public void clearLocal(String cacheName, Object key, Long version) {
+    Cache cache = cacheMap.get(cacheName);
+    if (cache == null) {
+      return;
+    }
+    RedisCaffeineCache redisCaffeineCache = (RedisCaffeineCache) cache;
+    redisCaffeineCache.clearLocal(key, version);
+  }
+
+  /**
+   * 根据 redis 的 invalidate 通知清除本地缓存，每个缓存只处理属于自己的 key
+   *
+   * @param redisKeys 发生变化的 redis key
+   */
+  public void clearLocalByRedisKeys(Collection<String> redisKeys) {
+    for (Cache cache : cacheMap.values()) {
+      ((RedisCaffeineCache) cache).clearLocalByRedisKeys(redisKeys);
+    }
+  }
+
+  /**
+   * 清除所有缓存的本地缓存
+   */
+  public void clearAllLocal() {
+    for (Cache cache : cacheMap.values()) {
+      ((RedisCaffeineCache) cache).clearLocal((Object) null);
+    }
+  }
+
+  /**
+   * 将每个缓存最热的本地缓存写入快照文件，关闭 redis 缓存的缓存不写入
+   *
+   * @param path       快照文件路径
+   * @param maxEntries 每个缓存最多写入的个数
+   * @return 写入的缓存个数
+   */
+  public int saveSnapshot(Path path, int maxEntries) throws IOException {
+    Map<String, List<CacheSnapshotFile.Entry>> entries = new LinkedHashMap<>();
+    int count = 0;
+    for (Map.Entry<String, Cache> entry : cacheMap.entrySet()) {
+      List<CacheSnapshotFile.Entry> cacheEntries = ((RedisCaffeineCache) entry.getValue()).snapshot(maxEntries);
+      if (!cacheEntries.isEmpty()) {
+        entries.put(entry.getKey(), cacheEntries);
+        count += cacheEntries.size();
+      }
+    }
+    CacheSnapshotFile.write(path, entries);
+    LOGGER.info("save cache snapshot, the path is {}, the entries size is {}", path, count);
+    return count;
+  }
+
+  /**
+   * 从快照文件恢复本地缓存：每个缓存在 executor 中解析，再按 batchSize 分批并行校验 redis 后写入 caffeine
+   *
+   * @param path      快照文件路径
+   * @param maxAge    快照超过该时间（单位毫秒）时不恢复
+   * @param batchSize 每批校验的个数
+   * @param executor  执行解析和校验的线程池
+   * @return 完成时为恢复的缓存个数
+   */
+  public CompletableFuture<Integer> restoreSnapshot(Path path, long maxAge, int batchSize, Executor executor) {
+    CacheSnapshotFile file;
+    try {
+      file = CacheSnapshotFile.open(path);
+    } catch (IOException e) {
+      LOGGER.warn("open cache snapshot error, skip restoring, the path is {}", path, e);
+      return CompletableFuture.completedFuture(0);
+    }
+    if (file == null) {
+      return CompletableFuture.completedFuture(0);
+    }
+    long age = System.currentTimeMillis() - file.getCreatedAt();
+    if (age > maxAge) {
+      LOGGER.info("cache snapshot is too old, skip restoring, the path is {}, the age is {} ms", path, age);
+      return CompletableFuture.completedFuture(0);
+    }
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (String cacheName : file.getCacheNames()) {
+      RedisCaffeineCache cache = (RedisCaffeineCache) getCache(cacheName);
+      if (cache == null) {
+        continue;
+      }
+      cache.beginPreload();
+      CompletableFuture<Integer> future = CompletableFuture.supplyAsync(() -> file.read(cacheName), executor)
+          .thenCompose(entries -> {
+            List<CompletableFuture<Integer>> batches = new ArrayList<>();
+            for (int from = 0; from < entries.size(); from += batchSize) {
+              List<CacheSnapshotFile.Entry> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+              batches.add(CompletableFuture.supplyAsync(() -> cache.restore(batch), executor));
+            }
+            return sum(batches);
+          })
+          .whenComplete((restored, e) -> {
+            cache.endPreload();
+            if (e != null) {
+              LOGGER.warn("restore cache snapshot error, the cache name is {}", cacheName, e);
+            } else {
+              LOGGER.debug("restore cache snapshot, the cache name is {}, the restored size is {}", cacheName, restored);
+            }
+          });
+      futures.add(future.exceptionally(e -> 0));
+    }
+    return sum(futures);
+  }
+
+  private static CompletableFuture<Integer> sum(List<CompletableFuture<Integer>> futures) {
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(v -> futures.stream().mapToInt(CompletableFuture::join).sum());
+  }
+
+  public void updateGeneration(String cacheName, long generation) {
+    Cache cache = cacheMap.get(cacheName);
+    if (cache == null) {
+      return;
+    }
+    RedisCaffeineCache redisCaffeineCache = (RedisCaffeineCache) cache;
+    redisCaffeineCache.updateGeneration(generation);
+  }
+
+  public void clearLocal(String cacheName, Collection<?> keys) {
+    clearLocal(cacheName, keys, (List<Long>) null);
+  }
+
+  /**
+   * @param versions 与 keys 顺序一致的版本号，可为 null
+   */
+  public void clearLocal(String cacheName, Collection<?> keys, List<Long> versions) {
     Cache cache = cacheMap.get(cacheName);
     if (cache == null) {
       return;
     }
     RedisCaffeineCache redisCaffeineCache = (RedisCaffeineCache) cache;
-    redisCaffeineCache.clearLocal(key);
+    redisCaffeineCache.clearLocal(keys, versions);
   }
 }
@@ -0,0 +1,192 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通过 redis stream 接收缓存更新消息，连接断开后补齐缺失的消息
+ * <p>
+ * 消息由 RedisStreamCacheMessagePublisher 写入，ID 为连续的序号。单独的线程从最后处理的序号开始 XREAD BLOCK，
+ * 连接断开期间的消息仍然保留在 stream 中，重新连接后只重放缺失的部分；读到的第一条消息的序号不连续时，
+ * 说明缺失的消息已经超出 stream 的保留范围，此时才清除所有本地缓存。stream 被删除重建（序号变小）时同样清除所有本地缓存。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisStreamInvalidationListener implements DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedisStreamInvalidationListener.class);
+
+  private final RedisTemplate<Object, Object> redisTemplate;
+  private final RedisCaffeineCacheManager redisCaffeineCacheManager;
+  private final CacheMessageListener cacheMessageListener;
+  private final byte[] stream;
+  private final StreamReadOptions readOptions;
+  private final long retryInterval;
+  private final Thread thread;
+  private final AtomicLong receivedCount = new AtomicLong();
+  private final AtomicLong resyncCount = new AtomicLong();
+  /**
+   * 最后处理的消息序号，-1 为尚未读取 stream 的当前位置
+   */
+  private volatile long lastSequence = -1;
+  private volatile boolean running;
+
+  /**
+   * @param redisTemplate             redisTemplate，使用其 value 序列化方式反序列化消息
+   * @param redisCaffeineCacheManager 缓存管理器
+   * @param stream                    stream 的 key
+   * @param readCount                 每次最多读取的消息数
+   * @param blockTimeout              每次 XREAD 的阻塞时间，单位毫秒
+   * @param retryInterval             读取失败后的重试间隔，单位毫秒
+   */
+  public RedisStreamInvalidationListener(RedisTemplate<Object, Object> redisTemplate, RedisCaffeineCacheManager redisCaffeineCacheManager,
+                                         String stream, int readCount, long blockTimeout, long retryInterval) {
+    this.redisTemplate = redisTemplate;
+    this.redisCaffeineCacheManager = redisCaffeineCacheManager;
+    this.cacheMessageListener = new CacheMessageListener(redisTemplate, redisCaffeineCacheManager);
+    this.stream = stream.getBytes(StandardCharsets.UTF_8);
+    this.readOptions = StreamReadOptions.empty().count(Math.max(1, readCount)).block(Duration.ofMillis(blockTimeout));
+    this.retryInterval = retryInterval;
+    this.thread = new Thread(this::run, "cache-stream-invalidation");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * 启动读取线程，从 stream 当前的最后一条消息之后开始读取
+   */
+  public void start() {
+    running = true;
+    thread.start();
+  }
+
+  /**
+   * 最后处理的消息序号
+   */
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * 收到的消息数（包括本节点发出的消息）
+   */
+  public long getReceivedCount() {
+    return receivedCount.get();
+  }
+
+  /**
+   * 因消息超出保留范围或 stream 重建而清除所有本地缓存的次数
+   */
+  public long getResyncCount() {
+    return resyncCount.get();
+  }
+
+  private void run() {
+    boolean connected = true;
+    while (running) {
+      try {
+        if (lastSequence < 0) {
+          lastSequence = currentSequence();
+          LOGGER.info("redis stream invalidation started, the sequence is {}", lastSequence);
+        }
+        List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+            connection.xRead(readOptions, StreamOffset.create(stream, ReadOffset.from(lastSequence + "-0"))));
+        if (!connected) {
+          connected = true;
+          LOGGER.info("redis stream invalidation reconnected, replay from sequence {}", lastSequence);
+        }
+        if (records == null || records.isEmpty()) {
+          checkRecreated();
+          continue;
+        }
+        for (ByteRecord record : records) {
+          onRecord(record);
+        }
+      } catch (RuntimeException e) {
+        if (!running) {
+          return;
+        }
+        if (connected) {
+          connected = false;
+          LOGGER.warn("read redis stream invalidation error, retry after {} ms, the sequence is {}", retryInterval, lastSequence, e);
+        }
+        try {
+          Thread.sleep(retryInterval);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private void onRecord(ByteRecord record) {
+    long sequence = record.getId().getTimestamp();
+    if (sequence <= lastSequence) {
+      return;
+    }
+    if (sequence != lastSequence + 1) {
+      resync("the missed messages are out of the stream retention, the sequence is " + lastSequence + ", the next is " + sequence);
+    }
+    lastSequence = sequence;
+    receivedCount.incrementAndGet();
+    for (byte[] body : record.getValue().values()) {
+      try {
+        CacheMessage cacheMessage = (CacheMessage) redisTemplate.getValueSerializer().deserialize(body);
+        if (null == cacheMessage) {
+          LOGGER.warn("cache message parse error,skip clear local cache, the sequence is {}", sequence);
+          continue;
+        }
+        cacheMessageListener.onCacheMessage(cacheMessage);
+      } catch (RuntimeException e) {
+        LOGGER.warn("clear local cache by redis stream message error, the sequence is {}", sequence, e);
+      }
+    }
+  }
+
+  /**
+   * 空闲时检查 stream 是否被删除或重建：最后一条消息的序号比已处理的小时，之后的消息会从更小的序号开始
+   */
+  private void checkRecreated() {
+    long current = currentSequence();
+    if (current < lastSequence) {
+      resync("the stream is recreated, the sequence is " + lastSequence + ", the current is " + current);
+      lastSequence = current;
+    }
+  }
+
+  /**
+   * @return stream 最后一条消息的序号，不存在时为 0
+   */
+  private long currentSequence() {
+    List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+        connection.xRevRange(stream, Range.unbounded(), RedisZSetCommands.Limit.limit().count(1)));
+    return records == null || records.isEmpty() ? 0 : records.get(0).getId().getTimestamp();
+  }
+
+  private void resync(String reason) {
+    resyncCount.incrementAndGet();
+    LOGGER.warn("redis stream invalidation gap detected, clear all local cache: {}", reason);
+    redisCaffeineCacheManager.clearAllLocal();
+  }
+
+  @Override
+  public void destroy() {
+    running = false;
+    thread.interrupt();
+  }
+}
@@ -0,0 +1,311 @@
+package org.example.multilevelcache.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 redis 服务端辅助的客户端缓存（RESP3 CLIENT TRACKING 广播模式）清除本地缓存
+ * <p>
+ * 使用一个单独的 lettuce RESP3 连接，按每个 cacheName 的 key 前缀开启 BCAST 模式的 tracking，
+ * redis 中匹配前缀的 key 被任意客户端修改后，服务端通过 invalidate 推送消息通知本节点，不再依赖写入方发送 topic 消息。
+ * <p>
+ * 推送消息在 lettuce 的 IO 线程中收到，在单独的线程中按顺序清除本地缓存；连接断开期间 isTracking 为 false，
+ * 写入方退回到 topic 消息，重新连接并开启 tracking 后清除所有本地缓存（断开期间的通知已经丢失）。
+ * <p>
+ * BCAST 模式下本节点自己的写入也会收到通知：写入前通过 expectWrite 记录 key，收到对应的通知时跳过一次，
+ * 不清除刚写入的本地缓存；写入失败时通过 cancelWrite 撤销。记录在短时间后过期，断开连接时清空。
+ * <p>
+ * redis 不允许 BCAST 的前缀互相包含（如没有 cachePrefix 时的 user 和 user:detail），
+ * 与已注册前缀重叠的缓存不开启 tracking，继续使用 topic 消息。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisTrackingInvalidationListener implements DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedisTrackingInvalidationListener.class);
+  private static final String INVALIDATE = "invalidate";
+  /**
+   * 本节点写入的 key 等待通知的最长时间，单位毫秒
+   */
+  private static final long SELF_WRITE_WINDOW = 10000;
+  private static final long MAX_SELF_WRITES = 100000;
+
+  private final RedisClient client;
+  private final RedisCaffeineCacheManager redisCaffeineCacheManager;
+  private final ExecutorService executor;
+  /**
+   * 已注册的 key 前缀，重新连接后需要重新注册
+   */
+  private final Set<String> prefixes = ConcurrentHashMap.newKeySet();
+  /**
+   * 前缀与已注册前缀重叠、使用 topic 消息的 cacheName
+   */
+  private final Set<String> untrackedCaches = ConcurrentHashMap.newKeySet();
+  /**
+   * 本节点写入、还没有收到通知的 redis key -> 写入次数
+   */
+  private final Cache<String, AtomicInteger> selfWrites = Caffeine.newBuilder()
+      .maximumSize(MAX_SELF_WRITES)
+      .expireAfterWrite(SELF_WRITE_WINDOW, TimeUnit.MILLISECONDS)
+      .build();
+  private volatile StatefulRedisConnection<String, String> connection;
+  /**
+   * 当前连接是否已经开启 tracking
+   */
+  private volatile boolean tracking;
+
+  public RedisTrackingInvalidationListener(RedisURI redisUri, RedisCaffeineCacheManager redisCaffeineCacheManager) {
+    this.client = RedisClient.create(redisUri);
+    this.client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP3).build());
+    this.redisCaffeineCacheManager = redisCaffeineCacheManager;
+    this.executor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "cache-tracking-invalidation");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * 建立连接并开启 tracking，失败时（如 redis 版本低于 6.0）保持 topic 模式
+   *
+   * @return 是否开启成功
+   */
+  public boolean start() {
+    try {
+      client.addListener(new ReconnectListener());
+      StatefulRedisConnection<String, String> conn = client.connect(StringCodec.UTF8);
+      conn.addListener(this::onPushMessage);
+      this.connection = conn;
+      if (!prefixes.isEmpty()) {
+        conn.sync().clientTracking(trackingArgs(prefixes));
+      }
+      this.tracking = true;
+      redisCaffeineCacheManager.setTrackingListener(this);
+      LOGGER.info("redis client tracking enabled, the prefixes are {}", prefixes);
+      return true;
+    } catch (RuntimeException e) {
+      LOGGER.warn("enable redis client tracking error, fall back to topic invalidation", e);
+      destroy();
+      return false;
+    }
+  }
+
+  /**
+   * 当前是否通过 tracking 接收通知；为 false 时写入方需要发送 topic 消息
+   */
+  public boolean isTracking() {
+    return tracking;
+  }
+
+  /**
+   * @param cacheName cacheName
+   * @return 当前是否通过 tracking 接收该缓存的通知；为 false 时写入方需要发送 topic 消息
+   */
+  public boolean isTracking(String cacheName) {
+    return tracking && !untrackedCaches.contains(cacheName);
+  }
+
+  /**
+   * 注册缓存需要 tracking 的 key 前缀，已注册的前缀忽略；与其他缓存的前缀重叠时不注册，该缓存继续使用 topic 消息
+   *
+   * @param cacheName   cacheName
+   * @param keyPrefixes key 前缀
+   * @return 是否开启了该缓存的 tracking
+   */
+  public synchronized boolean track(String cacheName, Collection<String> keyPrefixes) {
+    List<String> added = new ArrayList<>();
+    for (String prefix : keyPrefixes) {
+      if (prefixes.contains(prefix) || added.contains(prefix)) {
+        continue;
+      }
+      String overlapped = overlappedPrefix(prefix, prefixes);
+      if (overlapped == null) {
+        overlapped = overlappedPrefix(prefix, added);
+      }
+      if (overlapped != null) {
+        LOGGER.warn("redis client tracking prefix {} of cache {} overlaps with {}, use topic invalidation for the cache, "
+            + "configure spring.multi-cache.cache-prefix to avoid nested cache names", prefix, cacheName, overlapped);
+        untrackedCaches.add(cacheName);
+        return false;
+      }
+      added.add(prefix);
+    }
+    StatefulRedisConnection<String, String> conn = connection;
+    if (!added.isEmpty() && conn != null && tracking) {
+      // 已经开启 BCAST 的连接再次执行 CLIENT TRACKING ON 会追加前缀；同步执行，返回后本节点的写入一定会收到通知
+      try {
+        conn.sync().clientTracking(trackingArgs(added));
+      } catch (RuntimeException e) {
+        LOGGER.warn("add redis client tracking prefixes error, use topic invalidation for cache {}, the prefixes are {}",
+            cacheName, added, e);
+        untrackedCaches.add(cacheName);
+        return false;
+      }
+    }
+    prefixes.addAll(added);
+    return true;
+  }
+
+  /**
+   * @return others 中与 prefix 互相包含的前缀，没有时为 null
+   */
+  private static String overlappedPrefix(String prefix, Collection<String> others) {
+    for (String other : others) {
+      if (!other.equals(prefix) && (other.startsWith(prefix) || prefix.startsWith(other))) {
+        return other;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 本节点即将写入 redis key，收到该写入引起的通知时跳过一次；没有开启 tracking 时忽略
+   *
+   * @param redisKey redis key
+   */
+  public void expectWrite(String redisKey) {
+    if (tracking) {
+      selfWrites.asMap().computeIfAbsent(redisKey, key -> new AtomicInteger()).incrementAndGet();
+    }
+  }
+
+  /**
+   * 写入失败或没有实际写入，撤销 expectWrite
+   *
+   * @param redisKey redis key
+   */
+  public void cancelWrite(String redisKey) {
+    consumeWrite(redisKey);
+  }
+
+  /**
+   * @return 是否是本节点写入引起的通知
+   */
+  private boolean consumeWrite(String redisKey) {
+    AtomicInteger count = selfWrites.getIfPresent(redisKey);
+    if (count == null) {
+      return false;
+    }
+    int current;
+    do {
+      current = count.get();
+      if (current <= 0) {
+        return false;
+      }
+    } while (!count.compareAndSet(current, current - 1));
+    return true;
+  }
+
+  private static TrackingArgs trackingArgs(Collection<String> keyPrefixes) {
+    return TrackingArgs.Builder.enabled().bcast().prefixes(keyPrefixes.toArray(new String[0]));
+  }
+
+  private void onPushMessage(PushMessage message) {
+    if (!INVALIDATE.equals(message.getType())) {
+      return;
+    }
+    List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+    Object keys = content.size() > 1 ? content.get(1) : null;
+    executor.execute(() -> {
+      try {
+        if (keys instanceof Collection) {
+          List<String> redisKeys = new ArrayList<>();
+          for (Object key : (Collection<?>) keys) {
+            String redisKey = String.valueOf(key);
+            if (!consumeWrite(redisKey)) {
+              redisKeys.add(redisKey);
+            }
+          }
+          LOGGER.debug("receive a redis invalidate message, the keys size is {}", redisKeys.size());
+          if (!redisKeys.isEmpty()) {
+            redisCaffeineCacheManager.clearLocalByRedisKeys(redisKeys);
+          }
+        } else {
+          // FLUSHALL/FLUSHDB 时 keys 为 null
+          LOGGER.debug("receive a redis invalidate message without keys, clear all local cache");
+          redisCaffeineCacheManager.clearAllLocal();
+        }
+      } catch (Exception e) {
+        LOGGER.warn("clear local cache by redis invalidate message error", e);
+      }
+    });
+  }
+
+  @Override
+  public void destroy() {
+    tracking = false;
+    StatefulRedisConnection<String, String> conn = connection;
+    if (conn != null) {
+      conn.close();
+    }
+    client.shutdown(0, 2, TimeUnit.SECONDS);
+    executor.shutdownNow();
+  }
+
+  /**
+   * 连接断开时退回 topic 模式；重新连接后重新开启 tracking，并清除所有本地缓存
+   */
+  private class ReconnectListener implements RedisConnectionStateListener {
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> channel, SocketAddress socketAddress) {
+      StatefulRedisConnection<String, String> conn = connection;
+      if (conn == null || channel != conn) {
+        // 首次连接由 start 开启 tracking
+        return;
+      }
+      if (prefixes.isEmpty()) {
+        tracking = true;
+        return;
+      }
+      conn.async().clientTracking(trackingArgs(prefixes)).whenComplete((result, e) -> {
+        if (e != null) {
+          LOGGER.warn("re-enable redis client tracking error, keep topic invalidation", e);
+          return;
+        }
+        selfWrites.invalidateAll();
+        tracking = true;
+        LOGGER.info("redis client tracking re-enabled after reconnect, clear all local cache");
+        executor.execute(redisCaffeineCacheManager::clearAllLocal);
+      });
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> channel) {
+      if (channel == connection && tracking) {
+        tracking = false;
+        selfWrites.invalidateAll();
+        LOGGER.warn("redis client tracking connection lost, fall back to topic invalidation");
+      }
+    }
+
+    @Override
+    public void onRedisExceptionCaught(RedisChannelHandler<?, ?> channel, Throwable cause) {
+      LOGGER.debug("redis client tracking connection error", cause);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package org.example.multilevelcache.config;
+
+/**
+ * 从 redis（或堆外缓存）读取的缓存存储的值和版本号
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+final class RemoteValue {
+  /**
+   * 缓存存储的值
+   */
+  final Object value;
+  /**
+   * 版本号，没有开启 versioned 时为 0
+   */
+  final long version;
+  /**
+   * 去掉版本号后序列化的 value，用于放入堆外缓存，从堆外缓存读取时为 null
+   */
+  final byte[] raw;
+
+  RemoteValue(Object value, long version, byte[] raw) {
+    this.value = value;
+    this.version = version;
+    this.raw = raw;
+  }
+}
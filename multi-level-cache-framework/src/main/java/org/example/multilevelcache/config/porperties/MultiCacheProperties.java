@@ -2,8 +2,10 @@ package org.example.multilevelcache.config.porperties;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,8 +30,27 @@ public class MultiCacheProperties {
    * 缓存key的前缀
    */
   private String cachePrefix;
+  /**
+   * 回源加载（@Cacheable(sync = true)）时是否使用分布式锁，保证集群内只有一个节点加载同一个 key，默认false
+   */
+  private boolean distributedLoad = false;
+  /**
+   * 存在 Micrometer 时是否记录缓存指标，默认true
+   */
+  private boolean metricsEnabled = true;
   private Redis redis = new Redis();
   private Caffeine caffeine = new Caffeine();
+  /**
+   * 每个cacheName单独的配置，未配置的项使用全局配置
+   */
+  private Map<String, CacheConfig> caches = new HashMap<>();
+  private HotKey hotKey = new HotKey();
+  private KeyFilter keyFilter = new KeyFilter();
+  private Lock lock = new Lock();
+  private OffHeap offHeap = new OffHeap();
+  private Snapshot snapshot = new Snapshot();
+  private WarmUp warmUp = new WarmUp();
+  private Async async = new Async();
 
   public static class Redis {
     /**
@@ -42,11 +63,130 @@ public class MultiCacheProperties {
      */
     private Map<String, Long> expires = new HashMap<>();
 
+    /**
+     * 过期时间的随机抖动比例，写入 redis 的过期时间在 expiration ~ expiration * (1 + expirationJitter) 之间，
+     * 防止同一批写入的缓存同时过期，默认0不抖动
+     */
+    private double expirationJitter = 0;
+
     /**
      * 缓存更新时通知其他节点的topic名称
      */
     private String topic = "cache:redis:caffeine:topic";
 
+    /**
+     * 清除其他节点本地缓存的方式：topic（默认，写入方发送 topic 消息）、
+     * tracking（redis 6+ 的 RESP3 CLIENT TRACKING 广播模式，由 redis 通知 key 的变化，开启失败或连接断开时使用 topic）、
+     * stream（redis 5+ 的 stream，消息带连续的序号，连接断开后重放缺失的消息，超出保留范围时才清除所有本地缓存，所有节点需要同时开启）
+     */
+    private String invalidation = "topic";
+
+    /**
+     * invalidation 为 stream 时缓存更新消息的 stream 名称
+     */
+    private String stream = "cache:redis:caffeine:stream";
+
+    /**
+     * stream 保留的消息数（近似值），连接断开期间的消息超过该数量时清除所有本地缓存
+     */
+    private long streamMaxLength = 100000;
+
+    /**
+     * 每次从 stream 最多读取的消息数
+     */
+    private int streamReadCount = 500;
+
+    /**
+     * 每次读取 stream 的阻塞时间，单位毫秒，空闲时每隔该时间检查一次 stream 是否被重建
+     */
+    private long streamBlockTimeout = 2000;
+
+    /**
+     * 读取 stream 失败（如连接断开）后的重试间隔，单位毫秒
+     */
+    private long streamRetryInterval = 1000;
+
+    /**
+     * putIfAbsent 是否通过一次 lua 脚本原子执行，关闭时使用分布式锁 + GET + SET，默认true
+     */
+    private boolean atomicPutIfAbsent = true;
+
+    /**
+     * 是否为 redis 中的 value 记录单调递增的版本号（写入时通过 lua 脚本 INCR），缓存更新消息携带版本号，
+     * caffeine 不会写入比已知版本更旧的值。开启后 value 的格式改变，所有节点需要同时开启，默认false
+     */
+    private boolean versioned = false;
+
+    /**
+     * 开启 versioned 时，本节点记录每个 key 已知最新版本号的时间，单位毫秒
+     */
+    private long versionRetention = 60000;
+
+    /**
+     * 缓存 value 的序列化方式：json（默认）、kryo，或 RedisSerializer 实现类的全类名
+     */
+    private String valueSerializer = "json";
+
+    /**
+     * kryo 注册模式需要注册的类（全类名），配置后序列化结果中不再写入类名，各节点的配置顺序必须一致
+     */
+    private List<String> registeredClasses = new ArrayList<>();
+
+    /**
+     * 全局的 value 压缩阈值，序列化后超过该字节数时使用 LZ4 压缩，单位字节，默认0不压缩
+     */
+    private int defaultCompressThreshold = 0;
+
+    /**
+     * 每个cacheName的 value 压缩阈值，单位字节，优先级比defaultCompressThreshold高
+     */
+    private Map<String, Integer> compressThresholds = new HashMap<>();
+
+    /**
+     * 是否合并发送缓存更新消息（在后台线程按时间窗口合并），默认false
+     */
+    private boolean batchPublish = false;
+
+    /**
+     * 合并发送的时间窗口，单位毫秒
+     */
+    private long publishInterval = 5;
+
+    /**
+     * 合并发送时单条消息最多携带的 key 数量，缓冲达到该数量时立即发送
+     */
+    private int publishBatchSize = 500;
+
+    /**
+     * 合并发送时单个 cacheName 最多缓冲的 key 数量，超过后退化为清除整个 cacheName 的本地缓存
+     */
+    private int publishQueueCapacity = 10000;
+
+    /**
+     * 是否使用 generation 命名空间：generation 嵌入到 redis key 中，clear 时只递增 generation，默认false
+     */
+    private boolean generationNamespace = false;
+
+    /**
+     * 重新从 redis 读取 generation 的间隔（防止错过 clear 消息），单位毫秒
+     */
+    private long generationRefreshInterval = 10000;
+
+    /**
+     * clear 后是否在后台清理旧 generation 的 key，不开启时旧 key 只能依赖过期时间清理
+     */
+    private boolean sweepStaleGenerations = true;
+
+    /**
+     * 清理 redis key 时每批 SCAN/UNLINK 的数量
+     */
+    private int sweepBatchSize = 500;
+
+    /**
+     * 清理 redis key 时每批之间的暂停时间，单位毫秒
+     */
+    private long sweepInterval = 100;
+
     public long getDefaultExpiration() {
       return defaultExpiration;
     }
@@ -63,6 +203,14 @@ public class MultiCacheProperties {
       this.expires = expires;
     }
 
+    public double getExpirationJitter() {
+      return expirationJitter;
+    }
+
+    public void setExpirationJitter(double expirationJitter) {
+      this.expirationJitter = expirationJitter;
+    }
+
     public String getTopic() {
       return topic;
     }
@@ -70,6 +218,182 @@ public class MultiCacheProperties {
     public void setTopic(String topic) {
       this.topic = topic;
     }
+
+    public String getInvalidation() {
+      return invalidation;
+    }
+
+    public void setInvalidation(String invalidation) {
+      this.invalidation = invalidation;
+    }
+
+    public String getStream() {
+      return stream;
+    }
+
+    public void setStream(String stream) {
+      this.stream = stream;
+    }
+
+    public long getStreamMaxLength() {
+      return streamMaxLength;
+    }
+
+    public void setStreamMaxLength(long streamMaxLength) {
+      this.streamMaxLength = streamMaxLength;
+    }
+
+    public int getStreamReadCount() {
+      return streamReadCount;
+    }
+
+    public void setStreamReadCount(int streamReadCount) {
+      this.streamReadCount = streamReadCount;
+    }
+
+    public long getStreamBlockTimeout() {
+      return streamBlockTimeout;
+    }
+
+    public void setStreamBlockTimeout(long streamBlockTimeout) {
+      this.streamBlockTimeout = streamBlockTimeout;
+    }
+
+    public long getStreamRetryInterval() {
+      return streamRetryInterval;
+    }
+
+    public void setStreamRetryInterval(long streamRetryInterval) {
+      this.streamRetryInterval = streamRetryInterval;
+    }
+
+    public boolean isAtomicPutIfAbsent() {
+      return atomicPutIfAbsent;
+    }
+
+    public void setAtomicPutIfAbsent(boolean atomicPutIfAbsent) {
+      this.atomicPutIfAbsent = atomicPutIfAbsent;
+    }
+
+    public boolean isVersioned() {
+      return versioned;
+    }
+
+    public void setVersioned(boolean versioned) {
+      this.versioned = versioned;
+    }
+
+    public long getVersionRetention() {
+      return versionRetention;
+    }
+
+    public void setVersionRetention(long versionRetention) {
+      this.versionRetention = versionRetention;
+    }
+
+    public String getValueSerializer() {
+      return valueSerializer;
+    }
+
+    public void setValueSerializer(String valueSerializer) {
+      this.valueSerializer = valueSerializer;
+    }
+
+    public List<String> getRegisteredClasses() {
+      return registeredClasses;
+    }
+
+    public void setRegisteredClasses(List<String> registeredClasses) {
+      this.registeredClasses = registeredClasses;
+    }
+
+    public int getDefaultCompressThreshold() {
+      return defaultCompressThreshold;
+    }
+
+    public void setDefaultCompressThreshold(int defaultCompressThreshold) {
+      this.defaultCompressThreshold = defaultCompressThreshold;
+    }
+
+    public Map<String, Integer> getCompressThresholds() {
+      return compressThresholds;
+    }
+
+    public void setCompressThresholds(Map<String, Integer> compressThresholds) {
+      this.compressThresholds = compressThresholds;
+    }
+
+    public boolean isBatchPublish() {
+      return batchPublish;
+    }
+
+    public void setBatchPublish(boolean batchPublish) {
+      this.batchPublish = batchPublish;
+    }
+
+    public long getPublishInterval() {
+      return publishInterval;
+    }
+
+    public void setPublishInterval(long publishInterval) {
+      this.publishInterval = publishInterval;
+    }
+
+    public int getPublishBatchSize() {
+      return publishBatchSize;
+    }
+
+    public void setPublishBatchSize(int publishBatchSize) {
+      this.publishBatchSize = publishBatchSize;
+    }
+
+    public int getPublishQueueCapacity() {
+      return publishQueueCapacity;
+    }
+
+    public void setPublishQueueCapacity(int publishQueueCapacity) {
+      this.publishQueueCapacity = publishQueueCapacity;
+    }
+
+    public boolean isGenerationNamespace() {
+      return generationNamespace;
+    }
+
+    public void setGenerationNamespace(boolean generationNamespace) {
+      this.generationNamespace = generationNamespace;
+    }
+
+    public long getGenerationRefreshInterval() {
+      return generationRefreshInterval;
+    }
+
+    public void setGenerationRefreshInterval(long generationRefreshInterval) {
+      this.generationRefreshInterval = generationRefreshInterval;
+    }
+
+    public boolean isSweepStaleGenerations() {
+      return sweepStaleGenerations;
+    }
+
+    public void setSweepStaleGenerations(boolean sweepStaleGenerations) {
+      this.sweepStaleGenerations = sweepStaleGenerations;
+    }
+
+    public int getSweepBatchSize() {
+      return sweepBatchSize;
+    }
+
+    public void setSweepBatchSize(int sweepBatchSize) {
+      this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public long getSweepInterval() {
+      return sweepInterval;
+    }
+
+    public void setSweepInterval(long sweepInterval) {
+      this.sweepInterval = sweepInterval;
+    }
   }
 
   /**
@@ -88,6 +412,10 @@ public class MultiCacheProperties {
      * 写入后刷新时间，单位毫秒
      */
     private long refreshAfterWrite;
+    /**
+     * 异步刷新时 redis 中没有缓存，是否调用原始的回源方法（@Cacheable(sync = true) 的方法）重新加载，默认false
+     */
+    private boolean refreshFromLoader = false;
     /**
      * 初始化大小
      */
@@ -96,9 +424,10 @@ public class MultiCacheProperties {
      * 最大缓存对象个数，超过此数量时之前放入的缓存将失效
      */
     private long maximumSize;
-
-    /** 由于权重需要缓存对象来提供，对于使用spring cache这种场景不是很适合，所以暂不支持配置*/
-    // private long maximumWeight;
+    /**
+     * 最大权重，配置后 maximumSize 不生效；权重为集合、数组、字符串的元素个数，其他对象为 1
+     */
+    private long maximumWeight;
 
     public long getExpireAfterAccess() {
       return expireAfterAccess;
@@ -124,6 +453,14 @@ public class MultiCacheProperties {
       this.refreshAfterWrite = refreshAfterWrite;
     }
 
+    public boolean isRefreshFromLoader() {
+      return refreshFromLoader;
+    }
+
+    public void setRefreshFromLoader(boolean refreshFromLoader) {
+      this.refreshFromLoader = refreshFromLoader;
+    }
+
     public int getInitialCapacity() {
       return initialCapacity;
     }
@@ -139,53 +476,887 @@ public class MultiCacheProperties {
     public void setMaximumSize(long maximumSize) {
       this.maximumSize = maximumSize;
     }
-  }
 
-  public Set<String> getCacheNames() {
-    return cacheNames;
-  }
+    public long getMaximumWeight() {
+      return maximumWeight;
+    }
 
-  public void setCacheNames(Set<String> cacheNames) {
-    this.cacheNames = cacheNames;
+    public void setMaximumWeight(long maximumWeight) {
+      this.maximumWeight = maximumWeight;
+    }
   }
 
-  public boolean isCacheNullValues() {
-    return cacheNullValues;
-  }
+  /**
+   * 热点 key 检测
+   */
+  public static class HotKey {
+    /**
+     * 是否检测热点 key，默认false
+     */
+    private boolean enabled = false;
+    /**
+     * 记录访问频率最高的 key 个数
+     */
+    private int topK = 100;
+    /**
+     * 每访问多少次所有频率减半
+     */
+    private int sampleSize = 100000;
+    /**
+     * 成为热点 key 的最小访问频率
+     */
+    private int minFrequency = 32;
+    /**
+     * 热点 key 收到缓存更新消息时，是否在随机延迟后从 redis 刷新而不是直接清除本地缓存，默认true
+     */
+    private boolean refreshOnInvalidation = true;
+    /**
+     * 刷新的最大随机延迟，单位毫秒，延迟期间本节点继续返回旧值
+     */
+    private long refreshJitter = 100;
 
-  public void setCacheNullValues(boolean cacheNullValues) {
-    this.cacheNullValues = cacheNullValues;
-  }
+    public boolean isEnabled() {
+      return enabled;
+    }
 
-  public boolean isDynamic() {
-    return dynamic;
-  }
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
 
-  public void setDynamic(boolean dynamic) {
-    this.dynamic = dynamic;
-  }
+    public int getTopK() {
+      return topK;
+    }
 
-  public String getCachePrefix() {
-    return cachePrefix;
-  }
+    public void setTopK(int topK) {
+      this.topK = topK;
+    }
 
-  public void setCachePrefix(String cachePrefix) {
-    this.cachePrefix = cachePrefix;
-  }
+    public int getSampleSize() {
+      return sampleSize;
+    }
 
-  public Redis getRedis() {
-    return redis;
-  }
+    public void setSampleSize(int sampleSize) {
+      this.sampleSize = sampleSize;
+    }
 
-  public void setRedis(Redis redis) {
-    this.redis = redis;
-  }
+    public int getMinFrequency() {
+      return minFrequency;
+    }
 
-  public Caffeine getCaffeine() {
-    return caffeine;
+    public void setMinFrequency(int minFrequency) {
+      this.minFrequency = minFrequency;
+    }
+
+    public boolean isRefreshOnInvalidation() {
+      return refreshOnInvalidation;
+    }
+
+    public void setRefreshOnInvalidation(boolean refreshOnInvalidation) {
+      this.refreshOnInvalidation = refreshOnInvalidation;
+    }
+
+    public long getRefreshJitter() {
+      return refreshJitter;
+    }
+
+    public void setRefreshJitter(long refreshJitter) {
+      this.refreshJitter = refreshJitter;
+    }
   }
 
-  public void setCaffeine(Caffeine caffeine) {
-    this.caffeine = caffeine;
+  /**
+   * key 的存在性过滤（布隆过滤器），防止缓存穿透
+   */
+  public static class KeyFilter {
+    /**
+     * 过滤器类型：none（默认）、local（每个节点一个本地布隆过滤器，只跳过 redis，不存在的 key 仍然回源）、
+     * redis（集群共享的 redisson 布隆过滤器，不存在的 key 直接返回 null，不访问 redis 也不回源）
+     */
+    private String type = "none";
+    /**
+     * 预计的 key 数量
+     */
+    private long expectedInsertions = 1000000;
+    /**
+     * 误判率
+     */
+    private double fpp = 0.01;
+
+    public String getType() {
+      return type;
+    }
+
+    public void setType(String type) {
+      this.type = type;
+    }
+
+    public long getExpectedInsertions() {
+      return expectedInsertions;
+    }
+
+    public void setExpectedInsertions(long expectedInsertions) {
+      this.expectedInsertions = expectedInsertions;
+    }
+
+    public double getFpp() {
+      return fpp;
+    }
+
+    public void setFpp(double fpp) {
+      this.fpp = fpp;
+    }
+  }
+
+  /**
+   * 异步接口（getAsync、putAsync 等）使用的线程池，执行阻塞的 redis 命令和 redis 返回后的反序列化、写入本地缓存
+   */
+  public static class Async {
+    /**
+     * 线程数
+     */
+    private int threads = 8;
+    /**
+     * 队列长度，队列已满时异步操作以 RejectedExecutionException 失败
+     */
+    private int queueCapacity = 10000;
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+  }
+
+  /**
+   * 分布式锁（回源、刷新和非原子的 putIfAbsent 使用）
+   */
+  public static class Lock {
+    /**
+     * 获取锁的最长等待时间，单位毫秒，超时后回源不再等待锁
+     */
+    private long waitTime = 3000;
+    /**
+     * 锁的过期时间，单位毫秒
+     */
+    private long leaseTime = 30000;
+
+    public long getWaitTime() {
+      return waitTime;
+    }
+
+    public void setWaitTime(long waitTime) {
+      this.waitTime = waitTime;
+    }
+
+    public long getLeaseTime() {
+      return leaseTime;
+    }
+
+    public void setLeaseTime(long leaseTime) {
+      this.leaseTime = leaseTime;
+    }
+  }
+
+  /**
+   * caffeine 与 redis 之间的堆外缓存，存储序列化后的 value
+   */
+  public static class OffHeap {
+    /**
+     * 是否开启堆外缓存，默认false
+     */
+    private boolean enabled = false;
+    /**
+     * 每个cacheName的堆外缓存容量，单位字节，受 -XX:MaxDirectMemorySize 限制
+     */
+    private long capacity = 256L * 1024 * 1024;
+    /**
+     * 每次向操作系统申请的内存块大小，单位字节，也是单个 value 的最大字节数
+     */
+    private int slabSize = 1024 * 1024;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(long capacity) {
+      this.capacity = capacity;
+    }
+
+    public int getSlabSize() {
+      return slabSize;
+    }
+
+    public void setSlabSize(int slabSize) {
+      this.slabSize = slabSize;
+    }
+  }
+
+  /**
+   * 本地缓存快照：关闭时将每个cacheName最热的 caffeine 缓存写入本地文件，重启后校验 redis 后恢复
+   */
+  public static class Snapshot {
+    /**
+     * 是否开启快照，默认false
+     */
+    private boolean enabled = false;
+    /**
+     * 快照文件路径
+     */
+    private String path = "multi-cache-snapshot.bin";
+    /**
+     * 每个cacheName最多写入的缓存个数
+     */
+    private int maxEntries = 10000;
+    /**
+     * 快照超过该时间（单位毫秒）不再恢复
+     */
+    private long maxAge = 3600000;
+    /**
+     * 恢复快照的线程数
+     */
+    private int restoreThreads = 4;
+    /**
+     * 每批校验的 key 个数，一批通过一次 pipeline 校验
+     */
+    private int batchSize = 500;
+    /**
+     * 是否在应用就绪之前等待恢复完成，关闭时在后台恢复
+     */
+    private boolean waitForRestore = false;
+    /**
+     * 等待恢复完成的最长时间，单位毫秒
+     */
+    private long restoreTimeout = 30000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public void setPath(String path) {
+      this.path = path;
+    }
+
+    public int getMaxEntries() {
+      return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+    }
+
+    public long getMaxAge() {
+      return maxAge;
+    }
+
+    public void setMaxAge(long maxAge) {
+      this.maxAge = maxAge;
+    }
+
+    public int getRestoreThreads() {
+      return restoreThreads;
+    }
+
+    public void setRestoreThreads(int restoreThreads) {
+      this.restoreThreads = restoreThreads;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public boolean isWaitForRestore() {
+      return waitForRestore;
+    }
+
+    public void setWaitForRestore(boolean waitForRestore) {
+      this.waitForRestore = waitForRestore;
+    }
+
+    public long getRestoreTimeout() {
+      return restoreTimeout;
+    }
+
+    public void setRestoreTimeout(long restoreTimeout) {
+      this.restoreTimeout = restoreTimeout;
+    }
+  }
+
+  /**
+   * 启动预热：SCAN 每个cacheName的 redis key，分批 MGET 后写入 caffeine
+   */
+  public static class WarmUp {
+    /**
+     * 是否开启启动预热，默认false
+     */
+    private boolean enabled = false;
+    /**
+     * 需要预热的cacheName，为空时预热 cacheNames 中的所有缓存
+     */
+    private Set<String> cacheNames = new HashSet<>();
+    /**
+     * 执行 MGET 的线程数
+     */
+    private int threads = 4;
+    /**
+     * 每批 SCAN/MGET 的 key 个数
+     */
+    private int batchSize = 500;
+    /**
+     * 预热写入的 value 序列化后的字节数之和的上限
+     */
+    private long maxBytes = 256L * 1024 * 1024;
+    /**
+     * 预热的最长时间，单位毫秒，超时后应用直接就绪
+     */
+    private long timeout = 30000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public Set<String> getCacheNames() {
+      return cacheNames;
+    }
+
+    public void setCacheNames(Set<String> cacheNames) {
+      this.cacheNames = cacheNames;
+    }
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    public long getTimeout() {
+      return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+      this.timeout = timeout;
+    }
+  }
+
+  /**
+   * 单个cacheName的配置，为 null 的项使用全局配置
+   */
+  public static class CacheConfig {
+    /**
+     * 是否存储空值
+     */
+    private Boolean cacheNullValues;
+    /**
+     * 是否开启 caffeine 本地缓存
+     */
+    private Boolean localEnabled;
+    /**
+     * 是否开启 redis 缓存，关闭后只使用 caffeine，更新时仍然通知其他节点
+     */
+    private Boolean remoteEnabled;
+    /**
+     * 是否检测热点 key
+     */
+    private Boolean hotKeyEnabled;
+    /**
+     * key 过滤器类型：none、local、redis
+     */
+    private String keyFilter;
+    /**
+     * key 过滤器预计的 key 数量
+     */
+    private Long keyFilterExpectedInsertions;
+    /**
+     * redis 过期时间，单位毫秒
+     */
+    private Long expiration;
+    /**
+     * redis 过期时间的随机抖动比例
+     */
+    private Double expirationJitter;
+    /**
+     * value 压缩阈值，单位字节
+     */
+    private Integer compressThreshold;
+    /**
+     * caffeine 访问后过期时间，单位毫秒
+     */
+    private Long expireAfterAccess;
+    /**
+     * caffeine 写入后过期时间，单位毫秒
+     */
+    private Long expireAfterWrite;
+    /**
+     * caffeine 写入后刷新时间，单位毫秒
+     */
+    private Long refreshAfterWrite;
+    /**
+     * 异步刷新时 redis 中没有缓存，是否调用原始的回源方法重新加载
+     */
+    private Boolean refreshFromLoader;
+    /**
+     * caffeine 初始化大小
+     */
+    private Integer initialCapacity;
+    /**
+     * caffeine 最大缓存对象个数；与 maximumWeight 作为一个整体覆盖全局配置，配置其中一个时不使用全局的另一个
+     */
+    private Long maximumSize;
+    /**
+     * caffeine 最大权重；与 maximumSize 作为一个整体覆盖全局配置
+     */
+    private Long maximumWeight;
+    /**
+     * 是否开启堆外缓存
+     */
+    private Boolean offHeapEnabled;
+    /**
+     * 堆外缓存容量，单位字节
+     */
+    private Long offHeapCapacity;
+
+    public Boolean getCacheNullValues() {
+      return cacheNullValues;
+    }
+
+    public void setCacheNullValues(Boolean cacheNullValues) {
+      this.cacheNullValues = cacheNullValues;
+    }
+
+    public Boolean getLocalEnabled() {
+      return localEnabled;
+    }
+
+    public void setLocalEnabled(Boolean localEnabled) {
+      this.localEnabled = localEnabled;
+    }
+
+    public Boolean getRemoteEnabled() {
+      return remoteEnabled;
+    }
+
+    public void setRemoteEnabled(Boolean remoteEnabled) {
+      this.remoteEnabled = remoteEnabled;
+    }
+
+    public Boolean getHotKeyEnabled() {
+      return hotKeyEnabled;
+    }
+
+    public void setHotKeyEnabled(Boolean hotKeyEnabled) {
+      this.hotKeyEnabled = hotKeyEnabled;
+    }
+
+    public String getKeyFilter() {
+      return keyFilter;
+    }
+
+    public void setKeyFilter(String keyFilter) {
+      this.keyFilter = keyFilter;
+    }
+
+    public Long getKeyFilterExpectedInsertions() {
+      return keyFilterExpectedInsertions;
+    }
+
+    public void setKeyFilterExpectedInsertions(Long keyFilterExpectedInsertions) {
+      this.keyFilterExpectedInsertions = keyFilterExpectedInsertions;
+    }
+
+    public Long getExpiration() {
+      return expiration;
+    }
+
+    public void setExpiration(Long expiration) {
+      this.expiration = expiration;
+    }
+
+    public Double getExpirationJitter() {
+      return expirationJitter;
+    }
+
+    public void setExpirationJitter(Double expirationJitter) {
+      this.expirationJitter = expirationJitter;
+    }
+
+    public Integer getCompressThreshold() {
+      return compressThreshold;
+    }
+
+    public void setCompressThreshold(Integer compressThreshold) {
+      this.compressThreshold = compressThreshold;
+    }
+
+    public Long getExpireAfterAccess() {
+      return expireAfterAccess;
+    }
+
+    public void setExpireAfterAccess(Long expireAfterAccess) {
+      this.expireAfterAccess = expireAfterAccess;
+    }
+
+    public Long getExpireAfterWrite() {
+      return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Long expireAfterWrite) {
+      this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public Long getRefreshAfterWrite() {
+      return refreshAfterWrite;
+    }
+
+    public void setRefreshAfterWrite(Long refreshAfterWrite) {
+      this.refreshAfterWrite = refreshAfterWrite;
+    }
+
+    public Boolean getRefreshFromLoader() {
+      return refreshFromLoader;
+    }
+
+    public void setRefreshFromLoader(Boolean refreshFromLoader) {
+      this.refreshFromLoader = refreshFromLoader;
+    }
+
+    public Integer getInitialCapacity() {
+      return initialCapacity;
+    }
+
+    public void setInitialCapacity(Integer initialCapacity) {
+      this.initialCapacity = initialCapacity;
+    }
+
+    public Long getMaximumSize() {
+      return maximumSize;
+    }
+
+    public void setMaximumSize(Long maximumSize) {
+      this.maximumSize = maximumSize;
+    }
+
+    public Long getMaximumWeight() {
+      return maximumWeight;
+    }
+
+    public void setMaximumWeight(Long maximumWeight) {
+      this.maximumWeight = maximumWeight;
+    }
+
+    public Boolean getOffHeapEnabled() {
+      return offHeapEnabled;
+    }
+
+    public void setOffHeapEnabled(Boolean offHeapEnabled) {
+      this.offHeapEnabled = offHeapEnabled;
+    }
+
+    public Long getOffHeapCapacity() {
+      return offHeapCapacity;
+    }
+
+    public void setOffHeapCapacity(Long offHeapCapacity) {
+      this.offHeapCapacity = offHeapCapacity;
+    }
+  }
+
+  /**
+   * cacheName 的单独配置，没有时返回空配置
+   */
+  public CacheConfig getCacheConfig(String cacheName) {
+    CacheConfig config = caches.get(cacheName);
+    return config == null ? new CacheConfig() : config;
+  }
+
+  /**
+   * cacheName 生效的 caffeine 配置：单独配置覆盖全局配置
+   * <p>
+   * maximumSize 和 maximumWeight 是同一个容量上限的两种方式，作为一个整体解析：单独配置了其中任意一个时，
+   * 只使用单独配置的上限，不再使用全局的 maximumSize 和 maximumWeight
+   */
+  public Caffeine getCaffeine(String cacheName) {
+    CacheConfig config = getCacheConfig(cacheName);
+    Caffeine result = new Caffeine();
+    result.setExpireAfterAccess(valueOf(config.getExpireAfterAccess(), caffeine.getExpireAfterAccess()));
+    result.setExpireAfterWrite(valueOf(config.getExpireAfterWrite(), caffeine.getExpireAfterWrite()));
+    result.setRefreshAfterWrite(valueOf(config.getRefreshAfterWrite(), caffeine.getRefreshAfterWrite()));
+    result.setRefreshFromLoader(valueOf(config.getRefreshFromLoader(), caffeine.isRefreshFromLoader()));
+    result.setInitialCapacity(valueOf(config.getInitialCapacity(), caffeine.getInitialCapacity()));
+    if (config.getMaximumSize() != null || config.getMaximumWeight() != null) {
+      result.setMaximumSize(valueOf(config.getMaximumSize(), 0L));
+      result.setMaximumWeight(valueOf(config.getMaximumWeight(), 0L));
+    } else {
+      result.setMaximumSize(caffeine.getMaximumSize());
+      result.setMaximumWeight(caffeine.getMaximumWeight());
+    }
+    return result;
+  }
+
+  /**
+   * cacheName 是否存储空值
+   */
+  public boolean isCacheNullValues(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getCacheNullValues(), cacheNullValues);
+  }
+
+  /**
+   * cacheName 是否开启 caffeine 本地缓存，默认开启
+   */
+  public boolean isLocalEnabled(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getLocalEnabled(), true);
+  }
+
+  /**
+   * cacheName 是否开启 redis 缓存，默认开启
+   */
+  public boolean isRemoteEnabled(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getRemoteEnabled(), true);
+  }
+
+  /**
+   * cacheName 是否检测热点 key
+   */
+  public boolean isHotKeyEnabled(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getHotKeyEnabled(), hotKey.isEnabled());
+  }
+
+  /**
+   * cacheName 的 key 过滤器类型
+   */
+  public String getKeyFilterType(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getKeyFilter(), keyFilter.getType());
+  }
+
+  /**
+   * cacheName 的 key 过滤器预计的 key 数量
+   */
+  public long getKeyFilterExpectedInsertions(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getKeyFilterExpectedInsertions(), keyFilter.getExpectedInsertions());
+  }
+
+  /**
+   * cacheName 是否开启堆外缓存，关闭 caffeine 时不开启
+   */
+  public boolean isOffHeapEnabled(String cacheName) {
+    return isLocalEnabled(cacheName) && valueOf(getCacheConfig(cacheName).getOffHeapEnabled(), offHeap.isEnabled());
+  }
+
+  /**
+   * cacheName 的堆外缓存容量
+   */
+  public long getOffHeapCapacity(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getOffHeapCapacity(), offHeap.getCapacity());
+  }
+
+  /**
+   * cacheName 的 redis 过期时间：caches > redis.expires > redis.defaultExpiration
+   */
+  public long getExpiration(String cacheName) {
+    Long expiration = getCacheConfig(cacheName).getExpiration();
+    if (expiration == null) {
+      expiration = redis.getExpires().get(cacheName);
+    }
+    return valueOf(expiration, redis.getDefaultExpiration());
+  }
+
+  /**
+   * cacheName 的 redis 过期时间的随机抖动比例
+   */
+  public double getExpirationJitter(String cacheName) {
+    return valueOf(getCacheConfig(cacheName).getExpirationJitter(), redis.getExpirationJitter());
+  }
+
+  /**
+   * cacheName 的 value 压缩阈值：caches > redis.compressThresholds > redis.defaultCompressThreshold
+   */
+  public int getCompressThreshold(String cacheName) {
+    Integer threshold = getCacheConfig(cacheName).getCompressThreshold();
+    if (threshold == null) {
+      threshold = redis.getCompressThresholds().get(cacheName);
+    }
+    return valueOf(threshold, redis.getDefaultCompressThreshold());
+  }
+
+  private static <T> T valueOf(T value, T defaultValue) {
+    return value == null ? defaultValue : value;
+  }
+
+  public Set<String> getCacheNames() {
+    return cacheNames;
+  }
+
+  public void setCacheNames(Set<String> cacheNames) {
+    this.cacheNames = cacheNames;
+  }
+
+  public boolean isCacheNullValues() {
+    return cacheNullValues;
+  }
+
+  public void setCacheNullValues(boolean cacheNullValues) {
+    this.cacheNullValues = cacheNullValues;
+  }
+
+  public boolean isDynamic() {
+    return dynamic;
+  }
+
+  public void setDynamic(boolean dynamic) {
+    this.dynamic = dynamic;
+  }
+
+  public String getCachePrefix() {
+    return cachePrefix;
+  }
+
+  public void setCachePrefix(String cachePrefix) {
+    this.cachePrefix = cachePrefix;
+  }
+
+  public boolean isDistributedLoad() {
+    return distributedLoad;
+  }
+
+  public void setDistributedLoad(boolean distributedLoad) {
+    this.distributedLoad = distributedLoad;
+  }
+
+  public boolean isMetricsEnabled() {
+    return metricsEnabled;
+  }
+
+  public void setMetricsEnabled(boolean metricsEnabled) {
+    this.metricsEnabled = metricsEnabled;
+  }
+
+  public Redis getRedis() {
+    return redis;
+  }
+
+  public void setRedis(Redis redis) {
+    this.redis = redis;
+  }
+
+  public Caffeine getCaffeine() {
+    return caffeine;
+  }
+
+  public void setCaffeine(Caffeine caffeine) {
+    this.caffeine = caffeine;
+  }
+
+  public HotKey getHotKey() {
+    return hotKey;
+  }
+
+  public void setHotKey(HotKey hotKey) {
+    this.hotKey = hotKey;
+  }
+
+  public KeyFilter getKeyFilter() {
+    return keyFilter;
+  }
+
+  public void setKeyFilter(KeyFilter keyFilter) {
+    this.keyFilter = keyFilter;
+  }
+
+  public Async getAsync() {
+    return async;
+  }
+
+  public void setAsync(Async async) {
+    this.async = async;
+  }
+
+  public Lock getLock() {
+    return lock;
+  }
+
+  public void setLock(Lock lock) {
+    this.lock = lock;
+  }
+
+  public OffHeap getOffHeap() {
+    return offHeap;
+  }
+
+  public void setOffHeap(OffHeap offHeap) {
+    this.offHeap = offHeap;
+  }
+
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  public void setSnapshot(Snapshot snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public WarmUp getWarmUp() {
+    return warmUp;
+  }
+
+  public void setWarmUp(WarmUp warmUp) {
+    this.warmUp = warmUp;
+  }
+
+  public Map<String, CacheConfig> getCaches() {
+    return caches;
+  }
+
+  public void setCaches(Map<String, CacheConfig> caches) {
+    this.caches = caches;
   }
 }
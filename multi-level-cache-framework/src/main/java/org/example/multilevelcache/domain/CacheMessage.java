@@ -1,6 +1,9 @@
 package org.example.multilevelcache.domain;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * 用于缓存更新消息，Redis消息发布/订阅
@@ -12,6 +15,11 @@ public class CacheMessage implements Serializable {
 
   private static final long serialVersionUID = 5987219310442078193L;
 
+  /**
+   * 当前 JVM 实例的唯一标识，用于识别自己发出的消息
+   */
+  public static final String INSTANCE_ID = UUID.randomUUID().toString();
+
   /**
    * 缓存名称
    */
@@ -20,6 +28,27 @@ public class CacheMessage implements Serializable {
    * 缓存的key
    */
   private Object key;
+  /**
+   * 批量操作时的多个缓存key，不为空时优先于 key 使用
+   * （此时 key 为 null，不识别 keys 的旧节点会退化为清除整个 cacheName 的本地缓存）
+   */
+  private Collection<Object> keys;
+  /**
+   * 开启 versioned 时 key 写入或删除后的版本号
+   */
+  private Long version;
+  /**
+   * 开启 versioned 时与 keys 顺序一致的版本号，元素可能为 null
+   */
+  private List<Long> versions;
+  /**
+   * 发送消息的实例标识
+   */
+  private String origin;
+  /**
+   * clear 后新的 generation（开启 generationNamespace 时）
+   */
+  private Long generation;
 
   public CacheMessage() {
   }
@@ -28,6 +57,7 @@ public class CacheMessage implements Serializable {
     super();
     this.cacheName = cacheName;
     this.key = key;
+    this.origin = INSTANCE_ID;
   }
 
   public String getCacheName() {
@@ -45,4 +75,44 @@ public class CacheMessage implements Serializable {
   public void setKey(Object key) {
     this.key = key;
   }
+
+  public Collection<Object> getKeys() {
+    return keys;
+  }
+
+  public void setKeys(Collection<Object> keys) {
+    this.keys = keys;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  public List<Long> getVersions() {
+    return versions;
+  }
+
+  public void setVersions(List<Long> versions) {
+    this.versions = versions;
+  }
+
+  public String getOrigin() {
+    return origin;
+  }
+
+  public void setOrigin(String origin) {
+    this.origin = origin;
+  }
+
+  public Long getGeneration() {
+    return generation;
+  }
+
+  public void setGeneration(Long generation) {
+    this.generation = generation;
+  }
 }
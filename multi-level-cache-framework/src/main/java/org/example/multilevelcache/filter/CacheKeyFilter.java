@@ -0,0 +1,44 @@
+package org.example.multilevelcache.filter;
+
+import java.util.Collection;
+
+/**
+ * 缓存 key 的存在性过滤器，用于防止缓存穿透：一定不存在的 key 在访问 redis 和回源之前直接返回 null
+ * <p>
+ * 只能添加不能删除，mightContain 返回 false 时 key 一定没有添加过
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public interface CacheKeyFilter {
+  /**
+   * key 是否可能存在
+   *
+   * @param key key
+   * @return false 时 key 一定不存在
+   */
+  boolean mightContain(Object key);
+
+  /**
+   * 添加存在的 key
+   *
+   * @param key key
+   */
+  void put(Object key);
+
+  /**
+   * 批量添加存在的 key
+   *
+   * @param keys keys
+   */
+  default void putAll(Collection<?> keys) {
+    keys.forEach(this::put);
+  }
+
+  /**
+   * 是否在节点之间共享，不共享时需要根据其他节点的缓存更新消息同步添加 key
+   *
+   * @return 是否共享
+   */
+  boolean isShared();
+}
@@ -0,0 +1,47 @@
+package org.example.multilevelcache.filter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.redisson.api.RedissonClient;
+
+/**
+ * 根据配置为 cacheName 创建 CacheKeyFilter
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CacheKeyFilterFactory {
+  public static final String NONE = "none";
+  public static final String LOCAL = "local";
+  public static final String REDIS = "redis";
+
+  private final MultiCacheProperties properties;
+  private final RedissonClient redissonClient;
+
+  public CacheKeyFilterFactory(MultiCacheProperties properties, RedissonClient redissonClient) {
+    this.properties = properties;
+    this.redissonClient = redissonClient;
+  }
+
+  /**
+   * @param cacheName cacheName
+   * @return 未开启时为 null
+   */
+  public CacheKeyFilter create(String cacheName) {
+    String type = properties.getKeyFilterType(cacheName);
+    long expectedInsertions = properties.getKeyFilterExpectedInsertions(cacheName);
+    double fpp = properties.getKeyFilter().getFpp();
+    if (LOCAL.equalsIgnoreCase(type)) {
+      return new LocalBloomFilter(expectedInsertions, fpp);
+    }
+    if (REDIS.equalsIgnoreCase(type)) {
+      String cachePrefix = properties.getCachePrefix();
+      String namespace = StringUtils.isNotBlank(cachePrefix) ? String.join(":", cacheName, cachePrefix) : cacheName;
+      return new RedisBloomFilter(redissonClient, namespace + "#keys", expectedInsertions, fpp);
+    }
+    if (StringUtils.isBlank(type) || NONE.equalsIgnoreCase(type)) {
+      return null;
+    }
+    throw new IllegalArgumentException("unknown key filter type: " + type);
+  }
+}
@@ -0,0 +1,84 @@
+package org.example.multilevelcache.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 本地内存的布隆过滤器，key 按 toString 计算哈希，与 RedisBloomFilter 一致
+ * <p>
+ * 位数组使用 AtomicLongArray，添加和查询都不加锁
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class LocalBloomFilter implements CacheKeyFilter {
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final AtomicLongArray bits;
+  private final long bitSize;
+  private final int hashFunctions;
+
+  /**
+   * @param expectedInsertions 预计添加的 key 个数
+   * @param fpp                误判率
+   */
+  public LocalBloomFilter(long expectedInsertions, double fpp) {
+    long insertions = Math.max(expectedInsertions, 1);
+    long size = (long) (-insertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    this.bits = new AtomicLongArray((int) Math.min((Math.max(size, 64) + 63) >>> 6, Integer.MAX_VALUE));
+    this.bitSize = bits.length() * 64L;
+    this.hashFunctions = Math.max(1, (int) Math.round((double) size / insertions * Math.log(2)));
+  }
+
+  @Override
+  public boolean mightContain(Object key) {
+    long hash1 = hash(key);
+    long hash2 = mix(hash1 + FNV_PRIME);
+    for (int i = 0; i < hashFunctions; i++) {
+      long index = Math.floorMod(hash1 + i * hash2, bitSize);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void put(Object key) {
+    long hash1 = hash(key);
+    long hash2 = mix(hash1 + FNV_PRIME);
+    for (int i = 0; i < hashFunctions; i++) {
+      long index = Math.floorMod(hash1 + i * hash2, bitSize);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current = bits.get(word);
+      while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        current = bits.get(word);
+      }
+    }
+  }
+
+  @Override
+  public boolean isShared() {
+    return false;
+  }
+
+  private static long hash(Object key) {
+    long hash = FNV_OFFSET;
+    for (byte b : key.toString().getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= FNV_PRIME;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,38 @@
+package org.example.multilevelcache.filter;
+
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * 基于 Redisson RBloomFilter 的布隆过滤器，所有节点共享
+ * <p>
+ * 每次判断需要访问一次 redis，适合用于保护回源（数据库），并避免为不存在的 key 缓存空值
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisBloomFilter implements CacheKeyFilter {
+  private final RBloomFilter<String> filter;
+
+  public RedisBloomFilter(RedissonClient redissonClient, String name, long expectedInsertions, double fpp) {
+    this.filter = redissonClient.getBloomFilter(name, StringCodec.INSTANCE);
+    // 已经初始化过时保留原来的配置
+    this.filter.tryInit(expectedInsertions, fpp);
+  }
+
+  @Override
+  public boolean mightContain(Object key) {
+    return filter.contains(key.toString());
+  }
+
+  @Override
+  public void put(Object key) {
+    filter.add(key.toString());
+  }
+
+  @Override
+  public boolean isShared() {
+    return true;
+  }
+}
@@ -0,0 +1,84 @@
+package org.example.multilevelcache.hotkey;
+
+/**
+ * Count-Min Sketch，使用固定大小的内存估算 key 的访问频率
+ * <p>
+ * 计数器的读写不加锁，并发时可能丢失少量计数，对频率估算的影响可以忽略；
+ * 通过 halve 定期将所有计数减半，使频率反映最近的访问情况
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class FrequencySketch {
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final int DEPTH = SEEDS.length;
+
+  private final int[] table;
+  private final int widthMask;
+
+  /**
+   * @param width 每行计数器个数，会调整为 2 的幂
+   */
+  public FrequencySketch(int width) {
+    int size = Integer.highestOneBit(Math.max(width, 16) - 1) << 1;
+    this.widthMask = size - 1;
+    this.table = new int[size * DEPTH];
+  }
+
+  /**
+   * 增加 key 的访问次数
+   *
+   * @param key key
+   * @return 增加后估算的访问次数
+   */
+  public int increment(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < DEPTH; i++) {
+      int index = indexOf(hash, i);
+      int count = table[index];
+      if (count < Integer.MAX_VALUE) {
+        table[index] = ++count;
+      }
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * 估算 key 的访问次数
+   *
+   * @param key key
+   * @return 访问次数
+   */
+  public int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < DEPTH; i++) {
+      frequency = Math.min(frequency, table[indexOf(hash, i)]);
+    }
+    return frequency;
+  }
+
+  /**
+   * 所有计数减半
+   */
+  public void halve() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] >>>= 1;
+    }
+  }
+
+  private int indexOf(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return row * (widthMask + 1) + ((int) h & widthMask);
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
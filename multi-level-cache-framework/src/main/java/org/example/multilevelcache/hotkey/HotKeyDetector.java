@@ -0,0 +1,191 @@
+package org.example.multilevelcache.hotkey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个缓存的热点 key 检测：通过 FrequencySketch 估算访问频率，维护访问频率最高的 topK 个 key
+ * <p>
+ * 每次访问只更新 sketch；只有频率超过当前 topK 最小值的 key 才会加锁进入 topK，已经是热点 key 的只更新频率，不分配对象。
+ * 每 sampleSize 次访问所有频率减半，热点 key 随访问情况变化。
+ * 开启保护后，热点 key 收到缓存更新消息时不直接清除，而是由 HotKeyRefresher 随机延迟后从 redis 刷新
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class HotKeyDetector {
+  private final String cacheName;
+  private final FrequencySketch sketch;
+  private final int topK;
+  private final int sampleSize;
+  /**
+   * 成为热点 key 的最小访问频率
+   */
+  private final int minFrequency;
+  /**
+   * 热点 key 的保护，为 null 时收到缓存更新消息直接清除
+   */
+  private final HotKeyRefresher refresher;
+  /**
+   * 刷新的最大随机延迟，单位毫秒
+   */
+  private final long refreshJitter;
+
+  private final Map<Object, AtomicInteger> hotKeys = new ConcurrentHashMap<>();
+  /**
+   * 进入 topK 需要的访问频率
+   */
+  private volatile int threshold;
+  /**
+   * 上次减半后的访问次数，不加锁，只用于触发减半
+   */
+  private int additions;
+
+  public HotKeyDetector(String cacheName, int topK, int sampleSize, int minFrequency,
+                        HotKeyRefresher refresher, long refreshJitter) {
+    this.cacheName = cacheName;
+    this.topK = topK;
+    this.sampleSize = sampleSize;
+    this.minFrequency = Math.max(minFrequency, 1);
+    this.sketch = new FrequencySketch(Math.max(sampleSize / 10, topK * 16));
+    this.refresher = refresher;
+    this.refreshJitter = refreshJitter;
+    this.threshold = this.minFrequency;
+  }
+
+  /**
+   * 记录一次访问
+   *
+   * @param key key
+   */
+  public void record(Object key) {
+    int frequency = sketch.increment(key);
+    if (++additions >= sampleSize) {
+      age();
+    }
+    if (frequency < threshold) {
+      return;
+    }
+    AtomicInteger current = hotKeys.get(key);
+    if (current != null) {
+      current.set(frequency);
+      return;
+    }
+    offer(key, frequency);
+  }
+
+  private synchronized void offer(Object key, int frequency) {
+    if (hotKeys.size() >= topK) {
+      Map.Entry<Object, AtomicInteger> coldest = coldest();
+      if (coldest == null || coldest.getValue().get() >= frequency) {
+        return;
+      }
+      hotKeys.remove(coldest.getKey());
+    }
+    hotKeys.put(key, new AtomicInteger(frequency));
+    updateThreshold();
+  }
+
+  /**
+   * 所有频率减半，移除不再满足最小频率的热点 key
+   */
+  private synchronized void age() {
+    if (additions < sampleSize) {
+      return;
+    }
+    additions = 0;
+    sketch.halve();
+    hotKeys.values().forEach(frequency -> frequency.set(frequency.get() >>> 1));
+    hotKeys.values().removeIf(frequency -> frequency.get() < minFrequency);
+    updateThreshold();
+  }
+
+  private void updateThreshold() {
+    if (hotKeys.size() < topK) {
+      threshold = minFrequency;
+      return;
+    }
+    Map.Entry<Object, AtomicInteger> coldest = coldest();
+    threshold = coldest == null ? minFrequency : Math.max(minFrequency, coldest.getValue().get() + 1);
+  }
+
+  private Map.Entry<Object, AtomicInteger> coldest() {
+    Map.Entry<Object, AtomicInteger> coldest = null;
+    for (Map.Entry<Object, AtomicInteger> entry : hotKeys.entrySet()) {
+      if (coldest == null || entry.getValue().get() < coldest.getValue().get()) {
+        coldest = entry;
+      }
+    }
+    return coldest;
+  }
+
+  /**
+   * 是否为热点 key
+   *
+   * @param key key
+   * @return 是否为热点 key
+   */
+  public boolean isHot(Object key) {
+    return hotKeys.containsKey(key);
+  }
+
+  /**
+   * 热点 key 收到缓存更新消息时，随机延迟后执行刷新
+   *
+   * @param key     key
+   * @param refresh 刷新任务
+   * @return 是否已安排刷新，false 时需要直接清除本地缓存
+   */
+  public boolean protect(Object key, Runnable refresh) {
+    if (refresher == null || !isHot(key)) {
+      return false;
+    }
+    refresher.refreshLater(Arrays.asList(cacheName, key), refresh, refreshJitter);
+    return true;
+  }
+
+  /**
+   * 当前的热点 key，按访问频率从高到低排序
+   *
+   * @return 热点 key
+   */
+  public List<HotKey> getHotKeys() {
+    List<HotKey> result = new ArrayList<>(hotKeys.size());
+    for (Map.Entry<Object, AtomicInteger> entry : hotKeys.entrySet()) {
+      result.add(new HotKey(entry.getKey(), entry.getValue().get()));
+    }
+    result.sort(Comparator.comparingInt(HotKey::getFrequency).reversed());
+    return result;
+  }
+
+  /**
+   * 热点 key 及其估算的访问频率
+   */
+  public static class HotKey {
+    private final Object key;
+    private final int frequency;
+
+    public HotKey(Object key, int frequency) {
+      this.key = key;
+      this.frequency = frequency;
+    }
+
+    public Object getKey() {
+      return key;
+    }
+
+    public int getFrequency() {
+      return frequency;
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + frequency;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.example.multilevelcache.hotkey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点 key 收到缓存更新消息后，在随机延迟后于后台线程中刷新本地缓存，避免所有节点同时访问 redis
+ * <p>
+ * 单线程执行，刷新时读取的总是执行时刻 redis 中的值；同一个 key 等待刷新期间的重复请求会被合并
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class HotKeyRefresher implements DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HotKeyRefresher.class);
+
+  private final ScheduledExecutorService executor;
+  /**
+   * 等待刷新的 key
+   */
+  private final Set<Object> pending = ConcurrentHashMap.newKeySet();
+
+  public HotKeyRefresher() {
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "cache-hot-key-refresher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * 在 [0, maxJitter] 毫秒的随机延迟后执行刷新
+   *
+   * @param id        用于合并重复请求的标识，需要实现 equals/hashCode
+   * @param refresh   刷新任务
+   * @param maxJitter 最大延迟，单位毫秒
+   */
+  public void refreshLater(Object id, Runnable refresh, long maxJitter) {
+    if (!pending.add(id)) {
+      return;
+    }
+    long delay = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter + 1) : 0;
+    executor.schedule(() -> {
+      pending.remove(id);
+      try {
+        refresh.run();
+      } catch (Exception e) {
+        LOGGER.warn("refresh hot key error, the id is {}", id, e);
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,26 @@
+package org.example.multilevelcache.manager;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 缓存 key 编码为 redis key 的方式，编码结果拼接在每个缓存预先序列化好的前缀（this.name:cachePrefix:）之后
+ * <p>
+ * 只在 caffeine 未命中、需要访问 redis 时调用；同一个 key 在所有节点上的编码结果必须一致
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public interface CacheKeyEncoder {
+  /**
+   * 默认的编码：toString 的 UTF-8 字节，与 StringRedisSerializer 一致
+   */
+  CacheKeyEncoder TO_STRING = key -> key.toString().getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * 编码缓存 key
+   *
+   * @param key key
+   * @return 拼接在前缀之后的字节
+   */
+  byte[] encode(Object key);
+}
@@ -0,0 +1,18 @@
+package org.example.multilevelcache.manager;
+
+import org.example.multilevelcache.domain.CacheMessage;
+
+/**
+ * 缓存更新消息发布接口，用于通知其他节点清除 Caffeine 缓存
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public interface CacheMessagePublisher {
+  /**
+   * 发布缓存更新消息
+   *
+   * @param message 缓存消息
+   */
+  void publish(CacheMessage message);
+}
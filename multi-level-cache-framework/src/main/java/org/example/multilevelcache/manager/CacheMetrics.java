@@ -0,0 +1,111 @@
+package org.example.multilevelcache.manager;
+
+import org.example.multilevelcache.serializer.CompressionStatistics;
+
+/**
+ * 单个缓存的指标记录，实现需要足够轻量，可以在生产环境一直开启
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public interface CacheMetrics {
+  /**
+   * 不记录任何指标
+   */
+  CacheMetrics NOOP = new CacheMetrics() {
+  };
+
+  /**
+   * redis 操作类型
+   */
+  enum RedisOperation {
+    GET, MGET, SET, DEL, PIPELINE, EVAL
+  }
+
+  /**
+   * caffeine 命中
+   *
+   * @param count 命中的 key 个数
+   */
+  default void recordL1Hits(int count) {
+  }
+
+  /**
+   * caffeine 未命中、堆外缓存命中
+   *
+   * @param count 命中的 key 个数
+   */
+  default void recordOffHeapHits(int count) {
+  }
+
+  /**
+   * caffeine 未命中、redis 命中
+   *
+   * @param count 命中的 key 个数
+   */
+  default void recordL2Hits(int count) {
+  }
+
+  /**
+   * 两级缓存都未命中
+   *
+   * @param count 未命中的 key 个数
+   */
+  default void recordMisses(int count) {
+  }
+
+  /**
+   * 被 key 过滤器判断为不存在，没有访问 redis 和回源
+   *
+   * @param count 被拒绝的 key 个数
+   */
+  default void recordRejected(int count) {
+  }
+
+  /**
+   * 回源耗时
+   *
+   * @param nanos   耗时，单位纳秒
+   * @param success 是否回源成功
+   */
+  default void recordLoad(long nanos, boolean success) {
+  }
+
+  /**
+   * redis 操作耗时
+   *
+   * @param operation 操作类型
+   * @param nanos     耗时，单位纳秒
+   */
+  default void recordRedis(RedisOperation operation, long nanos) {
+  }
+
+  /**
+   * 获取分布式锁的等待时间
+   *
+   * @param nanos    等待时间，单位纳秒
+   * @param acquired 是否获取到锁，false 为等待超时
+   */
+  default void recordLock(long nanos, boolean acquired) {
+  }
+
+  /**
+   * 发送缓存更新消息
+   */
+  default void recordMessageSent() {
+  }
+
+  /**
+   * 收到其他节点的缓存更新消息
+   */
+  default void recordMessageReceived() {
+  }
+
+  /**
+   * 注册 value 压缩的统计，创建缓存时调用一次
+   *
+   * @param statistics 压缩统计
+   */
+  default void bindCompressionStatistics(CompressionStatistics statistics) {
+  }
+}
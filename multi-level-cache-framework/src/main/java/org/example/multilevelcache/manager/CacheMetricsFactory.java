@@ -0,0 +1,42 @@
+package org.example.multilevelcache.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * 为每个 cacheName 创建指标记录
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public interface CacheMetricsFactory {
+  /**
+   * 不记录任何指标
+   */
+  CacheMetricsFactory NOOP = new CacheMetricsFactory() {
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public CacheMetrics create(String cacheName, Cache<?, ?> caffeineCache) {
+      return CacheMetrics.NOOP;
+    }
+  };
+
+  /**
+   * 是否记录指标，开启时 caffeine 需要 recordStats
+   *
+   * @return 是否记录指标
+   */
+  boolean isEnabled();
+
+  /**
+   * 创建 cacheName 的指标记录
+   *
+   * @param cacheName     cacheName
+   * @param caffeineCache caffeine 缓存，用于记录 size、淘汰个数等指标
+   * @return 指标记录
+   */
+  CacheMetrics create(String cacheName, Cache<?, ?> caffeineCache);
+}
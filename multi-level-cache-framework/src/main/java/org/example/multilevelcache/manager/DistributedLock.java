@@ -15,6 +15,18 @@ public interface DistributedLock {
    */
   boolean acquire(String lockName);
 
+  /**
+   * 在等待时间内获取分布式锁，默认实现不支持超时，直接调用 acquire
+   *
+   * @param lockName  锁名称
+   * @param waitTime  最长等待时间，单位毫秒
+   * @param leaseTime 锁的过期时间，单位毫秒，防止持有锁的节点宕机后死锁
+   * @return 是否在等待时间内加锁成功
+   */
+  default boolean tryAcquire(String lockName, long waitTime, long leaseTime) {
+    return acquire(lockName);
+  }
+
   /**
    * 释放锁
    *
@@ -0,0 +1,191 @@
+package org.example.multilevelcache.manager.impl;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 合并发送的消息发布：按 cacheName 缓冲需要清除的 key，每隔 flushInterval 毫秒或缓冲达到 batchSize 时，
+ * 在后台线程中合并成批量消息交给 delegate 发送，写请求线程只做一次内存操作。
+ * <p>
+ * 单个 cacheName 缓冲的 key 超过 queueCapacity 时（例如 Redis 变慢），退化为一条清除整个 cacheName 的消息，
+ * 保证内存占用有上限且不会丢失失效通知。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class BatchingCacheMessagePublisher implements CacheMessagePublisher, DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchingCacheMessagePublisher.class);
+  /**
+   * 缓冲的 key 没有版本号
+   */
+  private static final long NO_VERSION = -1L;
+
+  private final CacheMessagePublisher delegate;
+  /**
+   * 单条消息最多携带的 key 数量，缓冲达到该数量时立即发送
+   */
+  private final int batchSize;
+  /**
+   * 单个 cacheName 最多缓冲的 key 数量
+   */
+  private final int queueCapacity;
+  private final ConcurrentMap<String, PendingMessages> pending = new ConcurrentHashMap<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final ScheduledExecutorService executor;
+
+  public BatchingCacheMessagePublisher(CacheMessagePublisher delegate, long flushInterval, int batchSize, int queueCapacity) {
+    this.delegate = delegate;
+    this.batchSize = batchSize;
+    this.queueCapacity = queueCapacity;
+    this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "cache-message-publisher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void publish(CacheMessage message) {
+    PendingMessages messages = pending.get(message.getCacheName());
+    if (messages == null) {
+      messages = pending.computeIfAbsent(message.getCacheName(), k -> new PendingMessages());
+    }
+    if (messages.add(message, queueCapacity) >= batchSize && flushScheduled.compareAndSet(false, true)) {
+      executor.execute(this::flush);
+    }
+  }
+
+  /**
+   * 发送所有缓冲的消息
+   */
+  private void flush() {
+    flushScheduled.set(false);
+    for (Map.Entry<String, PendingMessages> entry : pending.entrySet()) {
+      for (CacheMessage message : entry.getValue().drain(entry.getKey(), batchSize)) {
+        try {
+          delegate.publish(message);
+        } catch (Exception e) {
+          LOGGER.warn("publish cache message error, the cacheName is {}", entry.getKey(), e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+    flush();
+  }
+
+  /**
+   * 某个 cacheName 下缓冲的消息
+   */
+  private static class PendingMessages {
+    /**
+     * key -> 最新的版本号（没有版本号时为 null）
+     */
+    private Map<Object, Long> keys = new LinkedHashMap<>();
+    /**
+     * 是否需要清除整个 cacheName
+     */
+    private boolean clearAll;
+    /**
+     * clear 后新的 generation
+     */
+    private Long generation;
+
+    /**
+     * 缓冲消息
+     *
+     * @return 当前缓冲的 key 数量
+     */
+    synchronized int add(CacheMessage message, int queueCapacity) {
+      if (clearAll && message.getGeneration() == null) {
+        return 0;
+      }
+      if (message.getKeys() != null) {
+        List<Long> versions = message.getVersions();
+        int i = 0;
+        for (Object key : message.getKeys()) {
+          addKey(key, versions == null || i >= versions.size() ? null : versions.get(i));
+          i++;
+        }
+      } else if (message.getKey() != null) {
+        addKey(message.getKey(), message.getVersion());
+      } else {
+        clearAll = true;
+      }
+      if (message.getGeneration() != null && (generation == null || message.getGeneration() > generation)) {
+        generation = message.getGeneration();
+      }
+      if (keys.size() > queueCapacity) {
+        LOGGER.warn("too many pending cache messages, clear all local cache instead, the cacheName is {}", message.getCacheName());
+        clearAll = true;
+      }
+      if (clearAll) {
+        keys.clear();
+      }
+      return keys.size();
+    }
+
+    private void addKey(Object key, Long version) {
+      keys.merge(key, version == null ? NO_VERSION : version, Math::max);
+    }
+
+    /**
+     * 取出缓冲的消息，合并成每条最多 batchSize 个 key 的批量消息
+     */
+    synchronized List<CacheMessage> drain(String cacheName, int batchSize) {
+      if (clearAll) {
+        CacheMessage message = new CacheMessage(cacheName, null);
+        message.setGeneration(generation);
+        clearAll = false;
+        generation = null;
+        return Collections.singletonList(message);
+      }
+      if (keys.isEmpty()) {
+        return Collections.emptyList();
+      }
+      List<Object> drained = new ArrayList<>(keys.keySet());
+      List<Long> versions = new ArrayList<>(drained.size());
+      boolean versioned = false;
+      for (Long version : keys.values()) {
+        versioned |= version > NO_VERSION;
+        versions.add(version <= NO_VERSION ? null : version);
+      }
+      keys = new LinkedHashMap<>();
+      if (drained.size() == 1) {
+        CacheMessage message = new CacheMessage(cacheName, drained.get(0));
+        message.setVersion(versions.get(0));
+        return Collections.singletonList(message);
+      }
+      List<CacheMessage> messages = new ArrayList<>();
+      for (int from = 0; from < drained.size(); from += batchSize) {
+        int to = Math.min(from + batchSize, drained.size());
+        CacheMessage message = new CacheMessage(cacheName, null);
+        message.setKeys(new ArrayList<>(drained.subList(from, to)));
+        if (versioned) {
+          message.setVersions(new ArrayList<>(versions.subList(from, to)));
+        }
+        messages.add(message);
+      }
+      return messages;
+    }
+  }
+}
@@ -33,6 +33,17 @@ public class DistributedRedisLock implements DistributedLock {
     return true;
   }
 
+  @Override
+  public boolean tryAcquire(String lockName, long waitTime, long leaseTime) {
+    RLock myLock = redissonClient.getLock(getKey(lockName));
+    try {
+      return myLock.tryLock(waitTime, leaseTime, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
   @Override
   public void release(String lockName) {
     //必须是和加锁时的同一个key
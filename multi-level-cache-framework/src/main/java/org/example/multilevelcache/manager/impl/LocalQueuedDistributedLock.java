@@ -0,0 +1,154 @@
+package org.example.multilevelcache.manager.impl;
+
+import org.example.multilevelcache.manager.DistributedLock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 在分布式锁前加一层本地锁：同一个节点内竞争同一个锁的线程先在本地排队，
+ * 每个节点同一时间只有一个线程访问 redis 竞争分布式锁。
+ * <p>
+ * 每个锁名称使用独立的本地锁，没有线程使用时移除，持有锁期间（例如回源）不会阻塞其他锁名称；
+ * 加锁和释放锁必须在同一个线程中执行。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class LocalQueuedDistributedLock implements DistributedLock {
+  private final DistributedLock delegate;
+  /**
+   * 锁名称 -> 本地锁，users 为 0 时移除
+   */
+  private final ConcurrentMap<String, LocalLock> locks = new ConcurrentHashMap<>();
+  /**
+   * 本地锁已被其他线程持有、需要等待的次数
+   */
+  private final LongAdder contended = new LongAdder();
+  /**
+   * 等待超时的次数
+   */
+  private final LongAdder timeouts = new LongAdder();
+
+  public LocalQueuedDistributedLock(DistributedLock delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public boolean acquire(String lockName) {
+    LocalLock local = retain(lockName);
+    if (!local.lock.tryLock()) {
+      contended.increment();
+      local.lock.lock();
+    }
+    boolean acquired = false;
+    try {
+      acquired = delegate.acquire(lockName);
+    } finally {
+      if (!acquired) {
+        unlock(lockName, local);
+      }
+    }
+    return acquired;
+  }
+
+  @Override
+  public boolean tryAcquire(String lockName, long waitTime, long leaseTime) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTime);
+    LocalLock local = retain(lockName);
+    if (!local.lock.tryLock()) {
+      contended.increment();
+      boolean locked = false;
+      try {
+        locked = local.lock.tryLock(waitTime, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (!locked) {
+        unretain(lockName, local);
+        timeouts.increment();
+        return false;
+      }
+    }
+    boolean acquired = false;
+    try {
+      long remaining = Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 0);
+      acquired = delegate.tryAcquire(lockName, remaining, leaseTime);
+    } finally {
+      if (!acquired) {
+        unlock(lockName, local);
+      }
+    }
+    if (!acquired) {
+      timeouts.increment();
+    }
+    return acquired;
+  }
+
+  /**
+   * 释放分布式锁，分布式锁释放失败（例如已过期）时仍然释放本地锁并抛出异常
+   */
+  @Override
+  public void release(String lockName) {
+    LocalLock local = locks.get(lockName);
+    if (local == null || !local.lock.isHeldByCurrentThread()) {
+      throw new IllegalMonitorStateException("lock " + lockName + " is not held by current thread");
+    }
+    try {
+      delegate.release(lockName);
+    } finally {
+      unlock(lockName, local);
+    }
+  }
+
+  public long getContendedCount() {
+    return contended.sum();
+  }
+
+  public long getTimeoutCount() {
+    return timeouts.sum();
+  }
+
+  /**
+   * @return 正在使用的本地锁数量
+   */
+  int localLockCount() {
+    return locks.size();
+  }
+
+  /**
+   * 增加锁名称的使用者，compute 在同一个锁名称上串行执行，保证 users 为 0 的本地锁移除后不会再被使用
+   */
+  private LocalLock retain(String lockName) {
+    return locks.compute(lockName, (name, local) -> {
+      LocalLock retained = local == null ? new LocalLock() : local;
+      retained.users++;
+      return retained;
+    });
+  }
+
+  private void unretain(String lockName, LocalLock local) {
+    locks.computeIfPresent(lockName, (name, current) -> {
+      if (current != local) {
+        return current;
+      }
+      return --current.users == 0 ? null : current;
+    });
+  }
+
+  private void unlock(String lockName, LocalLock local) {
+    local.lock.unlock();
+    unretain(lockName, local);
+  }
+
+  private static final class LocalLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 持有或等待本地锁的线程数量，只在 compute 中读写
+     */
+    private int users;
+  }
+}
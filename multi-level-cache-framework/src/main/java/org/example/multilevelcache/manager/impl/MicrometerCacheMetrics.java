@@ -0,0 +1,180 @@
+package org.example.multilevelcache.manager.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.serializer.CompressionStatistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 基于 Micrometer 的指标记录，所有 Meter 在创建时注册好，记录时不再查找
+ * <ul>
+ *   <li>multi.cache.requests：tag result=l1_hit/offheap_hit/l2_hit/miss/rejected</li>
+ *   <li>multi.cache.load：回源耗时，tag result=success/failure，发布直方图</li>
+ *   <li>multi.cache.redis：redis 操作耗时，tag operation=get/mget/set/del/pipeline/eval</li>
+ *   <li>multi.cache.messages：缓存更新消息，tag direction=sent/received</li>
+ *   <li>multi.cache.lock：获取分布式锁的等待时间，tag result=acquired/timeout</li>
+ *   <li>multi.cache.compression：压缩/解压耗时，tag operation=compress/decompress</li>
+ *   <li>multi.cache.compression.bytes：压缩前后的字节数，tag state=original/compressed</li>
+ *   <li>multi.cache.compression.ratio：压缩后字节数 / 压缩前字节数</li>
+ * </ul>
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class MicrometerCacheMetrics implements CacheMetrics {
+  private static final String TAG_CACHE = "cache";
+
+  private final MeterRegistry registry;
+  private final String cacheName;
+  private final Counter l1Hits;
+  private final Counter offHeapHits;
+  private final Counter l2Hits;
+  private final Counter misses;
+  private final Counter rejected;
+  private final Timer loadSuccess;
+  private final Timer loadFailure;
+  private final Timer[] redisTimers;
+  private final Timer lockAcquired;
+  private final Timer lockTimeout;
+  private final Counter messagesSent;
+  private final Counter messagesReceived;
+
+  public MicrometerCacheMetrics(MeterRegistry registry, String cacheName) {
+    this.registry = registry;
+    this.cacheName = cacheName;
+    this.l1Hits = requests(registry, cacheName, "l1_hit");
+    this.offHeapHits = requests(registry, cacheName, "offheap_hit");
+    this.l2Hits = requests(registry, cacheName, "l2_hit");
+    this.misses = requests(registry, cacheName, "miss");
+    this.rejected = requests(registry, cacheName, "rejected");
+    this.loadSuccess = load(registry, cacheName, "success");
+    this.loadFailure = load(registry, cacheName, "failure");
+    RedisOperation[] operations = RedisOperation.values();
+    this.redisTimers = new Timer[operations.length];
+    for (RedisOperation operation : operations) {
+      redisTimers[operation.ordinal()] = Timer.builder("multi.cache.redis")
+          .description("The latency of redis operations")
+          .tags(TAG_CACHE, cacheName, "operation", operation.name().toLowerCase())
+          .register(registry);
+    }
+    this.lockAcquired = lock(registry, cacheName, "acquired");
+    this.lockTimeout = lock(registry, cacheName, "timeout");
+    this.messagesSent = messages(registry, cacheName, "sent");
+    this.messagesReceived = messages(registry, cacheName, "received");
+  }
+
+  private static Counter requests(MeterRegistry registry, String cacheName, String result) {
+    return Counter.builder("multi.cache.requests")
+        .description("The number of cache lookups")
+        .tags(TAG_CACHE, cacheName, "result", result)
+        .register(registry);
+  }
+
+  private static Timer load(MeterRegistry registry, String cacheName, String result) {
+    return Timer.builder("multi.cache.load")
+        .description("The latency of loading values from the source")
+        .tags(TAG_CACHE, cacheName, "result", result)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  private static Timer lock(MeterRegistry registry, String cacheName, String result) {
+    return Timer.builder("multi.cache.lock")
+        .description("The time spent waiting for the distributed lock")
+        .tags(TAG_CACHE, cacheName, "result", result)
+        .register(registry);
+  }
+
+  private static Counter messages(MeterRegistry registry, String cacheName, String direction) {
+    return Counter.builder("multi.cache.messages")
+        .description("The number of cache invalidation messages")
+        .tags(TAG_CACHE, cacheName, "direction", direction)
+        .register(registry);
+  }
+
+  @Override
+  public void recordL1Hits(int count) {
+    l1Hits.increment(count);
+  }
+
+  @Override
+  public void recordOffHeapHits(int count) {
+    offHeapHits.increment(count);
+  }
+
+  @Override
+  public void recordL2Hits(int count) {
+    l2Hits.increment(count);
+  }
+
+  @Override
+  public void recordMisses(int count) {
+    misses.increment(count);
+  }
+
+  @Override
+  public void recordRejected(int count) {
+    rejected.increment(count);
+  }
+
+  @Override
+  public void recordLoad(long nanos, boolean success) {
+    (success ? loadSuccess : loadFailure).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void recordRedis(RedisOperation operation, long nanos) {
+    redisTimers[operation.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void recordLock(long nanos, boolean acquired) {
+    (acquired ? lockAcquired : lockTimeout).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void recordMessageSent() {
+    messagesSent.increment();
+  }
+
+  @Override
+  public void recordMessageReceived() {
+    messagesReceived.increment();
+  }
+
+  @Override
+  public void bindCompressionStatistics(CompressionStatistics statistics) {
+    compression(statistics, "compress", CompressionStatistics::getCompressCount, CompressionStatistics::getCompressNanos);
+    compression(statistics, "decompress", CompressionStatistics::getDecompressCount, CompressionStatistics::getDecompressNanos);
+    compressionBytes(statistics, "original", CompressionStatistics::getOriginalBytes);
+    compressionBytes(statistics, "compressed", CompressionStatistics::getCompressedBytes);
+    Gauge.builder("multi.cache.compression.ratio", statistics, CompressionStatistics::getCompressionRatio)
+        .description("The compressed size divided by the original size of compressed values")
+        .tags(TAG_CACHE, cacheName)
+        .register(registry);
+  }
+
+  private void compression(CompressionStatistics statistics, String operation, ToLongFunction<CompressionStatistics> count,
+                           ToDoubleFunction<CompressionStatistics> nanos) {
+    FunctionTimer.builder("multi.cache.compression", statistics, count, nanos, TimeUnit.NANOSECONDS)
+        .description("The time spent compressing and decompressing values")
+        .tags(TAG_CACHE, cacheName, "operation", operation)
+        .register(registry);
+  }
+
+  private void compressionBytes(CompressionStatistics statistics, String state, ToDoubleFunction<CompressionStatistics> bytes) {
+    FunctionCounter.builder("multi.cache.compression.bytes", statistics, bytes)
+        .description("The size of compressed values before and after compression")
+        .baseUnit("bytes")
+        .tags(TAG_CACHE, cacheName, "state", state)
+        .register(registry);
+  }
+}
@@ -0,0 +1,32 @@
+package org.example.multilevelcache.manager.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
+
+/**
+ * 基于 Micrometer 的指标记录，同时通过 CaffeineCacheMetrics 记录 caffeine 的 size、淘汰个数等指标
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class MicrometerCacheMetricsFactory implements CacheMetricsFactory {
+  private final MeterRegistry registry;
+
+  public MicrometerCacheMetricsFactory(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public CacheMetrics create(String cacheName, Cache<?, ?> caffeineCache) {
+    CaffeineCacheMetrics.monitor(registry, caffeineCache, cacheName);
+    return new MicrometerCacheMetrics(registry, cacheName);
+  }
+}
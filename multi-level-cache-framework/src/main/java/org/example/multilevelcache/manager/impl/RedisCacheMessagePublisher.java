@@ -0,0 +1,29 @@
+package org.example.multilevelcache.manager.impl;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 基于 Redis 发布/订阅 的消息发布，在调用线程上同步发送
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisCacheMessagePublisher implements CacheMessagePublisher {
+  private final RedisTemplate<Object, Object> redisTemplate;
+  /**
+   * 缓存更新时通知其他节点的topic名称
+   */
+  private final String topic;
+
+  public RedisCacheMessagePublisher(RedisTemplate<Object, Object> redisTemplate, String topic) {
+    this.redisTemplate = redisTemplate;
+    this.topic = topic;
+  }
+
+  @Override
+  public void publish(CacheMessage message) {
+    redisTemplate.convertAndSend(topic, message);
+  }
+}
@@ -0,0 +1,53 @@
+package org.example.multilevelcache.manager.impl;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于 redis stream 的消息发布，每条消息分配连续的序号，在调用线程上同步发送
+ * <p>
+ * 通过 lua 脚本读取 stream 最后一条消息的序号加 1 作为新消息的 ID（序号-0）并 XADD，stream 按 MAXLEN ~ 保留最近的消息。
+ * 序号连续，监听方可以根据序号判断是否缺失消息，连接断开后从最后收到的序号继续读取。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class RedisStreamCacheMessagePublisher implements CacheMessagePublisher {
+  /**
+   * KEYS[1] 为 stream，ARGV[1] 为保留的消息数，ARGV[2] 为序列化后的消息（字段 m），返回消息的序号
+   */
+  private static final byte[] PUBLISH_SCRIPT = ("local last = redis.call('XREVRANGE', KEYS[1], '+', '-', 'COUNT', 1) "
+      + "local seq = 1 "
+      + "if last[1] then seq = tonumber(string.match(last[1][1], '^%d+')) + 1 end "
+      + "redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], string.format('%d-0', seq), 'm', ARGV[2]) "
+      + "return seq").getBytes(StandardCharsets.UTF_8);
+
+  private final RedisTemplate<Object, Object> redisTemplate;
+  private final byte[] stream;
+  private final byte[] maxLength;
+
+  /**
+   * @param redisTemplate redisTemplate，使用其 value 序列化方式序列化消息
+   * @param stream        stream 的 key
+   * @param maxLength     stream 保留的消息数（近似值）
+   */
+  public RedisStreamCacheMessagePublisher(RedisTemplate<Object, Object> redisTemplate, String stream, long maxLength) {
+    this.redisTemplate = redisTemplate;
+    this.stream = stream.getBytes(StandardCharsets.UTF_8);
+    this.maxLength = String.valueOf(maxLength).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void publish(CacheMessage message) {
+    byte[] body = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(message);
+    redisTemplate.execute((RedisCallback<Long>) connection ->
+        connection.eval(PUBLISH_SCRIPT, ReturnType.INTEGER, 1, stream, maxLength, body));
+  }
+}
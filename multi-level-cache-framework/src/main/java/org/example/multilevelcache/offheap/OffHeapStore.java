@@ -0,0 +1,262 @@
+package org.example.multilevelcache.offheap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * caffeine 与 redis 之间的堆外缓存（L1.5），存储序列化后的 value，不占用堆内存、不增加 GC 压力
+ * <p>
+ * value 存放在 SlabAllocator 分配的 direct ByteBuffer 中，堆上只保留 caffeine 索引（key -> chunk 位置和版本号）。
+ * 索引按 chunk 的字节数加权，超过容量时由 caffeine 淘汰，淘汰或覆盖时同步释放 chunk。
+ * 权重没有超过容量、但 value 所在大小等级没有可用的 chunk 时（slab 被其他等级占用），
+ * 写入时主动淘汰索引中最冷的 key 后重试，淘汰的轮数有上限。
+ * <p>
+ * 清除后的短时间内拒绝写入同一个 key，防止清除之前读取的旧值在清除之后写入。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class OffHeapStore {
+  /**
+   * 清除之后拒绝写入的时间，单位毫秒
+   */
+  private static final long TOMBSTONE_WINDOW = 1000;
+  private static final long MAX_TOMBSTONES = 100000;
+  /**
+   * 分配失败时最多淘汰的轮数
+   */
+  private static final int MAX_EVICTION_ROUNDS = 8;
+  /**
+   * 每轮查看的最冷 key 个数，其中没有相同大小等级的 key 时全部淘汰，使 slab 变空后归还给空闲 slab 池
+   */
+  private static final int EVICTION_BATCH = 32;
+
+  private final SlabAllocator allocator;
+  /**
+   * key -> 分配的 chunk
+   */
+  private final Cache<Object, SlabAllocator.Slot> index;
+  /**
+   * 最近清除的 key
+   */
+  private final Cache<Object, Boolean> tombstones;
+  /**
+   * 最近一次清除所有缓存的时间
+   */
+  private volatile long clearedAt;
+
+  /**
+   * @param capacity         容量，单位字节
+   * @param slabSize         每次申请的内存块大小，单位字节
+   * @param expireAfterWrite 写入后过期时间，单位毫秒，小于等于 0 时不过期
+   */
+  public OffHeapStore(long capacity, int slabSize, long expireAfterWrite) {
+    this.allocator = new SlabAllocator(capacity, slabSize);
+    Caffeine<Object, SlabAllocator.Slot> builder = Caffeine.newBuilder()
+        .maximumWeight(capacity)
+        // 在当前线程释放 chunk，避免淘汰后、释放前的短时间内超过容量
+        .executor(Runnable::run)
+        .<Object, SlabAllocator.Slot>weigher((key, slot) -> slot.chunkSize())
+        .removalListener((Object key, SlabAllocator.Slot slot, RemovalCause cause) -> {
+          if (slot != null) {
+            allocator.free(slot);
+          }
+        });
+    if (expireAfterWrite > 0) {
+      builder.expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS);
+    }
+    this.index = builder.build();
+    this.tombstones = Caffeine.newBuilder()
+        .maximumSize(MAX_TOMBSTONES)
+        .expireAfterWrite(TOMBSTONE_WINDOW, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * 写入序列化后的 value，key 在最近被清除过时不写入
+   *
+   * @param key     key
+   * @param value   序列化后的 value
+   * @param version 版本号，没有时为 0
+   * @return 是否写入，value 超过 slabSize 或淘汰后仍没有可用内存时为 false
+   */
+  public boolean put(Object key, byte[] value, long version) {
+    if (isRecentlyInvalidated(key)) {
+      return false;
+    }
+    SlabAllocator.Slot slot = allocate(value.length);
+    if (slot == null) {
+      return false;
+    }
+    slot.write(value);
+    slot.version = version;
+    index.put(key, slot);
+    // 写入期间 key 被清除：清除可能发生在 put 之前，再次检查后移除
+    if (isRecentlyInvalidated(key)) {
+      index.asMap().remove(key, slot);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * 分配 chunk，没有可用内存时淘汰最冷的 key 后重试
+   *
+   * @param length 字节数
+   * @return 超过 slabSize 或淘汰后仍没有可用内存时为 null
+   */
+  private SlabAllocator.Slot allocate(int length) {
+    SlabAllocator.Slot slot = allocator.allocate(length);
+    if (slot != null || length > allocator.maxValueSize()) {
+      return slot;
+    }
+    int chunkSize = allocator.chunkSize(length);
+    for (int round = 0; slot == null && round < MAX_EVICTION_ROUNDS; round++) {
+      if (!evictColdest(chunkSize)) {
+        break;
+      }
+      slot = allocator.allocate(length);
+    }
+    return slot;
+  }
+
+  /**
+   * 淘汰最冷的 key：优先淘汰一个相同大小等级的 key，直接空出一个 chunk；没有时淘汰查看的所有 key
+   *
+   * @param chunkSize 需要的 chunk 大小
+   * @return 是否淘汰了 key
+   */
+  private boolean evictColdest(int chunkSize) {
+    Optional<Policy.Eviction<Object, SlabAllocator.Slot>> eviction = index.policy().eviction();
+    if (!eviction.isPresent()) {
+      return false;
+    }
+    Map<Object, SlabAllocator.Slot> coldest = eviction.get().coldest(EVICTION_BATCH);
+    for (Map.Entry<Object, SlabAllocator.Slot> entry : coldest.entrySet()) {
+      if (entry.getValue().chunkSize() == chunkSize && index.asMap().remove(entry.getKey(), entry.getValue())) {
+        return true;
+      }
+    }
+    boolean evicted = false;
+    for (Map.Entry<Object, SlabAllocator.Slot> entry : coldest.entrySet()) {
+      evicted |= index.asMap().remove(entry.getKey(), entry.getValue());
+    }
+    return evicted;
+  }
+
+  /**
+   * @param key key
+   * @return 序列化后的 value 和版本号，不存在时为 null
+   */
+  public Entry get(Object key) {
+    SlabAllocator.Slot slot = index.getIfPresent(key);
+    if (slot == null) {
+      return null;
+    }
+    byte[] value = slot.read();
+    return value == null ? null : new Entry(value, slot.version);
+  }
+
+  /**
+   * 移除 key，不影响之后的写入；用于 value 提升到 caffeine
+   *
+   * @param key key
+   */
+  public void remove(Object key) {
+    index.invalidate(key);
+  }
+
+  /**
+   * 缓存被更新或删除，移除 key 并在短时间内拒绝写入
+   *
+   * @param key key
+   */
+  public void invalidate(Object key) {
+    tombstones.put(key, Boolean.TRUE);
+    index.invalidate(key);
+  }
+
+  /**
+   * @param keys keys
+   */
+  public void invalidateAll(Iterable<?> keys) {
+    for (Object key : keys) {
+      invalidate(key);
+    }
+  }
+
+  /**
+   * 清除所有 key，并在短时间内拒绝写入
+   */
+  public void invalidateAll() {
+    clearedAt = System.currentTimeMillis();
+    index.invalidateAll();
+  }
+
+  private boolean isRecentlyInvalidated(Object key) {
+    return System.currentTimeMillis() - clearedAt < TOMBSTONE_WINDOW || tombstones.getIfPresent(key) != null;
+  }
+
+  /**
+   * 当前的 key，弱一致的视图
+   */
+  public Collection<Object> keys() {
+    return index.asMap().keySet();
+  }
+
+  /**
+   * 当前的 key 个数
+   */
+  public long size() {
+    return index.estimatedSize();
+  }
+
+  /**
+   * 当前使用的字节数（按 chunk 大小计算）
+   */
+  public long usedBytes() {
+    return index.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+  }
+
+  /**
+   * 已经向操作系统申请的字节数
+   */
+  public long reservedBytes() {
+    return allocator.reservedBytes();
+  }
+
+  /**
+   * 单个 value 的最大字节数
+   */
+  public int maxValueSize() {
+    return allocator.maxValueSize();
+  }
+
+  /**
+   * 从堆外读取的序列化后的 value 和版本号
+   */
+  public static final class Entry {
+    private final byte[] value;
+    private final long version;
+
+    private Entry(byte[] value, long version) {
+      this.value = value;
+      this.version = version;
+    }
+
+    public byte[] getValue() {
+      return value;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package org.example.multilevelcache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 堆外内存的 slab 分配器
+ * <p>
+ * 按 slabSize 向操作系统申请 direct ByteBuffer，每个 slab 只属于一个大小等级（64 字节到 slabSize 的 2 的幂），
+ * 切分为该等级大小的 chunk。释放的 chunk 放回所属等级的空闲栈（slab 下标 << 32 | 偏移量）；
+ * slab 中的 chunk 全部释放后（正在切分的 slab 除外），slab 放回共享的空闲 slab 池，由任意等级重新使用。
+ * slab 总数不超过 capacity / slabSize，申请后不归还给操作系统。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+final class SlabAllocator {
+  private static final int MIN_CHUNK_SIZE = 64;
+
+  private final int slabSize;
+  private final int maxSlabs;
+  private final ByteBuffer[] slabs;
+  private final AtomicInteger slabCount = new AtomicInteger();
+  /**
+   * 每个 slab 中已分配的 chunk 个数，由 slab 所属等级的锁保护
+   */
+  private final int[] liveChunks;
+  /**
+   * 空闲的 slab 下标，由自身的锁保护
+   */
+  private final int[] freeSlabs;
+  private int freeSlabCount;
+  private final SizeClass[] sizeClasses;
+
+  /**
+   * @param capacity 最多申请的字节数
+   * @param slabSize 每个 slab 的字节数，向上取整为 2 的幂
+   */
+  SlabAllocator(long capacity, int slabSize) {
+    int size = Math.max(slabSize, MIN_CHUNK_SIZE);
+    this.slabSize = Integer.bitCount(size) == 1 ? size : Integer.highestOneBit(size) << 1;
+    this.maxSlabs = (int) Math.max(1, Math.min(capacity / this.slabSize, Integer.MAX_VALUE - 8));
+    this.slabs = new ByteBuffer[maxSlabs];
+    this.liveChunks = new int[maxSlabs];
+    this.freeSlabs = new int[maxSlabs];
+    int classCount = Integer.numberOfTrailingZeros(this.slabSize) - Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE) + 1;
+    this.sizeClasses = new SizeClass[classCount];
+    for (int i = 0; i < classCount; i++) {
+      sizeClasses[i] = new SizeClass(MIN_CHUNK_SIZE << i);
+    }
+  }
+
+  /**
+   * 单个 value 的最大字节数
+   */
+  int maxValueSize() {
+    return slabSize;
+  }
+
+  /**
+   * @param length 字节数
+   * @return 容纳 length 个字节的 chunk 大小
+   */
+  int chunkSize(int length) {
+    return sizeClasses[classIndex(length)].chunkSize;
+  }
+
+  /**
+   * 空闲 slab 池中的 slab 个数
+   */
+  int freeSlabs() {
+    synchronized (freeSlabs) {
+      return freeSlabCount;
+    }
+  }
+
+  /**
+   * 已申请的堆外内存字节数
+   */
+  long reservedBytes() {
+    return (long) slabCount.get() * slabSize;
+  }
+
+  /**
+   * 分配能容纳 length 个字节的 chunk
+   *
+   * @param length 字节数
+   * @return 没有空闲 chunk、没有空闲 slab 且 slab 个数已达上限，或超过 slabSize 时为 null
+   */
+  Slot allocate(int length) {
+    if (length > slabSize) {
+      return null;
+    }
+    SizeClass sizeClass = sizeClasses[classIndex(length)];
+    synchronized (sizeClass) {
+      if (sizeClass.freeCount > 0) {
+        long chunk = sizeClass.free[--sizeClass.freeCount];
+        int slab = (int) (chunk >>> 32);
+        liveChunks[slab]++;
+        return new Slot(slabs[slab], slab, (int) chunk, length, sizeClass);
+      }
+      if (sizeClass.slab < 0 || sizeClass.next + sizeClass.chunkSize > slabSize) {
+        int slab = newSlab();
+        if (slab < 0) {
+          return null;
+        }
+        sizeClass.slab = slab;
+        sizeClass.next = 0;
+      }
+      int offset = sizeClass.next;
+      sizeClass.next += sizeClass.chunkSize;
+      liveChunks[sizeClass.slab]++;
+      return new Slot(slabs[sizeClass.slab], sizeClass.slab, offset, length, sizeClass);
+    }
+  }
+
+  /**
+   * 释放 chunk，正在读取的线程读取完成后才放回空闲栈
+   *
+   * @param slot 分配的 chunk
+   */
+  void free(Slot slot) {
+    synchronized (slot) {
+      if (slot.freed) {
+        return;
+      }
+      slot.freed = true;
+    }
+    SizeClass sizeClass = slot.sizeClass;
+    synchronized (sizeClass) {
+      if (sizeClass.freeCount == sizeClass.free.length) {
+        sizeClass.free = Arrays.copyOf(sizeClass.free, sizeClass.free.length * 2);
+      }
+      sizeClass.free[sizeClass.freeCount++] = ((long) slot.slabIndex << 32) | slot.offset;
+      if (--liveChunks[slot.slabIndex] == 0 && slot.slabIndex != sizeClass.slab) {
+        releaseSlab(sizeClass, slot.slabIndex);
+      }
+    }
+  }
+
+  /**
+   * 从空闲栈中移除 slab 的所有 chunk，把 slab 放回空闲 slab 池；只在持有大小等级的锁时调用
+   */
+  private void releaseSlab(SizeClass sizeClass, int slab) {
+    int count = 0;
+    for (int i = 0; i < sizeClass.freeCount; i++) {
+      long chunk = sizeClass.free[i];
+      if ((int) (chunk >>> 32) != slab) {
+        sizeClass.free[count++] = chunk;
+      }
+    }
+    sizeClass.freeCount = count;
+    synchronized (freeSlabs) {
+      freeSlabs[freeSlabCount++] = slab;
+    }
+  }
+
+  /**
+   * 优先使用空闲 slab 池中的 slab，否则申请新的 slab；只在持有大小等级的锁时调用，slabs 中的元素由该锁发布
+   */
+  private int newSlab() {
+    synchronized (freeSlabs) {
+      if (freeSlabCount > 0) {
+        return freeSlabs[--freeSlabCount];
+      }
+    }
+    int index;
+    do {
+      index = slabCount.get();
+      if (index >= maxSlabs) {
+        return -1;
+      }
+    } while (!slabCount.compareAndSet(index, index + 1));
+    slabs[index] = ByteBuffer.allocateDirect(slabSize);
+    return index;
+  }
+
+  private static int classIndex(int length) {
+    if (length <= MIN_CHUNK_SIZE) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(length - 1) - Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+  }
+
+  /**
+   * 一个大小等级：当前切分中的 slab 和释放的 chunk
+   */
+  private static final class SizeClass {
+    private final int chunkSize;
+    private long[] free = new long[16];
+    private int freeCount;
+    private int slab = -1;
+    private int next;
+
+    private SizeClass(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+  }
+
+  /**
+   * 分配给一个 value 的 chunk
+   */
+  static final class Slot {
+    private final ByteBuffer slab;
+    private final int slabIndex;
+    private final int offset;
+    private final int length;
+    private final SizeClass sizeClass;
+    /**
+     * value 的版本号，在放入索引之前设置
+     */
+    long version;
+    private boolean freed;
+
+    private Slot(ByteBuffer slab, int slabIndex, int offset, int length, SizeClass sizeClass) {
+      this.slab = slab;
+      this.slabIndex = slabIndex;
+      this.offset = offset;
+      this.length = length;
+      this.sizeClass = sizeClass;
+    }
+
+    /**
+     * chunk 的字节数，作为索引的权重
+     */
+    int chunkSize() {
+      return sizeClass.chunkSize;
+    }
+
+    /**
+     * 写入 value，只在放入索引之前调用
+     */
+    void write(byte[] value) {
+      ByteBuffer buffer = slab.duplicate();
+      buffer.position(offset);
+      buffer.put(value, 0, length);
+    }
+
+    /**
+     * 复制 chunk 中的 value
+     *
+     * @return 已经释放时为 null
+     */
+    synchronized byte[] read() {
+      if (freed) {
+        return null;
+      }
+      byte[] value = new byte[length];
+      ByteBuffer buffer = slab.duplicate();
+      buffer.position(offset);
+      buffer.get(value);
+      return value;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package org.example.multilevelcache.serializer;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 根据配置创建缓存 value 的序列化方式
+ * <ul>
+ *   <li>json：GenericJackson2JsonRedisSerializer，每个值都带有类名，默认</li>
+ *   <li>kryo：KryoRedisSerializer，二进制格式；配置 registeredClasses 后不再写入类名</li>
+ *   <li>其他：RedisSerializer 实现类的全类名，需要有无参构造方法</li>
+ * </ul>
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public final class CacheValueSerializers {
+  public static final String JSON = "json";
+  public static final String KRYO = "kryo";
+
+  private CacheValueSerializers() {
+  }
+
+  /**
+   * 创建序列化方式
+   *
+   * @param type              json、kryo 或 RedisSerializer 实现类的全类名
+   * @param registeredClasses kryo 注册模式下需要注册的类
+   * @return 序列化方式
+   */
+  @SuppressWarnings("unchecked")
+  public static RedisSerializer<Object> create(String type, List<String> registeredClasses) {
+    ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+    if (type == null || JSON.equalsIgnoreCase(type)) {
+      return new GenericJackson2JsonRedisSerializer();
+    }
+    if (KRYO.equalsIgnoreCase(type)) {
+      List<Class<?>> classes = new ArrayList<>();
+      for (String className : registeredClasses) {
+        classes.add(ClassUtils.resolveClassName(className, classLoader));
+      }
+      return new KryoRedisSerializer(classes);
+    }
+    Class<?> serializerClass = ClassUtils.resolveClassName(type, classLoader);
+    if (!RedisSerializer.class.isAssignableFrom(serializerClass)) {
+      throw new IllegalArgumentException(type + " is not a RedisSerializer");
+    }
+    return (RedisSerializer<Object>) BeanUtils.instantiateClass(serializerClass);
+  }
+}
@@ -0,0 +1,145 @@
+package org.example.multilevelcache.serializer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * 对超过阈值的 value 进行 LZ4 压缩
+ * <p>
+ * 开启压缩（threshold > 0）后写入的数据都带有 4 字节的头部：3 字节的魔数 0xC0 'M' 'C' 加 1 字节的格式，
+ * 0 未压缩，1 LZ4 压缩（后跟 4 字节原始长度）。读取时没有头部的数据按未压缩的旧数据处理，
+ * 因此压缩和未压缩的数据可以在灰度发布期间共存；未开启压缩时也能读取其他节点写入的压缩数据。
+ * <p>
+ * kryo 等二进制格式的开头可以是任意字节，使用多字节的魔数避免把旧数据误认为带头部的数据；
+ * 未开启压缩时，恰好以头部开头的数据也会加上未压缩的头部，写入的数据总是能被正确读取。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+  static final byte[] MAGIC = {(byte) 0xC0, 'M', 'C'};
+  static final byte RAW = 0;
+  static final byte LZ4 = 1;
+  private static final int HEADER_LENGTH = MAGIC.length + 1;
+  private static final int LZ4_HEADER_LENGTH = HEADER_LENGTH + 4;
+  private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+
+  private final RedisSerializer<Object> delegate;
+  /**
+   * 超过该字节数时进行压缩，小于等于 0 时不压缩
+   */
+  private final int threshold;
+  private final CompressionStatistics statistics = new CompressionStatistics();
+  private final LZ4Compressor compressor = FACTORY.fastCompressor();
+  private final LZ4FastDecompressor decompressor = FACTORY.fastDecompressor();
+
+  public CompressingRedisSerializer(RedisSerializer<Object> delegate, int threshold) {
+    this.delegate = delegate;
+    this.threshold = threshold;
+  }
+
+  public RedisSerializer<Object> getDelegate() {
+    return delegate;
+  }
+
+  public CompressionStatistics getStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    byte[] bytes = delegate.serialize(value);
+    if (bytes == null || bytes.length == 0 || (threshold <= 0 && !hasHeader(bytes))) {
+      return bytes;
+    }
+    if (threshold > 0 && bytes.length > threshold) {
+      byte[] compressed = compress(bytes);
+      if (compressed != null) {
+        return compressed;
+      }
+    }
+    byte[] raw = new byte[HEADER_LENGTH + bytes.length];
+    writeHeader(raw, RAW);
+    System.arraycopy(bytes, 0, raw, HEADER_LENGTH, bytes.length);
+    return raw;
+  }
+
+  private static void writeHeader(byte[] bytes, byte format) {
+    System.arraycopy(MAGIC, 0, bytes, 0, MAGIC.length);
+    bytes[MAGIC.length] = format;
+  }
+
+  /**
+   * @return 是否以魔数和已知的格式开头
+   */
+  private static boolean hasHeader(byte[] bytes) {
+    if (bytes.length < HEADER_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (bytes[i] != MAGIC[i]) {
+        return false;
+      }
+    }
+    byte format = bytes[MAGIC.length];
+    return format == RAW || (format == LZ4 && bytes.length >= LZ4_HEADER_LENGTH);
+  }
+
+  /**
+   * LZ4 压缩，压缩后没有变小时返回 null
+   */
+  private byte[] compress(byte[] bytes) {
+    long start = System.nanoTime();
+    int maxLength = compressor.maxCompressedLength(bytes.length);
+    byte[] compressed = new byte[LZ4_HEADER_LENGTH + maxLength];
+    writeHeader(compressed, LZ4);
+    compressed[HEADER_LENGTH] = (byte) (bytes.length >>> 24);
+    compressed[HEADER_LENGTH + 1] = (byte) (bytes.length >>> 16);
+    compressed[HEADER_LENGTH + 2] = (byte) (bytes.length >>> 8);
+    compressed[HEADER_LENGTH + 3] = (byte) bytes.length;
+    int length = compressor.compress(bytes, 0, bytes.length, compressed, LZ4_HEADER_LENGTH, maxLength);
+    if (LZ4_HEADER_LENGTH + length >= HEADER_LENGTH + bytes.length) {
+      return null;
+    }
+    statistics.recordCompress(bytes.length, LZ4_HEADER_LENGTH + length, System.nanoTime() - start);
+    return Arrays.copyOf(compressed, LZ4_HEADER_LENGTH + length);
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return delegate.deserialize(bytes);
+    }
+    if (!hasHeader(bytes)) {
+      // 没有头部的旧数据
+      return delegate.deserialize(bytes);
+    }
+    if (bytes[MAGIC.length] == RAW) {
+      return delegate.deserialize(Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length));
+    }
+    return delegate.deserialize(decompress(bytes));
+  }
+
+  private byte[] decompress(byte[] bytes) {
+    long start = System.nanoTime();
+    int length = ((bytes[HEADER_LENGTH] & 0xFF) << 24) | ((bytes[HEADER_LENGTH + 1] & 0xFF) << 16)
+        | ((bytes[HEADER_LENGTH + 2] & 0xFF) << 8) | (bytes[HEADER_LENGTH + 3] & 0xFF);
+    if (length < 0) {
+      throw new SerializationException("Could not decompress lz4: invalid length " + length);
+    }
+    byte[] restored = new byte[length];
+    try {
+      decompressor.decompress(bytes, LZ4_HEADER_LENGTH, restored, 0, length);
+    } catch (LZ4Exception e) {
+      throw new SerializationException("Could not decompress lz4: " + e.getMessage(), e);
+    }
+    statistics.recordDecompress(System.nanoTime() - start);
+    return restored;
+  }
+}
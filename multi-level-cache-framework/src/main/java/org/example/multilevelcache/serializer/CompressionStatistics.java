@@ -0,0 +1,62 @@
+package org.example.multilevelcache.serializer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压缩统计：压缩次数、压缩前后字节数、压缩/解压耗时
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CompressionStatistics {
+  private final LongAdder compressCount = new LongAdder();
+  private final LongAdder originalBytes = new LongAdder();
+  private final LongAdder compressedBytes = new LongAdder();
+  private final LongAdder compressNanos = new LongAdder();
+  private final LongAdder decompressCount = new LongAdder();
+  private final LongAdder decompressNanos = new LongAdder();
+
+  void recordCompress(int originalLength, int compressedLength, long nanos) {
+    compressCount.increment();
+    originalBytes.add(originalLength);
+    compressedBytes.add(compressedLength);
+    compressNanos.add(nanos);
+  }
+
+  void recordDecompress(long nanos) {
+    decompressCount.increment();
+    decompressNanos.add(nanos);
+  }
+
+  public long getCompressCount() {
+    return compressCount.sum();
+  }
+
+  public long getOriginalBytes() {
+    return originalBytes.sum();
+  }
+
+  public long getCompressedBytes() {
+    return compressedBytes.sum();
+  }
+
+  public long getCompressNanos() {
+    return compressNanos.sum();
+  }
+
+  public long getDecompressCount() {
+    return decompressCount.sum();
+  }
+
+  public long getDecompressNanos() {
+    return decompressNanos.sum();
+  }
+
+  /**
+   * 压缩率：压缩后字节数 / 压缩前字节数，没有压缩过时为 1
+   */
+  public double getCompressionRatio() {
+    long original = getOriginalBytes();
+    return original == 0 ? 1 : (double) getCompressedBytes() / original;
+  }
+}
@@ -0,0 +1,65 @@
+package org.example.multilevelcache.serializer;
+
+import java.util.Arrays;
+
+/**
+ * 带版本号的 redis value：0xC2 + 十进制版本号 + ':' + 序列化后的 value。
+ * <p>
+ * 版本号由 lua 脚本在写入时通过 INCR 生成并拼接到 value 前面，0xC2 不会出现在 json 的开头，
+ * 没有版本号的旧数据版本号为 0。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public final class VersionedValues {
+  static final byte VERSIONED = (byte) 0xC2;
+  private static final byte SEPARATOR = ':';
+  /**
+   * long 的十进制最多 19 位
+   */
+  private static final int MAX_VERSION_LENGTH = 19;
+
+  private VersionedValues() {
+  }
+
+  /**
+   * @param bytes redis 中的 value
+   * @return 版本号，没有版本号时为 0
+   */
+  public static long version(byte[] bytes) {
+    int end = separatorIndex(bytes);
+    if (end < 0) {
+      return 0;
+    }
+    long version = 0;
+    for (int i = 1; i < end; i++) {
+      version = version * 10 + (bytes[i] - '0');
+    }
+    return version;
+  }
+
+  /**
+   * @param bytes redis 中的 value
+   * @return 去掉版本号后的 value
+   */
+  public static byte[] payload(byte[] bytes) {
+    int end = separatorIndex(bytes);
+    return end < 0 ? bytes : Arrays.copyOfRange(bytes, end + 1, bytes.length);
+  }
+
+  private static int separatorIndex(byte[] bytes) {
+    if (bytes == null || bytes.length < 3 || bytes[0] != VERSIONED) {
+      return -1;
+    }
+    int limit = Math.min(bytes.length, MAX_VERSION_LENGTH + 2);
+    for (int i = 1; i < limit; i++) {
+      if (bytes[i] == SEPARATOR) {
+        return i > 1 ? i : -1;
+      }
+      if (bytes[i] < '0' || bytes[i] > '9') {
+        return -1;
+      }
+    }
+    return -1;
+  }
+}
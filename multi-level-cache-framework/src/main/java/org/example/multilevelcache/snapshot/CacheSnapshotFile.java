@@ -0,0 +1,200 @@
+package org.example.multilevelcache.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 本地缓存快照文件，通过内存映射读写
+ * <p>
+ * 格式：magic、格式版本、创建时间、cacheName 个数，之后每个 cacheName 一段：名称、entry 个数、该段 entry 的字节数、entry 列表；
+ * 每个 entry 为序列化后的 key、序列化后的 value 和本地过期时间（0 不过期）。打开时只读取每段的位置，
+ * 某个 cacheName 的 entry 在 read 时才解析。写入先写临时文件再原子替换，不会留下写了一半的快照。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public final class CacheSnapshotFile {
+  private static final int MAGIC = 0x4D4C4353;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+  private final ByteBuffer buffer;
+  private final long createdAt;
+  /**
+   * cacheName -> 该段 entry 的起始位置和个数
+   */
+  private final Map<String, long[]> sections;
+
+  private CacheSnapshotFile(ByteBuffer buffer, long createdAt, Map<String, long[]> sections) {
+    this.buffer = buffer;
+    this.createdAt = createdAt;
+    this.sections = sections;
+  }
+
+  /**
+   * 写入快照
+   *
+   * @param path    快照文件路径
+   * @param entries cacheName -> entry 列表
+   */
+  public static void write(Path path, Map<String, List<Entry>> entries) throws IOException {
+    long size = HEADER_SIZE;
+    Map<String, byte[]> names = new LinkedHashMap<>();
+    for (Map.Entry<String, List<Entry>> section : entries.entrySet()) {
+      byte[] name = section.getKey().getBytes(StandardCharsets.UTF_8);
+      names.put(section.getKey(), name);
+      size += 4 + name.length + 4 + 8 + sectionSize(section.getValue());
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("cache snapshot is too large, the size is " + size);
+    }
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      out.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(System.currentTimeMillis()).putInt(entries.size());
+      for (Map.Entry<String, List<Entry>> section : entries.entrySet()) {
+        byte[] name = names.get(section.getKey());
+        out.putInt(name.length).put(name);
+        out.putInt(section.getValue().size()).putLong(sectionSize(section.getValue()));
+        for (Entry entry : section.getValue()) {
+          out.putInt(entry.key.length).put(entry.key);
+          out.putInt(entry.value.length).put(entry.value);
+          out.putLong(entry.expireAt);
+        }
+      }
+      out.force();
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static long sectionSize(List<Entry> entries) {
+    long size = 0;
+    for (Entry entry : entries) {
+      size += 4 + entry.key.length + 4 + entry.value.length + 8;
+    }
+    return size;
+  }
+
+  /**
+   * 打开快照，只读取每个 cacheName 的位置
+   *
+   * @param path 快照文件路径
+   * @return 文件不存在时为 null
+   */
+  public static CacheSnapshotFile open(Path path) throws IOException {
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("invalid cache snapshot size " + channel.size());
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IOException("invalid cache snapshot header, the path is " + path);
+    }
+    long createdAt = buffer.getLong();
+    int count = buffer.getInt();
+    Map<String, long[]> sections = new LinkedHashMap<>();
+    try {
+      for (int i = 0; i < count; i++) {
+        byte[] name = new byte[buffer.getInt()];
+        buffer.get(name);
+        int entryCount = buffer.getInt();
+        long length = buffer.getLong();
+        sections.put(new String(name, StandardCharsets.UTF_8), new long[]{buffer.position(), entryCount});
+        buffer.position(Math.toIntExact(buffer.position() + length));
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("corrupted cache snapshot, the path is " + path, e);
+    }
+    return new CacheSnapshotFile(buffer, createdAt, sections);
+  }
+
+  /**
+   * 快照的创建时间
+   */
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public Set<String> getCacheNames() {
+    return Collections.unmodifiableSet(sections.keySet());
+  }
+
+  /**
+   * 解析 cacheName 的 entry，可以在多个线程中同时调用
+   *
+   * @param cacheName cacheName
+   * @return 按写入顺序（从热到冷）的 entry
+   */
+  public List<Entry> read(String cacheName) {
+    long[] section = sections.get(cacheName);
+    if (section == null) {
+      return Collections.emptyList();
+    }
+    ByteBuffer in = buffer.duplicate();
+    in.position((int) section[0]);
+    List<Entry> entries = new ArrayList<>((int) section[1]);
+    for (int i = 0; i < section[1]; i++) {
+      byte[] key = new byte[in.getInt()];
+      in.get(key);
+      byte[] value = new byte[in.getInt()];
+      in.get(value);
+      entries.add(new Entry(key, value, in.getLong()));
+    }
+    return entries;
+  }
+
+  /**
+   * 快照中的一个缓存
+   */
+  public static final class Entry {
+    private final byte[] key;
+    private final byte[] value;
+    private final long expireAt;
+
+    /**
+     * @param key      序列化后的 key
+     * @param value    序列化后的 value，与写入 redis 的内容一致（不包含版本号）
+     * @param expireAt 本地缓存的过期时间戳，单位毫秒，0 不过期
+     */
+    public Entry(byte[] key, byte[] value, long expireAt) {
+      this.key = key;
+      this.value = value;
+      this.expireAt = expireAt;
+    }
+
+    public byte[] getKey() {
+      return key;
+    }
+
+    public byte[] getValue() {
+      return value;
+    }
+
+    public long getExpireAt() {
+      return expireAt;
+    }
+  }
+}
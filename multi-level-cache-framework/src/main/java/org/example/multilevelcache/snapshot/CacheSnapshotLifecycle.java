@@ -0,0 +1,85 @@
+package org.example.multilevelcache.snapshot;
+
+import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地缓存快照的恢复和写入
+ * <p>
+ * 在 ApplicationStartedEvent 时恢复：此时缓存更新消息的监听已经启动，恢复期间其他节点的更新不会丢失；
+ * 开启 waitForRestore 时在该事件中等待恢复完成，应用在恢复完成（或超时）后才就绪。关闭时写入快照。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CacheSnapshotLifecycle implements ApplicationListener<ApplicationStartedEvent>, DisposableBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CacheSnapshotLifecycle.class);
+
+  private final RedisCaffeineCacheManager redisCaffeineCacheManager;
+  private final MultiCacheProperties.Snapshot snapshot;
+  private final Path path;
+
+  public CacheSnapshotLifecycle(RedisCaffeineCacheManager redisCaffeineCacheManager, MultiCacheProperties.Snapshot snapshot) {
+    this.redisCaffeineCacheManager = redisCaffeineCacheManager;
+    this.snapshot = snapshot;
+    this.path = Paths.get(snapshot.getPath());
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationStartedEvent event) {
+    AtomicInteger threadIndex = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, snapshot.getRestoreThreads()), r -> {
+      Thread thread = new Thread(r, "cache-snapshot-restore-" + threadIndex.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    long start = System.currentTimeMillis();
+    CompletableFuture<Integer> future = redisCaffeineCacheManager.restoreSnapshot(path, snapshot.getMaxAge(),
+        Math.max(1, snapshot.getBatchSize()), executor);
+    future.whenComplete((restored, e) -> {
+      executor.shutdown();
+      if (e != null) {
+        LOGGER.warn("restore cache snapshot error, the path is {}", path, e);
+      } else if (restored > 0) {
+        LOGGER.info("restore cache snapshot, the restored size is {}, cost {} ms", restored, System.currentTimeMillis() - start);
+      }
+    });
+    if (!snapshot.isWaitForRestore()) {
+      return;
+    }
+    try {
+      future.get(snapshot.getRestoreTimeout(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      LOGGER.warn("wait for cache snapshot restoring timeout, continue restoring in background");
+    } catch (ExecutionException e) {
+      // 已经在 whenComplete 中记录
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    try {
+      redisCaffeineCacheManager.saveSnapshot(path, snapshot.getMaxEntries());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("save cache snapshot error, the path is {}", path, e);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package org.example.multilevelcache.warmup;
+
+import org.example.multilevelcache.config.KeyspaceSweeper;
+import org.example.multilevelcache.config.RedisCaffeineCache;
+import org.example.multilevelcache.config.RedisCaffeineCacheManager;
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动预热：在应用就绪之前，将配置的缓存从 redis 加载到 caffeine
+ * <p>
+ * 在 ApplicationStartedEvent 中执行（缓存更新消息的监听已经启动），当前线程依次 SCAN 每个缓存 getKeyPrefix() 匹配的 key，
+ * 每批 key 交给有界的线程池通过一次 MGET 获取并写入 caffeine，队列满时由 SCAN 线程执行，限制对 redis 的压力。
+ * 写入的字节数达到 maxBytes、加载的个数达到 caffeine 的 maximumSize 或超过 timeout 时停止，正在执行的批次可能略微超出。
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class CacheWarmer implements ApplicationListener<ApplicationStartedEvent> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CacheWarmer.class);
+
+  private final RedisCaffeineCacheManager redisCaffeineCacheManager;
+  private final RedisTemplate<Object, Object> redisTemplate;
+  private final MultiCacheProperties.WarmUp warmUp;
+  private final Set<String> cacheNames;
+  private final WarmUpProgress progress = new WarmUpProgress();
+  private volatile long deadline;
+
+  public CacheWarmer(RedisCaffeineCacheManager redisCaffeineCacheManager, RedisTemplate<Object, Object> redisTemplate,
+                     MultiCacheProperties properties) {
+    this.redisCaffeineCacheManager = redisCaffeineCacheManager;
+    this.redisTemplate = redisTemplate;
+    this.warmUp = properties.getWarmUp();
+    this.cacheNames = warmUp.getCacheNames().isEmpty() ? properties.getCacheNames() : warmUp.getCacheNames();
+  }
+
+  public WarmUpProgress getProgress() {
+    return progress;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationStartedEvent event) {
+    warmUp();
+  }
+
+  /**
+   * 预热所有配置的缓存，最多执行 timeout 毫秒
+   */
+  public void warmUp() {
+    progress.start();
+    this.deadline = System.currentTimeMillis() + warmUp.getTimeout();
+    int threads = Math.max(1, warmUp.getThreads());
+    AtomicInteger threadIndex = new AtomicInteger();
+    ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(threads * 2), r -> {
+      Thread thread = new Thread(r, "cache-warm-up-" + threadIndex.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+    List<RedisCaffeineCache> caches = new ArrayList<>();
+    try {
+      for (String cacheName : cacheNames) {
+        RedisCaffeineCache cache = (RedisCaffeineCache) redisCaffeineCacheManager.getCache(cacheName);
+        if (cache == null || isStopped()) {
+          continue;
+        }
+        cache.beginPreload();
+        caches.add(cache);
+        scan(cache, workers);
+      }
+      workers.shutdown();
+      if (!workers.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+        LOGGER.warn("cache warm up timeout, the loaded entries is {}", progress.getLoadedEntries());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      LOGGER.warn("cache warm up error, the loaded entries is {}", progress.getLoadedEntries(), e);
+    } finally {
+      workers.shutdownNow();
+      caches.forEach(RedisCaffeineCache::endPreload);
+      progress.finish();
+    }
+    LOGGER.info("cache warm up finished, scanned keys: {}, loaded entries: {}, loaded bytes: {}, cost {} ms",
+        progress.getScannedKeys(), progress.getLoadedEntries(), progress.getLoadedBytes(), progress.getElapsed());
+  }
+
+  /**
+   * SCAN 缓存的 key，每批提交给线程池
+   */
+  private void scan(RedisCaffeineCache cache, ThreadPoolExecutor workers) {
+    int batchSize = Math.max(1, warmUp.getBatchSize());
+    long capacity = cache.getCaffeineCache().policy().eviction()
+        .map(eviction -> eviction.isWeighted() ? Long.MAX_VALUE : eviction.getMaximum())
+        .orElse(Long.MAX_VALUE);
+    ScanOptions options = ScanOptions.scanOptions().match(KeyspaceSweeper.prefixPattern(cache.getKeyPrefix()))
+        .count(batchSize).build();
+    redisTemplate.execute((RedisCallback<Void>) connection -> {
+      long submitted = 0;
+      List<byte[]> batch = new ArrayList<>(batchSize);
+      Cursor<byte[]> cursor = connection.scan(options);
+      try {
+        while (submitted < capacity && !isStopped() && cursor.hasNext()) {
+          batch.add(cursor.next());
+          if (batch.size() >= batchSize) {
+            submit(cache, batch, workers);
+            submitted += batch.size();
+            batch = new ArrayList<>(batchSize);
+          }
+        }
+        if (!batch.isEmpty() && !isStopped()) {
+          submit(cache, batch, workers);
+        }
+      } finally {
+        closeCursor(cursor);
+      }
+      return null;
+    });
+    LOGGER.debug("scan cache keys for warm up finished, the cache name is {}, the scanned keys is {}",
+        cache.getName(), progress.getScannedKeys());
+  }
+
+  private void submit(RedisCaffeineCache cache, List<byte[]> batch, ThreadPoolExecutor workers) {
+    workers.execute(() -> {
+      if (isStopped()) {
+        return;
+      }
+      try {
+        cache.warmUp(batch, progress);
+      } catch (RuntimeException e) {
+        LOGGER.warn("cache warm up batch error, the cache name is {}", cache.getName(), e);
+      }
+    });
+  }
+
+  /**
+   * 超过时间或内存预算
+   */
+  private boolean isStopped() {
+    return System.currentTimeMillis() >= deadline || progress.getLoadedBytes() >= warmUp.getMaxBytes();
+  }
+
+  private static void closeCursor(Cursor<byte[]> cursor) {
+    try {
+      cursor.close();
+    } catch (Exception e) {
+      LOGGER.warn("close redis scan cursor error", e);
+    }
+  }
+}
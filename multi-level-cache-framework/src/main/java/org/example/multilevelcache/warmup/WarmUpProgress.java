@@ -0,0 +1,75 @@
+package org.example.multilevelcache.warmup;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动预热的进度，多个预热线程同时更新
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+public class WarmUpProgress {
+  private final AtomicLong scannedKeys = new AtomicLong();
+  private final AtomicLong loadedEntries = new AtomicLong();
+  private final AtomicLong loadedBytes = new AtomicLong();
+  private volatile long startTime;
+  private volatile long endTime;
+
+  /**
+   * SCAN 到的 redis key
+   *
+   * @param count key 个数
+   */
+  public void recordScanned(int count) {
+    scannedKeys.addAndGet(count);
+  }
+
+  /**
+   * 写入 caffeine 的缓存
+   *
+   * @param count 写入的个数
+   * @param bytes 序列化后的字节数之和
+   */
+  public void recordLoaded(int count, long bytes) {
+    loadedEntries.addAndGet(count);
+    loadedBytes.addAndGet(bytes);
+  }
+
+  void start() {
+    this.startTime = System.currentTimeMillis();
+    this.endTime = 0;
+  }
+
+  void finish() {
+    this.endTime = System.currentTimeMillis();
+  }
+
+  public long getScannedKeys() {
+    return scannedKeys.get();
+  }
+
+  public long getLoadedEntries() {
+    return loadedEntries.get();
+  }
+
+  public long getLoadedBytes() {
+    return loadedBytes.get();
+  }
+
+  /**
+   * 预热是否正在进行
+   */
+  public boolean isRunning() {
+    return startTime > 0 && endTime == 0;
+  }
+
+  /**
+   * 预热耗时，单位毫秒，正在进行时为已经进行的时间
+   */
+  public long getElapsed() {
+    if (startTime == 0) {
+      return 0;
+    }
+    return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+  }
+}
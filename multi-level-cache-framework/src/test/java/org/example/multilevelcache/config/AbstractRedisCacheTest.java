@@ -0,0 +1,125 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.hotkey.HotKeyRefresher;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
+import org.example.multilevelcache.manager.DistributedLock;
+import org.example.multilevelcache.serializer.CacheValueSerializers;
+import io.lettuce.core.RedisURI;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 需要真实 redis 的测试，redis 地址通过 -Dredis.host、-Dredis.port 指定（默认 localhost:6379），连接不上时跳过
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+abstract class AbstractRedisCacheTest {
+  static LettuceConnectionFactory connectionFactory;
+  static RedisTemplate<Object, Object> redisTemplate;
+  static RedisURI redisUri;
+
+  final MultiCacheProperties properties = new MultiCacheProperties();
+  final CacheMessagePublisher publisher = mock(CacheMessagePublisher.class);
+  final DistributedLock lock = mock(DistributedLock.class);
+  /**
+   * 每个测试使用不同的 cacheName，互不影响
+   */
+  final String cacheName = "test-" + UUID.randomUUID();
+  private KeyspaceSweeper sweeper;
+  private HotKeyRefresher hotKeyRefresher;
+  private RedisAsyncCommands asyncCommands;
+
+  @BeforeAll
+  static void connect() {
+    String host = System.getProperty("redis.host", "localhost");
+    int port = Integer.getInteger("redis.port", 6379);
+    connectionFactory = new LettuceConnectionFactory(host, port);
+    connectionFactory.afterPropertiesSet();
+    boolean available;
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      available = "PONG".equals(connection.ping());
+    } catch (RuntimeException e) {
+      available = false;
+    }
+    assumeTrue(available, "redis is not available at " + host + ":" + port);
+    redisUri = RedisURI.create(host, port);
+    redisTemplate = new RedisTemplate<>();
+    redisTemplate.setConnectionFactory(connectionFactory);
+    redisTemplate.setValueSerializer(CacheValueSerializers.create("json", Collections.emptyList()));
+    redisTemplate.setKeySerializer(new StringRedisSerializer());
+    redisTemplate.afterPropertiesSet();
+  }
+
+  @AfterAll
+  static void disconnect() {
+    if (connectionFactory != null) {
+      connectionFactory.destroy();
+    }
+  }
+
+  RedisCaffeineCacheManager cacheManager() {
+    return cacheManager(CacheKeyEncoder.TO_STRING);
+  }
+
+  RedisCaffeineCacheManager cacheManager(CacheKeyEncoder keyEncoder) {
+    return cacheManager(keyEncoder, CacheMetricsFactory.NOOP);
+  }
+
+  RedisCaffeineCacheManager cacheManager(CacheKeyEncoder keyEncoder, CacheMetricsFactory metricsFactory) {
+    sweeper = new KeyspaceSweeper(redisTemplate, 100, 0);
+    hotKeyRefresher = new HotKeyRefresher();
+    asyncCommands = new RedisAsyncCommands(redisTemplate, 2, 100);
+    return new RedisCaffeineCacheManager(properties, redisTemplate, lock, publisher, sweeper, metricsFactory,
+        hotKeyRefresher, new CacheKeyFilterFactory(properties, null), keyEncoder, asyncCommands);
+  }
+
+  RedisCaffeineCache cache(RedisCaffeineCacheManager cacheManager) {
+    return (RedisCaffeineCache) cacheManager.getCache(cacheName);
+  }
+
+  /**
+   * @return redis 中的原始 value，不存在时为 null
+   */
+  byte[] rawValue(String redisKey) {
+    byte[] rawKey = redisKey.getBytes(StandardCharsets.UTF_8);
+    return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+  }
+
+  @AfterEach
+  void cleanUp() throws Exception {
+    if (redisTemplate != null) {
+      Set<Object> keys = redisTemplate.keys(cacheName + "*");
+      if (keys != null && !keys.isEmpty()) {
+        redisTemplate.delete(keys);
+      }
+    }
+    if (sweeper != null) {
+      sweeper.destroy();
+    }
+    if (hotKeyRefresher != null) {
+      hotKeyRefresher.destroy();
+    }
+    if (asyncCommands != null) {
+      asyncCommands.destroy();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package org.example.multilevelcache.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 记录的剩余过期时间在写入 caffeine 时取出，没有写入时可以移除
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class CacheEntryExpiryTest {
+  private final CacheEntryExpiry expiry = new CacheEntryExpiry(60000, 120000);
+
+  @Test
+  void remainingTtlIsConsumedOnCreate() {
+    expiry.setRemainingTtl("k", 1000);
+
+    long nanos = expiry.expireAfterCreate("k", "v", System.nanoTime());
+
+    assertThat(nanos).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertThat(expiry.pendingCount()).isZero();
+    // 取出之后使用默认的过期时间
+    assertThat(expiry.expireAfterUpdate("k", "v", System.nanoTime(), 0)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(60000));
+  }
+
+  @Test
+  void removedRemainingTtlIsNotKept() {
+    expiry.setRemainingTtl("k", 1000);
+
+    expiry.removeRemainingTtl("k");
+
+    assertThat(expiry.pendingCount()).isZero();
+    assertThat(expiry.expireAfterCreate("k", "v", System.nanoTime())).isEqualTo(TimeUnit.MILLISECONDS.toNanos(60000));
+  }
+
+  @Test
+  void leftoverRemainingTtlNeverOutlivesRedis() throws Exception {
+    expiry.setRemainingTtl("k", 50);
+    Thread.sleep(100);
+
+    // 遗漏的记录被之后的写入取出时，redis 中的 key 已经过期，本地缓存也立即过期
+    assertThat(expiry.expireAfterCreate("k", "v", System.nanoTime())).isZero();
+  }
+}
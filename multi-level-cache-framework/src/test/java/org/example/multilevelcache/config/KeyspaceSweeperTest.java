@@ -0,0 +1,24 @@
+package org.example.multilevelcache.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 前缀中的 glob 特殊字符被转义，不会匹配到其他缓存的 key
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class KeyspaceSweeperTest {
+
+  @Test
+  void plainPrefixIsKept() {
+    assertThat(KeyspaceSweeper.prefixPattern("users:cache:")).isEqualTo("users:cache:*");
+  }
+
+  @Test
+  void globCharactersAreEscaped() {
+    assertThat(KeyspaceSweeper.prefixPattern("a*b?c[d]e\\f:")).isEqualTo("a\\*b\\?c\\[d\\]e\\\\f:*");
+  }
+}
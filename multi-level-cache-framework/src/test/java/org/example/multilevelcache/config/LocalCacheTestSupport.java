@@ -0,0 +1,66 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.hotkey.HotKeyRefresher;
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
+import org.example.multilevelcache.manager.DistributedLock;
+import org.example.multilevelcache.serializer.CacheValueSerializers;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 不需要 redis 的测试：关闭 redis 缓存（remoteEnabled=false），RedisTemplate 只提供序列化方式
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+final class LocalCacheTestSupport {
+
+  private LocalCacheTestSupport() {
+  }
+
+  /**
+   * 没有连接工厂的 RedisTemplate，与自动配置使用相同的序列化方式
+   */
+  static RedisTemplate<Object, Object> offlineTemplate() {
+    RedisTemplate<Object, Object> template = new RedisTemplate<>();
+    template.setValueSerializer(CacheValueSerializers.create("json", Collections.emptyList()));
+    template.setKeySerializer(new StringRedisSerializer());
+    return template;
+  }
+
+  /**
+   * 创建只使用 caffeine 的缓存
+   *
+   * @param properties       配置，cacheName 的 remoteEnabled 会被设置为 false
+   * @param cacheName        cacheName
+   * @param publisher        缓存更新消息发布
+   * @param keyFilterFactory key 过滤器
+   * @return 缓存
+   */
+  static RedisCaffeineCache localCache(MultiCacheProperties properties, String cacheName, CacheMessagePublisher publisher,
+                                       CacheKeyFilterFactory keyFilterFactory) {
+    return localCache(properties, cacheName, publisher, keyFilterFactory, mock(DistributedLock.class));
+  }
+
+  /**
+   * 创建只使用 caffeine 的缓存，并指定分布式锁
+   */
+  static RedisCaffeineCache localCache(MultiCacheProperties properties, String cacheName, CacheMessagePublisher publisher,
+                                       CacheKeyFilterFactory keyFilterFactory, DistributedLock lock) {
+    MultiCacheProperties.CacheConfig config = properties.getCaches().computeIfAbsent(cacheName, name -> new MultiCacheProperties.CacheConfig());
+    config.setRemoteEnabled(false);
+    RedisTemplate<Object, Object> template = offlineTemplate();
+    RedisCaffeineCacheManager cacheManager = new RedisCaffeineCacheManager(properties, template, lock,
+        publisher, new KeyspaceSweeper(template, 100, 0), CacheMetricsFactory.NOOP, new HotKeyRefresher(), keyFilterFactory,
+        CacheKeyEncoder.TO_STRING, new RedisAsyncCommands(template, Runnable::run));
+    return (RedisCaffeineCache) cacheManager.getCache(cacheName);
+  }
+}
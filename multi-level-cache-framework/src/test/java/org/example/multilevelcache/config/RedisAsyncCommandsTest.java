@@ -0,0 +1,91 @@
+package org.example.multilevelcache.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveStringCommands;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * RedisAsyncCommands 的线程池和共享的响应式连接
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisAsyncCommandsTest {
+  private static final byte[] KEY = "k".getBytes(StandardCharsets.UTF_8);
+
+  private static RedisTemplate<Object, Object> template(RedisConnectionFactory connectionFactory) {
+    RedisTemplate<Object, Object> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setKeySerializer(new StringRedisSerializer());
+    template.afterPropertiesSet();
+    return template;
+  }
+
+  @Test
+  void fullQueueCompletesExceptionally() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    RedisConnection connection = mock(RedisConnection.class);
+    when(connection.get(any())).thenAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return null;
+    });
+    RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+    when(connectionFactory.getConnection()).thenReturn(connection);
+    RedisAsyncCommands commands = new RedisAsyncCommands(template(connectionFactory), 1, 1);
+    try {
+      CompletableFuture<byte[]> running = commands.get(KEY);
+      CompletableFuture<byte[]> queued = commands.get(KEY);
+
+      CompletableFuture<byte[]> rejected = commands.get(KEY);
+
+      assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(RejectedExecutionException.class);
+      release.countDown();
+      assertThat(running.get(5, TimeUnit.SECONDS)).isNull();
+      assertThat(queued.get(5, TimeUnit.SECONDS)).isNull();
+    } finally {
+      release.countDown();
+      commands.destroy();
+    }
+  }
+
+  @Test
+  void reactiveConnectionIsSharedAndClosed() throws Exception {
+    ReactiveStringCommands stringCommands = mock(ReactiveStringCommands.class);
+    when(stringCommands.get(any(ByteBuffer.class))).thenAnswer(invocation -> Mono.just(ByteBuffer.wrap(new byte[]{1})));
+    ReactiveRedisConnection reactiveConnection = mock(ReactiveRedisConnection.class);
+    when(reactiveConnection.stringCommands()).thenReturn(stringCommands);
+    LettuceConnectionFactory connectionFactory = mock(LettuceConnectionFactory.class);
+    when(connectionFactory.getReactiveConnection()).thenReturn(reactiveConnection);
+    RedisAsyncCommands commands = new RedisAsyncCommands(template(connectionFactory), 1, 10);
+
+    assertThat(commands.get(KEY).get(5, TimeUnit.SECONDS)).containsExactly(1);
+    assertThat(commands.get(KEY).get(5, TimeUnit.SECONDS)).containsExactly(1);
+    commands.destroy();
+
+    verify(connectionFactory, times(1)).getReactiveConnection();
+    verify(reactiveConnection, times(1)).close();
+  }
+}
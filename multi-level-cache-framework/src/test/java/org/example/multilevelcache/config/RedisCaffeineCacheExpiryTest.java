@@ -0,0 +1,61 @@
+package org.example.multilevelcache.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * redis 写入失败时移除记录的剩余过期时间
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheExpiryTest extends AbstractRedisCacheTest {
+
+  @Test
+  void failedAsyncPutRemovesRemainingTtl() {
+    properties.getRedis().setDefaultExpiration(60000);
+    properties.getRedis().setVersioned(true);
+    RedisCaffeineCache cache = cache(cacheManager());
+    // 版本号不是整数，INCR 失败，异步写入以异常结束
+    byte[] versionKey = (cacheName + "#version").getBytes(StandardCharsets.UTF_8);
+    byte[] notNumber = "not-a-number".getBytes(StandardCharsets.UTF_8);
+    redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(versionKey, notNumber));
+
+    assertThatThrownBy(() -> cache.putAsync("k", "v").get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+    assertThat(cache.getExpiry().pendingCount()).isZero();
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isNull();
+  }
+
+  @Test
+  void failedPutRemovesRemainingTtl() {
+    properties.getRedis().setDefaultExpiration(60000);
+    properties.getRedis().setVersioned(true);
+    RedisCaffeineCache cache = cache(cacheManager());
+    byte[] versionKey = (cacheName + "#version").getBytes(StandardCharsets.UTF_8);
+    byte[] notNumber = "not-a-number".getBytes(StandardCharsets.UTF_8);
+    redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(versionKey, notNumber));
+
+    assertThatThrownBy(() -> cache.put("k", "v")).isInstanceOf(RuntimeException.class);
+
+    assertThat(cache.getExpiry().pendingCount()).isZero();
+  }
+
+  @Test
+  void successfulPutConsumesRemainingTtl() {
+    properties.getRedis().setDefaultExpiration(60000);
+    RedisCaffeineCache cache = cache(cacheManager());
+
+    cache.put("k", "v");
+
+    assertThat(cache.getExpiry().pendingCount()).isZero();
+    assertThat(cache.get("k", String.class)).isEqualTo("v");
+  }
+}
@@ -0,0 +1,48 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.hotkey.HotKeyDetector;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热点 key 收到没有版本号的消息时延迟刷新；消息的版本号比已知的更新时直接清除本地缓存
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheHotKeyTest extends AbstractRedisCacheTest {
+
+  private RedisCaffeineCache hotCache() {
+    properties.getRedis().setVersioned(true);
+    properties.getHotKey().setEnabled(true);
+    properties.getHotKey().setMinFrequency(2);
+    // 刷新的延迟足够长，测试期间不会执行
+    properties.getHotKey().setRefreshJitter(60000);
+    RedisCaffeineCache cache = cache(cacheManager());
+    cache.put("k", "v1");
+    for (int i = 0; i < 10; i++) {
+      cache.get("k");
+    }
+    assertThat(cache.getHotKeys()).extracting(HotKeyDetector.HotKey::getKey).contains("k");
+    return cache;
+  }
+
+  @Test
+  void unversionedMessageKeepsHotKey() {
+    RedisCaffeineCache cache = hotCache();
+
+    cache.clearLocal("k");
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v1");
+  }
+
+  @Test
+  void newerVersionInvalidatesHotKey() {
+    RedisCaffeineCache cache = hotCache();
+
+    cache.clearLocal("k", cache.latestVersion("k") + 1);
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isNull();
+  }
+}
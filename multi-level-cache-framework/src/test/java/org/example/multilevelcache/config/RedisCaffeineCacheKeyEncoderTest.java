@@ -0,0 +1,51 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 自定义 CacheKeyEncoder 时，读写和删除使用同一个 redis key
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheKeyEncoderTest extends AbstractRedisCacheTest {
+  private static final CacheKeyEncoder ENCODER = key -> ("id-" + key).getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void evictDeletesEncodedKey() {
+    RedisCaffeineCache cache = cache(cacheManager(ENCODER));
+    cache.put("k", "v");
+    assertThat(rawValue(cache.getKeyPrefix() + "id-k")).isNotNull();
+
+    cache.evict("k");
+
+    assertThat(rawValue(cache.getKeyPrefix() + "id-k")).isNull();
+    assertThat(cache.get("k")).isNull();
+  }
+
+  @Test
+  void versionedEvictDeletesEncodedKey() {
+    properties.getRedis().setVersioned(true);
+    RedisCaffeineCache cache = cache(cacheManager(ENCODER));
+    cache.put("k", "v");
+
+    cache.evict("k");
+
+    assertThat(rawValue(cache.getKeyPrefix() + "id-k")).isNull();
+  }
+
+  @Test
+  void putIfAbsentUsesEncodedKey() {
+    RedisCaffeineCache cache = cache(cacheManager(ENCODER));
+
+    cache.putIfAbsent("k", "v");
+
+    assertThat(rawValue(cache.getKeyPrefix() + "id-k")).isNotNull();
+    assertThat(rawValue(cache.getKeyPrefix() + "k")).isNull();
+  }
+}
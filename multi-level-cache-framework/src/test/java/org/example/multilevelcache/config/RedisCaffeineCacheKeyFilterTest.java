@@ -0,0 +1,98 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilter;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.filter.LocalBloomFilter;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 本地 keyFilter 缺少存在的 key 时仍然回源；共享的 keyFilter 直接拒绝
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheKeyFilterTest {
+  private static final String CACHE_NAME = "users";
+
+  private final MultiCacheProperties properties = new MultiCacheProperties();
+  private final CacheMessagePublisher publisher = mock(CacheMessagePublisher.class);
+
+  private RedisCaffeineCache cache(CacheKeyFilter keyFilter) {
+    CacheKeyFilterFactory keyFilterFactory = mock(CacheKeyFilterFactory.class);
+    when(keyFilterFactory.create(CACHE_NAME)).thenReturn(keyFilter);
+    return LocalCacheTestSupport.localCache(properties, CACHE_NAME, publisher, keyFilterFactory);
+  }
+
+  @Test
+  void localFilterMissCallsLoaderAndAddsKey() {
+    RedisCaffeineCache cache = cache(new LocalBloomFilter(1000, 0.01));
+    assertThat(cache.mightContain("k")).isFalse();
+
+    assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+
+    assertThat(cache.mightContain("k")).isTrue();
+    assertThat(cache.get("k", String.class)).isEqualTo("v");
+  }
+
+  @Test
+  void localFilterMissAfterClearAllStillLoads() {
+    RedisCaffeineCache cache = cache(new LocalBloomFilter(1000, 0.01));
+    // 其他节点写入了 k，但消息在合并发送时退化为清除全部，本地 keyFilter 没有添加 k
+    cache.clearLocal((Object) null);
+    AtomicInteger loads = new AtomicInteger();
+
+    assertThat(cache.get("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+    assertThat(cache.get("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void localFilterMissIsBulkLoaded() {
+    RedisCaffeineCache cache = cache(new LocalBloomFilter(1000, 0.01));
+
+    Map<Object, String> values = cache.getAll(Arrays.asList("a", "b"), keys -> {
+      Map<Object, String> loaded = new HashMap<>();
+      keys.forEach(key -> loaded.put(key, key + "-value"));
+      return loaded;
+    });
+
+    assertThat(values).containsEntry("a", "a-value").containsEntry("b", "b-value");
+    assertThat(cache.mightContain("a")).isTrue();
+  }
+
+  @Test
+  void localFilterMissIsLoadedAsync() throws Exception {
+    RedisCaffeineCache cache = cache(new LocalBloomFilter(1000, 0.01));
+
+    String value = cache.<String>getAsync("k", key -> CompletableFuture.completedFuture("v")).get(5, TimeUnit.SECONDS);
+
+    assertThat(value).isEqualTo("v");
+    assertThat(cache.mightContain("k")).isTrue();
+  }
+
+  @Test
+  void sharedFilterMissIsRejected() {
+    CacheKeyFilter sharedFilter = mock(CacheKeyFilter.class);
+    when(sharedFilter.isShared()).thenReturn(true);
+    when(sharedFilter.mightContain("k")).thenReturn(false);
+    RedisCaffeineCache cache = cache(sharedFilter);
+    AtomicInteger loads = new AtomicInteger();
+
+    assertThat(cache.<String>get("k", () -> "v" + loads.incrementAndGet())).isNull();
+
+    assertThat(loads).hasValue(0);
+  }
+}
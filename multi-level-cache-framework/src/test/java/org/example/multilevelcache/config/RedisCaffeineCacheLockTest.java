@@ -0,0 +1,41 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.example.multilevelcache.manager.DistributedLock;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 回源期间锁过期，释放锁失败时不覆盖回源的结果
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheLockTest {
+  private static final String CACHE_NAME = "users";
+
+  @Test
+  void releaseFailureKeepsLoadedValue() {
+    MultiCacheProperties properties = new MultiCacheProperties();
+    properties.setDistributedLoad(true);
+    DistributedLock lock = mock(DistributedLock.class);
+    when(lock.tryAcquire(anyString(), anyLong(), anyLong())).thenReturn(true);
+    doThrow(new IllegalMonitorStateException("lease expired")).when(lock).release(anyString());
+    RedisCaffeineCache cache = LocalCacheTestSupport.localCache(properties, CACHE_NAME, mock(CacheMessagePublisher.class),
+        new CacheKeyFilterFactory(properties, null), lock);
+
+    assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+
+    verify(lock).release(anyString());
+    assertThat(cache.get("k", String.class)).isEqualTo("v");
+  }
+}
@@ -0,0 +1,58 @@
+package org.example.multilevelcache.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 默认配置（atomicPutIfAbsent）下 putIfAbsent 通过 lua 脚本写入 redis
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCachePutIfAbsentTest extends AbstractRedisCacheTest {
+
+  @Test
+  void putIfAbsentWritesRedisOnlyOnce() {
+    RedisCaffeineCache cache = cache(cacheManager());
+
+    assertThat(cache.putIfAbsent("k", "v1")).isNull();
+    Cache.ValueWrapper previous = cache.putIfAbsent("k", "v2");
+
+    assertThat(previous).isNotNull();
+    assertThat(previous.get()).isEqualTo("v1");
+    assertThat(rawValue(cache.getKeyPrefix() + "k")).isNotNull();
+    cache.getCaffeineCache().invalidateAll();
+    assertThat(cache.get("k", String.class)).isEqualTo("v1");
+    verify(publisher, times(1)).publish(any());
+  }
+
+  @Test
+  void putIfAbsentWithExpiration() {
+    properties.getRedis().setDefaultExpiration(60000);
+    RedisCaffeineCache cache = cache(cacheManager());
+
+    assertThat(cache.putIfAbsent("k", "v1")).isNull();
+
+    Long ttl = redisTemplate.getExpire(cache.getKeyPrefix() + "k");
+    assertThat(ttl).isNotNull().isPositive();
+  }
+
+  @Test
+  void versionedPutIfAbsent() {
+    properties.getRedis().setVersioned(true);
+    RedisCaffeineCache cache = cache(cacheManager());
+
+    assertThat(cache.putIfAbsent("k", "v1")).isNull();
+    Cache.ValueWrapper previous = cache.putIfAbsent("k", "v2");
+
+    assertThat(previous).isNotNull();
+    assertThat(previous.get()).isEqualTo("v1");
+    cache.getCaffeineCache().invalidateAll();
+    assertThat(cache.get("k", String.class)).isEqualTo("v1");
+  }
+}
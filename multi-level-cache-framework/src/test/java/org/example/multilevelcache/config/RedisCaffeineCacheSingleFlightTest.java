@@ -0,0 +1,87 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.config.porperties.MultiCacheProperties;
+import org.example.multilevelcache.filter.CacheKeyFilterFactory;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 同一个 key 并发回源时只调用一次 valueLoader，失败后下一次调用重新回源
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheSingleFlightTest {
+  private static final String CACHE_NAME = "users";
+  private static final int THREADS = 8;
+
+  private final MultiCacheProperties properties = new MultiCacheProperties();
+  private final CacheMessagePublisher publisher = mock(CacheMessagePublisher.class);
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private RedisCaffeineCache cache() {
+    properties.setDistributedLoad(false);
+    return LocalCacheTestSupport.localCache(properties, CACHE_NAME, publisher, new CacheKeyFilterFactory(properties, null));
+  }
+
+  @Test
+  void concurrentGetsShareOneLoad() throws Exception {
+    RedisCaffeineCache cache = cache();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(THREADS);
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<String>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(() -> {
+        started.countDown();
+        return cache.get("k", () -> {
+          loads.incrementAndGet();
+          release.await();
+          return "v";
+        });
+      }));
+    }
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    // 等待其余线程进入等待同一个加载结果
+    Thread.sleep(200);
+    release.countDown();
+
+    for (Future<String> future : futures) {
+      assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("v");
+    }
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v");
+  }
+
+  @Test
+  void failedLoadIsNotShared() {
+    RedisCaffeineCache cache = cache();
+
+    assertThatThrownBy(() -> cache.get("k", () -> {
+      throw new IllegalStateException("loader failed");
+    })).isInstanceOf(Cache.ValueRetrievalException.class).hasCauseInstanceOf(IllegalStateException.class);
+
+    assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+  }
+}
@@ -0,0 +1,104 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.snapshot.CacheSnapshotFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 恢复快照：redis 中的值没有变化时写入 caffeine，被修改、删除或预加载期间被清除的 key 不恢复
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheSnapshotTest extends AbstractRedisCacheTest {
+
+  private static int restore(RedisCaffeineCache cache, List<CacheSnapshotFile.Entry> entries) {
+    cache.beginPreload();
+    try {
+      return cache.restore(entries);
+    } finally {
+      cache.endPreload();
+    }
+  }
+
+  @Test
+  void restoresUnchangedEntries() {
+    RedisCaffeineCache cache = cache(cacheManager());
+    cache.put("k1", "v1");
+    cache.put("k2", "v2");
+    List<CacheSnapshotFile.Entry> entries = cache.snapshot(10);
+    cache.getCaffeineCache().invalidateAll();
+
+    assertThat(restore(cache, entries)).isEqualTo(2);
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k1")).isEqualTo("v1");
+    assertThat(cache.getCaffeineCache().getIfPresent("k2")).isEqualTo("v2");
+  }
+
+  @Test
+  void restoresVersionedEntries() {
+    properties.getRedis().setVersioned(true);
+    RedisCaffeineCache cache = cache(cacheManager());
+    cache.put("k", "v");
+    List<CacheSnapshotFile.Entry> entries = cache.snapshot(10);
+    cache.getCaffeineCache().invalidateAll();
+
+    assertThat(restore(cache, entries)).isEqualTo(1);
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v");
+  }
+
+  @Test
+  void skipsChangedAndDeletedEntries() {
+    RedisCaffeineCache cache = cache(cacheManager());
+    cache.put("k1", "v1");
+    cache.put("k2", "v2");
+    cache.put("k3", "v3");
+    List<CacheSnapshotFile.Entry> entries = cache.snapshot(10);
+    cache.getCaffeineCache().invalidateAll();
+    // 快照之后其他节点修改了 k2、删除了 k3
+    redisTemplate.opsForValue().set(cache.getKeyPrefix() + "k2", "changed");
+    redisTemplate.delete(cache.getKeyPrefix() + "k3");
+
+    assertThat(restore(cache, entries)).isEqualTo(1);
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k1")).isEqualTo("v1");
+    assertThat(cache.getCaffeineCache().getIfPresent("k2")).isNull();
+    assertThat(cache.getCaffeineCache().getIfPresent("k3")).isNull();
+  }
+
+  @Test
+  void skipsKeysClearedDuringPreload() {
+    RedisCaffeineCache cache = cache(cacheManager());
+    cache.put("k1", "v1");
+    cache.put("k2", "v2");
+    List<CacheSnapshotFile.Entry> entries = cache.snapshot(10);
+    cache.getCaffeineCache().invalidateAll();
+
+    cache.beginPreload();
+    try {
+      // 预加载期间收到 k1 的更新消息，快照中的值可能已经过时
+      cache.clearLocal("k1");
+      assertThat(cache.restore(entries)).isEqualTo(1);
+    } finally {
+      cache.endPreload();
+    }
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k1")).isNull();
+    assertThat(cache.getCaffeineCache().getIfPresent("k2")).isEqualTo("v2");
+  }
+
+  @Test
+  void keepsExistingLocalValue() {
+    RedisCaffeineCache cache = cache(cacheManager());
+    cache.put("k", "v");
+    List<CacheSnapshotFile.Entry> entries = cache.snapshot(10);
+
+    assertThat(restore(cache, entries)).isZero();
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v");
+  }
+}
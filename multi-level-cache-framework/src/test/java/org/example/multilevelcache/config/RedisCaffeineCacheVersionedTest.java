@@ -0,0 +1,96 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 开启 versioned：写操作的消息携带递增的版本号，比已知版本更旧的 redis 值不写入 caffeine
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisCaffeineCacheVersionedTest extends AbstractRedisCacheTest {
+
+  private RedisCaffeineCache versionedCache() {
+    properties.getRedis().setVersioned(true);
+    return cache(cacheManager());
+  }
+
+  private List<CacheMessage> published(int count) {
+    ArgumentCaptor<CacheMessage> captor = ArgumentCaptor.forClass(CacheMessage.class);
+    verify(publisher, times(count)).publish(captor.capture());
+    return captor.getAllValues();
+  }
+
+  @Test
+  void writesPublishIncreasingVersions() {
+    RedisCaffeineCache cache = versionedCache();
+
+    cache.put("k", "v1");
+    cache.put("k", "v2");
+    cache.evict("k");
+
+    List<CacheMessage> messages = published(3);
+    assertThat(messages.get(0).getVersion()).isPositive();
+    assertThat(messages.get(1).getVersion()).isGreaterThan(messages.get(0).getVersion());
+    assertThat(messages.get(2).getVersion()).isGreaterThan(messages.get(1).getVersion());
+  }
+
+  @Test
+  void putAllPublishesVersionPerKey() {
+    RedisCaffeineCache cache = versionedCache();
+    Map<String, String> values = new LinkedHashMap<>();
+    values.put("k1", "v1");
+    values.put("k2", "v2");
+
+    cache.putAll(values);
+
+    CacheMessage message = published(1).get(0);
+    assertThat(message.getKeys()).containsExactly("k1", "k2");
+    assertThat(message.getVersions()).hasSize(2).doesNotContainNull();
+  }
+
+  @Test
+  void versionIsStrippedWhenReading() {
+    RedisCaffeineCache cache = versionedCache();
+    cache.put("k", "v");
+    cache.getCaffeineCache().invalidateAll();
+
+    assertThat(cache.get("k", String.class)).isEqualTo("v");
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v");
+  }
+
+  @Test
+  void staleRedisValueIsNotCachedLocally() {
+    RedisCaffeineCache cache = versionedCache();
+    cache.put("k", "v1");
+    long version = published(1).get(0).getVersion();
+
+    // 其他节点已经写入更新的版本，但本节点读到的 redis 值仍是旧版本（例如读取发生在写入之前）
+    cache.clearLocal("k", version + 10);
+
+    assertThat(cache.get("k", String.class)).isEqualTo("v1");
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isNull();
+  }
+
+  @Test
+  void currentRedisValueIsCachedLocally() {
+    RedisCaffeineCache cache = versionedCache();
+    cache.put("k", "v1");
+    long version = published(1).get(0).getVersion();
+
+    cache.clearLocal("k", version);
+
+    assertThat(cache.get("k", String.class)).isEqualTo("v1");
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v1");
+  }
+}
@@ -0,0 +1,113 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.manager.impl.RedisStreamCacheMessagePublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * redis stream 失效通知：按序号处理其他节点的消息，序号不连续或 stream 重建时清除所有本地缓存
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisStreamInvalidationListenerTest extends AbstractRedisCacheTest {
+  private static final byte[] ADD_SCRIPT = "return redis.call('XADD', KEYS[1], ARGV[1], 'm', ARGV[2])"
+      .getBytes(StandardCharsets.UTF_8);
+
+  private RedisStreamInvalidationListener listener;
+  private RedisStreamCacheMessagePublisher streamPublisher;
+  private String stream;
+
+  @AfterEach
+  void stopListener() {
+    if (listener != null) {
+      listener.destroy();
+    }
+  }
+
+  private RedisCaffeineCache start() throws InterruptedException {
+    RedisCaffeineCacheManager cacheManager = cacheManager();
+    RedisCaffeineCache cache = cache(cacheManager);
+    stream = cacheName + ":stream";
+    streamPublisher = new RedisStreamCacheMessagePublisher(redisTemplate, stream, 1000);
+    listener = new RedisStreamInvalidationListener(redisTemplate, cacheManager, stream, 10, 100, 50);
+    listener.start();
+    await(() -> listener.getLastSequence() >= 0);
+    return cache;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+  }
+
+  private CacheMessage otherNodeMessage(Object key) {
+    CacheMessage message = new CacheMessage(cacheName, key);
+    message.setOrigin("other");
+    return message;
+  }
+
+  @Test
+  void otherNodeMessageClearsKey() throws Exception {
+    RedisCaffeineCache cache = start();
+    cache.put("k1", "v1");
+    cache.put("k2", "v2");
+
+    streamPublisher.publish(otherNodeMessage("k1"));
+    await(() -> cache.getCaffeineCache().getIfPresent("k1") == null);
+
+    assertThat(listener.getReceivedCount()).isEqualTo(1);
+    assertThat(listener.getResyncCount()).isZero();
+    assertThat(cache.getCaffeineCache().getIfPresent("k1")).isNull();
+    assertThat(cache.getCaffeineCache().getIfPresent("k2")).isEqualTo("v2");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void sequenceGapClearsAllLocal() throws Exception {
+    RedisCaffeineCache cache = start();
+    cache.put("k1", "v1");
+    cache.put("k2", "v2");
+
+    // 序号 1 到 4 的消息已经超出 stream 的保留范围
+    byte[] rawStream = stream.getBytes(StandardCharsets.UTF_8);
+    byte[] id = "5-0".getBytes(StandardCharsets.UTF_8);
+    byte[] body = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(otherNodeMessage("k1"));
+    redisTemplate.execute((RedisCallback<Object>) connection ->
+        connection.eval(ADD_SCRIPT, ReturnType.VALUE, 1, rawStream, id, body));
+    await(() -> listener.getLastSequence() == 5);
+
+    assertThat(listener.getResyncCount()).isEqualTo(1);
+    assertThat(cache.getCaffeineCache().getIfPresent("k1")).isNull();
+    assertThat(cache.getCaffeineCache().getIfPresent("k2")).isNull();
+  }
+
+  @Test
+  void recreatedStreamClearsAllLocal() throws Exception {
+    RedisCaffeineCache cache = start();
+    for (int i = 0; i < 3; i++) {
+      streamPublisher.publish(otherNodeMessage("other-" + i));
+    }
+    await(() -> listener.getLastSequence() == 3);
+    cache.put("k", "v");
+
+    // stream 被删除后重新从序号 1 开始
+    redisTemplate.delete(stream);
+    streamPublisher.publish(otherNodeMessage("other"));
+    await(() -> listener.getLastSequence() == 1);
+
+    assertThat(listener.getResyncCount()).isEqualTo(1);
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isNull();
+  }
+}
@@ -0,0 +1,80 @@
+package org.example.multilevelcache.config;
+
+import org.example.multilevelcache.manager.CacheKeyEncoder;
+import org.example.multilevelcache.manager.CacheMetrics;
+import org.example.multilevelcache.manager.CacheMetricsFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * CLIENT TRACKING：本节点写入后不清除自己的本地缓存，其他客户端写入后清除
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisTrackingInvalidationListenerTest extends AbstractRedisCacheTest {
+  private RedisTrackingInvalidationListener listener;
+
+  @AfterEach
+  void stopListener() {
+    if (listener != null) {
+      listener.destroy();
+    }
+  }
+
+  @Test
+  void ownWriteKeepsLocalValue() throws Exception {
+    RedisCaffeineCacheManager cacheManager = cacheManager();
+    RedisCaffeineCache cache = cache(cacheManager);
+    listener = new RedisTrackingInvalidationListener(redisUri, cacheManager);
+    assumeTrue(listener.start(), "redis client tracking is not supported");
+
+    cache.put("k", "v");
+    Thread.sleep(500);
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isEqualTo("v");
+    verify(publisher, never()).publish(any());
+  }
+
+  @Test
+  void suppressedMessageIsNotCountedAsSent() {
+    CacheMetrics metrics = mock(CacheMetrics.class);
+    CacheMetricsFactory metricsFactory = mock(CacheMetricsFactory.class);
+    when(metricsFactory.create(eq(cacheName), any())).thenReturn(metrics);
+    RedisCaffeineCacheManager cacheManager = cacheManager(CacheKeyEncoder.TO_STRING, metricsFactory);
+    RedisCaffeineCache cache = cache(cacheManager);
+    listener = new RedisTrackingInvalidationListener(redisUri, cacheManager);
+    assumeTrue(listener.start(), "redis client tracking is not supported");
+
+    cache.put("k", "v");
+
+    verify(publisher, never()).publish(any());
+    verify(metrics, never()).recordMessageSent();
+  }
+
+  @Test
+  void otherWriteClearsLocalValue() throws Exception {
+    RedisCaffeineCacheManager cacheManager = cacheManager();
+    RedisCaffeineCache cache = cache(cacheManager);
+    listener = new RedisTrackingInvalidationListener(redisUri, cacheManager);
+    assumeTrue(listener.start(), "redis client tracking is not supported");
+    cache.put("k", "v");
+
+    redisTemplate.opsForValue().set(cache.getKeyPrefix() + "k", "other");
+    long deadline = System.currentTimeMillis() + 5000;
+    while (cache.getCaffeineCache().getIfPresent("k") != null && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+
+    assertThat(cache.getCaffeineCache().getIfPresent("k")).isNull();
+  }
+}
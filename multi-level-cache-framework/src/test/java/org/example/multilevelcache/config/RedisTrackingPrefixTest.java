@@ -0,0 +1,51 @@
+package org.example.multilevelcache.config;
+
+import io.lettuce.core.RedisURI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * BCAST 前缀互相包含的缓存不开启 tracking，不需要连接 redis
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class RedisTrackingPrefixTest {
+  private final RedisTrackingInvalidationListener listener =
+      new RedisTrackingInvalidationListener(RedisURI.create("localhost", 6379), mock(RedisCaffeineCacheManager.class));
+
+  @AfterEach
+  void destroy() {
+    listener.destroy();
+  }
+
+  @Test
+  void nestedCacheNameIsNotTracked() {
+    assertThat(listener.track("user", Collections.singletonList("user:"))).isTrue();
+
+    assertThat(listener.track("user:detail", Arrays.asList("user:detail:", "user:detail#generation"))).isFalse();
+    assertThat(listener.track("us", Collections.singletonList("us:"))).isTrue();
+    assertThat(listener.track("u", Collections.singletonList("u"))).isFalse();
+  }
+
+  @Test
+  void sameCacheIsTrackedAgain() {
+    assertThat(listener.track("order", Arrays.asList("order:", "order#generation"))).isTrue();
+
+    assertThat(listener.track("order", Arrays.asList("order:", "order#generation"))).isTrue();
+  }
+
+  @Test
+  void untrackedCacheUsesTopic() {
+    listener.track("user", Collections.singletonList("user:"));
+    listener.track("user:detail", Collections.singletonList("user:detail:"));
+
+    assertThat(listener.isTracking("user:detail")).isFalse();
+  }
+}
@@ -0,0 +1,56 @@
+package org.example.multilevelcache.config.porperties;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 单独配置与全局配置的合并
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class MultiCachePropertiesTest {
+  private final MultiCacheProperties properties = new MultiCacheProperties();
+
+  private MultiCacheProperties.CacheConfig cacheConfig(String cacheName) {
+    MultiCacheProperties.CacheConfig config = new MultiCacheProperties.CacheConfig();
+    properties.getCaches().put(cacheName, config);
+    return config;
+  }
+
+  @Test
+  void cacheMaximumSizeReplacesGlobalMaximumWeight() {
+    properties.getCaffeine().setMaximumWeight(100000);
+    cacheConfig("dict").setMaximumSize(1000L);
+
+    MultiCacheProperties.Caffeine caffeine = properties.getCaffeine("dict");
+
+    assertThat(caffeine.getMaximumSize()).isEqualTo(1000);
+    assertThat(caffeine.getMaximumWeight()).isZero();
+  }
+
+  @Test
+  void cacheMaximumWeightReplacesGlobalMaximumSize() {
+    properties.getCaffeine().setMaximumSize(1000);
+    cacheConfig("report").setMaximumWeight(100000L);
+
+    MultiCacheProperties.Caffeine caffeine = properties.getCaffeine("report");
+
+    assertThat(caffeine.getMaximumSize()).isZero();
+    assertThat(caffeine.getMaximumWeight()).isEqualTo(100000);
+  }
+
+  @Test
+  void globalBoundIsUsedWithoutCacheBound() {
+    properties.getCaffeine().setMaximumSize(1000);
+    properties.getCaffeine().setExpireAfterWrite(60000);
+    cacheConfig("user").setExpireAfterWrite(1000L);
+
+    MultiCacheProperties.Caffeine caffeine = properties.getCaffeine("user");
+
+    assertThat(caffeine.getMaximumSize()).isEqualTo(1000);
+    assertThat(caffeine.getMaximumWeight()).isZero();
+    assertThat(caffeine.getExpireAfterWrite()).isEqualTo(1000);
+  }
+}
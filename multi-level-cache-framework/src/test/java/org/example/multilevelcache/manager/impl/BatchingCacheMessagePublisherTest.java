@@ -0,0 +1,141 @@
+package org.example.multilevelcache.manager.impl;
+
+import org.example.multilevelcache.domain.CacheMessage;
+import org.example.multilevelcache.manager.CacheMessagePublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 合并发送：同一个 key 保留最大的版本号，按 batchSize 拆分，缓冲超过 queueCapacity 时退化为清除整个 cacheName
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class BatchingCacheMessagePublisherTest {
+  /**
+   * 定时发送间隔足够长，测试中通过 destroy 发送缓冲的消息
+   */
+  private static final long FLUSH_INTERVAL = 60000;
+
+  private final CacheMessagePublisher delegate = mock(CacheMessagePublisher.class);
+  private BatchingCacheMessagePublisher publisher;
+
+  @AfterEach
+  void shutdown() {
+    if (publisher != null) {
+      publisher.destroy();
+    }
+  }
+
+  private static CacheMessage keyMessage(Object key, Long version) {
+    CacheMessage message = new CacheMessage("users", key);
+    message.setVersion(version);
+    return message;
+  }
+
+  private List<CacheMessage> published(int count) {
+    ArgumentCaptor<CacheMessage> captor = ArgumentCaptor.forClass(CacheMessage.class);
+    verify(delegate, times(count)).publish(captor.capture());
+    return captor.getAllValues();
+  }
+
+  @Test
+  void mergesKeysWithLatestVersion() {
+    publisher = new BatchingCacheMessagePublisher(delegate, FLUSH_INTERVAL, 100, 1000);
+    publisher.publish(keyMessage("k1", 1L));
+    publisher.publish(keyMessage("k2", 2L));
+    publisher.publish(keyMessage("k1", 3L));
+
+    publisher.destroy();
+
+    CacheMessage message = published(1).get(0);
+    assertThat(message.getCacheName()).isEqualTo("users");
+    assertThat(message.getKey()).isNull();
+    assertThat(message.getKeys()).containsExactly("k1", "k2");
+    assertThat(message.getVersions()).containsExactly(3L, 2L);
+  }
+
+  @Test
+  void singleKeyIsSentAsKeyMessage() {
+    publisher = new BatchingCacheMessagePublisher(delegate, FLUSH_INTERVAL, 100, 1000);
+    publisher.publish(keyMessage("k", null));
+    publisher.publish(keyMessage("k", null));
+
+    publisher.destroy();
+
+    CacheMessage message = published(1).get(0);
+    assertThat(message.getKey()).isEqualTo("k");
+    assertThat(message.getKeys()).isNull();
+    assertThat(message.getVersion()).isNull();
+  }
+
+  @Test
+  void splitsByBatchSize() {
+    publisher = new BatchingCacheMessagePublisher(delegate, FLUSH_INTERVAL, 2, 1000);
+    CacheMessage message = new CacheMessage("users", null);
+    message.setKeys(Arrays.asList("k1", "k2", "k3"));
+
+    publisher.publish(message);
+    publisher.destroy();
+
+    List<CacheMessage> messages = published(2);
+    assertThat(messages.get(0).getKeys()).containsExactly("k1", "k2");
+    assertThat(messages.get(1).getKeys()).containsExactly("k3");
+    assertThat(messages.get(0).getVersions()).isNull();
+  }
+
+  @Test
+  void fullBatchIsSentWithoutWaitingForInterval() {
+    publisher = new BatchingCacheMessagePublisher(delegate, FLUSH_INTERVAL, 2, 1000);
+    publisher.publish(keyMessage("k1", null));
+    publisher.publish(keyMessage("k2", null));
+
+    ArgumentCaptor<CacheMessage> captor = ArgumentCaptor.forClass(CacheMessage.class);
+    verify(delegate, timeout(5000)).publish(captor.capture());
+    assertThat(captor.getValue().getKeys()).containsExactly("k1", "k2");
+  }
+
+  @Test
+  void overflowDegradesToClearAll() {
+    publisher = new BatchingCacheMessagePublisher(delegate, FLUSH_INTERVAL, 100, 2);
+    publisher.publish(keyMessage("k1", 1L));
+    CacheMessage clear = new CacheMessage("users", null);
+    clear.setGeneration(5L);
+    publisher.publish(clear);
+    publisher.publish(keyMessage("k2", 2L));
+    publisher.publish(keyMessage("k3", 3L));
+
+    publisher.destroy();
+
+    CacheMessage message = published(1).get(0);
+    assertThat(message.getKey()).isNull();
+    assertThat(message.getKeys()).isNull();
+    assertThat(message.getGeneration()).isEqualTo(5L);
+  }
+
+  @Test
+  void publishErrorDoesNotDropOtherCaches() {
+    publisher = new BatchingCacheMessagePublisher(delegate, FLUSH_INTERVAL, 100, 1000);
+    CacheMessage failing = new CacheMessage("orders", "k");
+    doThrow(new IllegalStateException("redis is down")).when(delegate).publish(any());
+    publisher.publish(failing);
+    publisher.publish(keyMessage("k", null));
+
+    publisher.destroy();
+
+    List<CacheMessage> messages = published(2);
+    assertThat(messages).extracting(CacheMessage::getCacheName).containsExactlyInAnyOrder("orders", "users");
+  }
+}
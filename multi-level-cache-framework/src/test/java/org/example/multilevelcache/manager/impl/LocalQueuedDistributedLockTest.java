@@ -0,0 +1,109 @@
+package org.example.multilevelcache.manager.impl;
+
+import org.example.multilevelcache.manager.DistributedLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 本地锁只阻塞同一个锁名称，分布式锁释放失败时仍然释放本地锁
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class LocalQueuedDistributedLockTest {
+  private final DistributedLock delegate = mock(DistributedLock.class);
+  private final LocalQueuedDistributedLock lock = new LocalQueuedDistributedLock(delegate);
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  LocalQueuedDistributedLockTest() {
+    when(delegate.tryAcquire(anyString(), anyLong(), anyLong())).thenReturn(true);
+  }
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void holdingOneNameDoesNotBlockOthers() throws Exception {
+    assertThat(lock.tryAcquire("a", 1000, 30000)).isTrue();
+
+    // 持有 a 期间（例如回源），其他线程获取任意其他锁名称都不需要等待
+    for (int i = 0; i < 100; i++) {
+      String name = "b" + i;
+      Future<Boolean> acquired = executor.submit(() -> {
+        boolean result = lock.tryAcquire(name, 0, 30000);
+        if (result) {
+          lock.release(name);
+        }
+        return result;
+      });
+      assertThat(acquired.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(lock.getContendedCount()).isZero();
+    lock.release("a");
+    assertThat(lock.localLockCount()).isZero();
+  }
+
+  @Test
+  void sameNameWaitsLocally() throws Exception {
+    assertThat(lock.tryAcquire("a", 1000, 30000)).isTrue();
+
+    Future<Boolean> acquired = executor.submit(() -> lock.tryAcquire("a", 50, 30000));
+
+    assertThat(acquired.get(5, TimeUnit.SECONDS)).isFalse();
+    assertThat(lock.getContendedCount()).isEqualTo(1);
+    assertThat(lock.getTimeoutCount()).isEqualTo(1);
+    // 等待的线程没有到 redis 竞争锁
+    verify(delegate, times(1)).tryAcquire(eq("a"), anyLong(), anyLong());
+    lock.release("a");
+    assertThat(lock.localLockCount()).isZero();
+  }
+
+  @Test
+  void waiterAcquiresAfterRelease() throws Exception {
+    assertThat(lock.tryAcquire("a", 1000, 30000)).isTrue();
+    CountDownLatch waiting = new CountDownLatch(1);
+
+    Future<Boolean> acquired = executor.submit(() -> {
+      waiting.countDown();
+      boolean result = lock.tryAcquire("a", 5000, 30000);
+      lock.release("a");
+      return result;
+    });
+    waiting.await();
+    lock.release("a");
+
+    assertThat(acquired.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(lock.localLockCount()).isZero();
+  }
+
+  @Test
+  void failedReleaseStillUnlocksLocally() throws Exception {
+    doThrow(new IllegalMonitorStateException("lease expired")).when(delegate).release("a");
+    assertThat(lock.tryAcquire("a", 1000, 30000)).isTrue();
+
+    assertThatThrownBy(() -> lock.release("a")).isInstanceOf(IllegalMonitorStateException.class);
+
+    assertThat(lock.localLockCount()).isZero();
+    assertThat(executor.submit(() -> lock.tryAcquire("a", 0, 30000)).get(5, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -0,0 +1,36 @@
+package org.example.multilevelcache.manager.impl;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.multilevelcache.serializer.CacheValueSerializers;
+import org.example.multilevelcache.serializer.CompressingRedisSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 压缩统计注册到 Micrometer
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class MicrometerCacheMetricsTest {
+
+  @Test
+  void compressionStatisticsAreRegistered() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerCacheMetrics metrics = new MicrometerCacheMetrics(registry, "users");
+    CompressingRedisSerializer serializer = new CompressingRedisSerializer(
+        CacheValueSerializers.create("json", Collections.emptyList()), 16);
+    metrics.bindCompressionStatistics(serializer.getStatistics());
+
+    serializer.serialize(String.join("", Collections.nCopies(100, "value")));
+
+    FunctionTimer compress = registry.get("multi.cache.compression").tags("cache", "users", "operation", "compress").functionTimer();
+    assertThat(compress.count()).isEqualTo(1);
+    assertThat(registry.get("multi.cache.compression.bytes").tags("state", "original").functionCounter().count()).isPositive();
+    assertThat(registry.get("multi.cache.compression.ratio").gauge().value()).isLessThan(1);
+  }
+}
@@ -0,0 +1,71 @@
+package org.example.multilevelcache.offheap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OffHeapStore 的读写、清除和分配失败时的淘汰
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class OffHeapStoreTest {
+
+  @Test
+  void putAndGet() {
+    OffHeapStore store = new OffHeapStore(4096, 1024, 0);
+
+    assertThat(store.put("k", new byte[]{1, 2, 3}, 7)).isTrue();
+
+    OffHeapStore.Entry entry = store.get("k");
+    assertThat(entry.getValue()).containsExactly(1, 2, 3);
+    assertThat(entry.getVersion()).isEqualTo(7);
+  }
+
+  @Test
+  void invalidatedKeyIsNotWrittenAgain() {
+    OffHeapStore store = new OffHeapStore(4096, 1024, 0);
+    store.put("k", new byte[]{1}, 0);
+
+    store.invalidate("k");
+
+    assertThat(store.get("k")).isNull();
+    assertThat(store.put("k", new byte[]{2}, 0)).isFalse();
+  }
+
+  @Test
+  void fullSizeClassEvictsColdestKey() {
+    OffHeapStore store = new OffHeapStore(2048, 1024, 0);
+    for (int i = 0; i < 32; i++) {
+      assertThat(store.put(i, new byte[64], 0)).isTrue();
+    }
+
+    assertThat(store.put("new", new byte[64], 0)).isTrue();
+
+    assertThat(store.get("new")).isNotNull();
+    assertThat(store.size()).isEqualTo(32);
+  }
+
+  @Test
+  void slabsAreRebalancedForAnotherSizeClass() {
+    OffHeapStore store = new OffHeapStore(2048, 1024, 0);
+    for (int i = 0; i < 32; i++) {
+      assertThat(store.put(i, new byte[64], 0)).isTrue();
+    }
+
+    assertThat(store.put("large", new byte[1000], 0)).isTrue();
+
+    assertThat(store.get("large").getValue()).hasSize(1000);
+    assertThat(store.reservedBytes()).isEqualTo(2048);
+  }
+
+  @Test
+  void valueLargerThanSlabIsNotWritten() {
+    OffHeapStore store = new OffHeapStore(2048, 1024, 0);
+    store.put("k", new byte[64], 0);
+
+    assertThat(store.put("large", new byte[2000], 0)).isFalse();
+    assertThat(store.get("k")).isNotNull();
+  }
+}
@@ -0,0 +1,71 @@
+package org.example.multilevelcache.offheap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SlabAllocator 的分配、释放和空闲 slab 的重新使用
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class SlabAllocatorTest {
+
+  @Test
+  void freedChunkIsReused() {
+    SlabAllocator allocator = new SlabAllocator(1024, 1024);
+    SlabAllocator.Slot slot = allocator.allocate(10);
+    assertThat(slot.chunkSize()).isEqualTo(64);
+    slot.write(new byte[10]);
+
+    allocator.free(slot);
+
+    assertThat(slot.read()).isNull();
+    assertThat(allocator.allocate(64)).isNotNull();
+    assertThat(allocator.reservedBytes()).isEqualTo(1024);
+  }
+
+  @Test
+  void valueLargerThanSlabIsRejected() {
+    SlabAllocator allocator = new SlabAllocator(4096, 1024);
+
+    assertThat(allocator.allocate(1025)).isNull();
+    assertThat(allocator.reservedBytes()).isZero();
+  }
+
+  @Test
+  void emptySlabMovesToAnotherSizeClass() {
+    SlabAllocator allocator = new SlabAllocator(2048, 1024);
+    List<SlabAllocator.Slot> slots = new ArrayList<>();
+    SlabAllocator.Slot slot;
+    while ((slot = allocator.allocate(64)) != null) {
+      slots.add(slot);
+    }
+    assertThat(slots).hasSize(32);
+    assertThat(allocator.allocate(1000)).isNull();
+
+    // 第一个 slab 的 chunk 全部释放，第二个 slab 仍在切分中，不放回空闲 slab 池
+    slots.subList(0, 16).forEach(allocator::free);
+
+    assertThat(allocator.freeSlabs()).isEqualTo(1);
+    assertThat(allocator.allocate(1000)).isNotNull();
+    assertThat(allocator.freeSlabs()).isZero();
+    assertThat(allocator.allocate(64)).isNull();
+  }
+
+  @Test
+  void doubleFreeIsIgnored() {
+    SlabAllocator allocator = new SlabAllocator(1024, 1024);
+    SlabAllocator.Slot slot = allocator.allocate(64);
+
+    allocator.free(slot);
+    allocator.free(slot);
+
+    assertThat(allocator.allocate(64)).isNotNull();
+    assertThat(allocator.allocate(64)).isNotNull();
+  }
+}
@@ -0,0 +1,96 @@
+package org.example.multilevelcache.serializer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 压缩头部的读写，以及没有头部的旧数据
+ *
+ * @author liuzw
+ * @date 2026/10/18
+ */
+class CompressingRedisSerializerTest {
+  /**
+   * 原样读写 byte[]，模拟 kryo 等开头可以是任意字节的二进制格式
+   */
+  private static final RedisSerializer<Object> BYTES = new RedisSerializer<Object>() {
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+      return (byte[]) value;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+      return bytes;
+    }
+  };
+
+  private static byte[] repeated(int length) {
+    byte[] bytes = new byte[length];
+    Arrays.fill(bytes, (byte) 'a');
+    return bytes;
+  }
+
+  @Test
+  void largeValueIsCompressed() {
+    CompressingRedisSerializer serializer = new CompressingRedisSerializer(BYTES, 100);
+    byte[] value = repeated(10000);
+
+    byte[] serialized = serializer.serialize(value);
+
+    assertThat(serialized.length).isLessThan(value.length);
+    assertThat(serialized[3]).isEqualTo(CompressingRedisSerializer.LZ4);
+    assertThat((byte[]) serializer.deserialize(serialized)).isEqualTo(value);
+    assertThat(serializer.getStatistics().getCompressCount()).isEqualTo(1);
+    assertThat(serializer.getStatistics().getDecompressCount()).isEqualTo(1);
+    assertThat(serializer.getStatistics().getCompressionRatio()).isLessThan(1);
+  }
+
+  @Test
+  void smallValueHasRawHeader() {
+    CompressingRedisSerializer serializer = new CompressingRedisSerializer(BYTES, 100);
+    byte[] value = {1, 2, 3};
+
+    byte[] serialized = serializer.serialize(value);
+
+    assertThat(serialized).startsWith(CompressingRedisSerializer.MAGIC);
+    assertThat(serialized[3]).isEqualTo(CompressingRedisSerializer.RAW);
+    assertThat((byte[]) serializer.deserialize(serialized)).isEqualTo(value);
+  }
+
+  @Test
+  void legacyValueStartingWithOldHeaderBytesIsReadAsIs() {
+    CompressingRedisSerializer serializer = new CompressingRedisSerializer(BYTES, 100);
+
+    for (byte first : new byte[]{(byte) 0xC0, (byte) 0xC1, (byte) 0xC2}) {
+      byte[] legacy = {first, 0, 0, 0, 5, 'a', 'b'};
+      assertThat((byte[]) serializer.deserialize(legacy)).isEqualTo(legacy);
+    }
+  }
+
+  @Test
+  void uncompressedValueLookingLikeHeaderIsEscaped() {
+    CompressingRedisSerializer serializer = new CompressingRedisSerializer(BYTES, 0);
+    byte[] plain = {1, 2, 3};
+    byte[] headerLike = {(byte) 0xC0, 'M', 'C', CompressingRedisSerializer.LZ4, 0, 0, 0, 1, 'x'};
+
+    assertThat(serializer.serialize(plain)).isEqualTo(plain);
+    byte[] serialized = serializer.serialize(headerLike);
+
+    assertThat(serialized).hasSize(headerLike.length + 4);
+    assertThat((byte[]) serializer.deserialize(serialized)).isEqualTo(headerLike);
+  }
+
+  @Test
+  void compressedValueIsReadWithoutThreshold() {
+    byte[] value = repeated(10000);
+    byte[] serialized = new CompressingRedisSerializer(BYTES, 100).serialize(value);
+
+    assertThat((byte[]) new CompressingRedisSerializer(BYTES, 0).deserialize(serialized)).isEqualTo(value);
+  }
+}